@@ -0,0 +1,33 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+// The 1x1 downsampled scene.
+uniform sampler2D texScene;
+// The exposure of the previous frame, in the red channel.
+uniform sampler2D texHistory;
+
+uniform float hdrMaxExposure;
+uniform float hdrMinExposure;
+uniform float hdrTargetLuminance;
+// 1.0 when there is no valid history, to take the target exposure at once.
+uniform float adjustmentSpeed;
+
+layout(location = 0) out vec4 outExposure;
+
+void main() {
+    vec3 color = texelFetch(texScene, ivec2(0, 0), 0).rgb;
+
+    // See: https://en.wikipedia.org/wiki/Luma_(video)#Use_of_relative_luminance for the constants below.
+    float currentSceneLuminance = dot(vec3(0.2126, 0.7152, 0.0722), color);
+
+    float targetExposure = hdrMaxExposure;
+    if (currentSceneLuminance > 0.0) {
+        targetExposure = hdrTargetLuminance / currentSceneLuminance;
+    }
+    targetExposure = clamp(targetExposure, hdrMinExposure, hdrMaxExposure);
+
+    float previousExposure = texelFetch(texHistory, ivec2(0, 0), 0).r;
+
+    outExposure = vec4(mix(previousExposure, targetExposure, adjustmentSpeed), 0.0, 0.0, 1.0);
+}
@@ -0,0 +1,48 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+in vec2 v_uv0;
+
+uniform sampler2D tex;
+uniform sampler2D texLinearDepth;
+
+// One texel along the blur axis, in texture coordinates.
+uniform vec2 direction;
+
+// Linearly sampled Gaussian taps as (offset in texels, weight), the first one being the center.
+// The size must match GaussianKernel.MAX_TAPS.
+#define MAX_TAPS 9
+uniform vec2 taps[MAX_TAPS];
+uniform int tapCount;
+
+// Relative difference in linear depth beyond which a tap doesn't contribute.
+uniform float depthTolerance;
+
+layout(location = 0) out vec4 outColor;
+
+float depthWeight(float centerDepth, vec2 uv) {
+    float sampleDepth = texture(texLinearDepth, uv).r;
+    return max(0.0, 1.0 - abs(centerDepth - sampleDepth) / (depthTolerance * centerDepth));
+}
+
+void main() {
+    float centerDepth = texture(texLinearDepth, v_uv0.xy).r;
+
+    vec4 result = texture(tex, v_uv0.xy) * taps[0].y;
+    float totalWeight = taps[0].y;
+
+    for (int i = 1; i < tapCount; ++i) {
+        vec2 offset = direction * taps[i].x;
+
+        float weight = taps[i].y * depthWeight(centerDepth, v_uv0.xy + offset);
+        result += texture(tex, v_uv0.xy + offset) * weight;
+        totalWeight += weight;
+
+        weight = taps[i].y * depthWeight(centerDepth, v_uv0.xy - offset);
+        result += texture(tex, v_uv0.xy - offset) * weight;
+        totalWeight += weight;
+    }
+
+    outColor = result / totalWeight;
+}
@@ -0,0 +1,41 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+in vec2 v_uv0;
+
+uniform sampler2D tex;
+
+// One texel of the input texture, in texture coordinates.
+uniform vec2 texelSize;
+
+// 1.0 for the first level of the chain, which only keeps the brightest areas of the input.
+uniform float applyThreshold;
+uniform float highPassThreshold;
+
+layout(location = 0) out vec4 outColor;
+
+// Same test as in highPass_frag.glsl, applied to each tap so that isolated bright texels don't flicker
+// as they move in and out of the center tap.
+vec3 highPass(vec3 color) {
+    float relativeLuminance = dot(vec3(0.2126, 0.7152, 0.0722), color - vec3(highPassThreshold));
+    return relativeLuminance * highPassThreshold > 1.0 ? color : vec3(0.0);
+}
+
+vec3 fetch(vec2 uv) {
+    vec3 color = texture(tex, uv).rgb;
+    return applyThreshold > 0.5 ? highPass(color) : color;
+}
+
+void main() {
+    // The center of an output texel is the corner shared by four input texels, so every tap below averages a 2x2
+    // block of input texels. The diagonal taps are one full input texel away, on the corners of the neighboring
+    // blocks, widening the footprint past the 2x2 input texels the center tap already covers.
+    vec3 result = fetch(v_uv0.xy) * 4.0;
+    result += fetch(v_uv0.xy - texelSize);
+    result += fetch(v_uv0.xy + texelSize);
+    result += fetch(v_uv0.xy + vec2(texelSize.x, -texelSize.y));
+    result += fetch(v_uv0.xy - vec2(texelSize.x, -texelSize.y));
+
+    outColor = vec4(result / 8.0, 1.0);
+}
@@ -0,0 +1,35 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+in vec2 v_uv0;
+
+// The previous, smaller, level of the upsample chain.
+uniform sampler2D tex;
+// The level of the downsample chain matching the size of the output.
+uniform sampler2D texDownSampled;
+
+// One texel of the smaller input texture, in texture coordinates.
+uniform vec2 texelSize;
+// Share of the smaller input in the average, i.e. the number of levels it holds over the number of levels output.
+uniform float lowerLevelsWeight;
+
+layout(location = 0) out vec4 outColor;
+
+void main() {
+    vec2 halfTexel = 0.5 * texelSize;
+
+    // Tent filter: four taps one texel away along the axes, four taps half a texel away along the diagonals.
+    vec3 result = texture(tex, v_uv0.xy + vec2(-texelSize.x, 0.0)).rgb;
+    result += texture(tex, v_uv0.xy + vec2(texelSize.x, 0.0)).rgb;
+    result += texture(tex, v_uv0.xy + vec2(0.0, -texelSize.y)).rgb;
+    result += texture(tex, v_uv0.xy + vec2(0.0, texelSize.y)).rgb;
+    result += texture(tex, v_uv0.xy + halfTexel).rgb * 2.0;
+    result += texture(tex, v_uv0.xy - halfTexel).rgb * 2.0;
+    result += texture(tex, v_uv0.xy + vec2(halfTexel.x, -halfTexel.y)).rgb * 2.0;
+    result += texture(tex, v_uv0.xy - vec2(halfTexel.x, -halfTexel.y)).rgb * 2.0;
+
+    result = mix(texture(texDownSampled, v_uv0.xy).rgb, result / 12.0, lowerLevelsWeight);
+
+    outColor = vec4(result, 1.0);
+}
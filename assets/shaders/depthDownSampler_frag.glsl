@@ -0,0 +1,12 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+in vec2 v_uv0;
+
+uniform sampler2D texDepth;
+
+// Only the depth is written: the color attachments of the target are masked out.
+void main() {
+    gl_FragDepth = texture(texDepth, v_uv0.xy).r;
+}
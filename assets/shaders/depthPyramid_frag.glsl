@@ -0,0 +1,32 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+uniform sampler2D tex;
+uniform vec2 outputSize;
+
+layout(location = 0) out vec4 outColor;
+
+// Enough for input levels whose size isn't exactly twice the output size, i.e. because of odd dimensions.
+#define MAX_FOOTPRINT 3
+
+void main() {
+    ivec2 inputSize = textureSize(tex, 0);
+    vec2 ratio = vec2(inputSize) / outputSize;
+
+    // The range of input texels covered by this output texel.
+    ivec2 outputTexel = ivec2(gl_FragCoord.xy);
+    ivec2 first = ivec2(floor(vec2(outputTexel) * ratio));
+    ivec2 last = min(ivec2(ceil(vec2(outputTexel + 1) * ratio)) - 1, inputSize - 1);
+    last = min(last, first + MAX_FOOTPRINT - 1);
+
+    vec2 minMax = texelFetch(tex, first, 0).rg;
+    for (int y = first.y; y <= last.y; ++y) {
+        for (int x = first.x; x <= last.x; ++x) {
+            vec2 texelMinMax = texelFetch(tex, ivec2(x, y), 0).rg;
+            minMax = vec2(min(minMax.x, texelMinMax.x), max(minMax.y, texelMinMax.y));
+        }
+    }
+
+    outColor.rgba = vec4(minMax, 0.0, 1.0);
+}
@@ -0,0 +1,82 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+// The steps of initialPost_frag.glsl, toneMapping_frag.glsl and post_frag.glsl in a single pass,
+// for use when neither depth of field nor motion blur are enabled.
+
+in vec2 v_uv0;
+
+uniform sampler2D texScene;
+uniform sampler3D texColorGradingLut;
+
+#ifdef LIGHT_SHAFTS
+uniform sampler2D texLightShafts;
+#endif
+
+#ifdef BLOOM
+uniform float bloomFactor;
+uniform sampler2D texBloom;
+#endif
+
+uniform float exposure = 1;
+uniform float whitePoint = W;
+
+// When set, exposure is a bias applied to the adapted exposure found in the red channel of texExposure.
+uniform sampler2D texExposure;
+uniform float exposureFromTexture = 0.0;
+
+#ifdef FILM_GRAIN
+uniform sampler2D texNoise;
+
+uniform vec2 noiseSize;
+uniform vec2 renderTargetSize;
+
+uniform float noiseOffset;
+uniform float grainIntensity;
+#endif
+
+#ifdef VIGNETTE
+uniform sampler2D texVignette;
+uniform vec3 tint = vec3(1.0,1.0,1.0);
+#endif
+
+layout(location = 0) out vec4 outColor;
+
+void main() {
+    // Initial post-processing
+    vec4 color = texture(texScene, v_uv0.xy);
+#ifdef LIGHT_SHAFTS
+    color.rgb += texture(texLightShafts, v_uv0.xy).rgb;
+#endif
+#ifdef BLOOM
+    color += texture(texBloom, v_uv0.xy) * bloomFactor;
+#endif
+
+    // Tone mapping, using the Uncharted 2 method as in toneMapping_frag.glsl
+    color = srgbToLinear(color);
+    float sceneExposure = exposureFromTexture > 0.5 ? exposure * texelFetch(texExposure, ivec2(0, 0), 0).r : exposure;
+    color.rgb = uncharted2Tonemap(color.rgb * sceneExposure) / uncharted2Tonemap(vec3(whitePoint));
+    vec4 finalColor = linearToSrgb(color);
+
+    // Final post-processing
+#ifdef FILM_GRAIN
+    vec3 noise = texture(texNoise, renderTargetSize * (v_uv0.xy + noiseOffset) / noiseSize).xyz * 2.0 - 1.0;
+    finalColor.rgb += clamp(noise.xxx * grainIntensity, 0.0, 1.0);
+#endif
+
+    // In the case the color is > 1.0 or < 0.0 despite tonemapping
+    finalColor.rgb = clamp(finalColor.rgb, 0.0, 1.0);
+
+    // Color grading
+    vec3 lutScale = vec3(15.0 / 16.0);
+    vec3 lutOffset = vec3(1.0 / 32.0);
+    finalColor.rgb = texture(texColorGradingLut, lutScale * finalColor.rgb + lutOffset).rgb;
+
+#ifdef VIGNETTE
+    float vig = texture(texVignette, v_uv0.xy).x;
+    finalColor.rgb *= vec3(vig, vig, vig) + (1 - vig) * tint.rgb;
+#endif
+
+    outColor.rgba = finalColor;
+}
@@ -0,0 +1,39 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+// One texel per bin, the red channel holding the number of samples that fell in it.
+uniform sampler2D texHistogram;
+
+uniform int binCount;
+uniform float sampleCount;
+uniform float minLogLuminance;
+uniform float logLuminanceRange;
+uniform float lowPercentile;
+uniform float highPercentile;
+
+layout(location = 0) out vec4 outLuminance;
+
+void main() {
+    float low = lowPercentile * sampleCount;
+    float high = highPercentile * sampleCount;
+
+    float seen = 0.0;
+    float weightedLogLuminance = 0.0;
+    float weight = 0.0;
+
+    for (int i = 0; i < binCount; ++i) {
+        float count = texelFetch(texHistogram, ivec2(i, 0), 0).r;
+
+        // The part of this bin lying between the low and the high percentiles.
+        float kept = max(0.0, min(seen + count, high) - max(seen, low));
+        seen += count;
+
+        float binLogLuminance = minLogLuminance + (float(i) + 0.5) / float(binCount) * logLuminanceRange;
+        weightedLogLuminance += kept * binLogLuminance;
+        weight += kept;
+    }
+
+    float luminance = weight > 0.0 ? exp2(weightedLogLuminance / weight) : 0.0;
+    outLuminance = vec4(vec3(luminance), 1.0);
+}
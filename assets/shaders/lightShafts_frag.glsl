@@ -14,31 +14,40 @@ uniform sampler2D texScene;
 uniform float lightDirDotViewDir;
 uniform vec2 lightScreenPos;
 
+// Fraction of LIGHT_SHAFT_SAMPLES actually taken. Fewer samples cover the same distance with longer steps,
+// decay and weight being adjusted so that the overall brightness is preserved.
+uniform float sampleFraction = 1.0;
+
 layout(location = 0) out vec4 outExposure;
 
 void main() {
     outExposure.rgba = vec4(0.0, 0.0, 0.0, 1.0);
 
     if (lightDirDotViewDir > 0.0) {
+        int sampleCount = clamp(int(ceil(float(LIGHT_SHAFT_SAMPLES) * sampleFraction)), 1, LIGHT_SHAFT_SAMPLES);
+        float stepRatio = float(LIGHT_SHAFT_SAMPLES) / float(sampleCount);
+        float stepDecay = pow(decay, stepRatio);
+        float stepWeight = weight * stepRatio;
+
         vec2 uv0 = v_uv0;
-        vec2 deltaTexCoord = (1.0 / float(LIGHT_SHAFT_SAMPLES)) * density * vec2(uv0.xy - lightScreenPos.xy);
+        vec2 deltaTexCoord = (1.0 / float(sampleCount)) * density * vec2(uv0.xy - lightScreenPos.xy);
 
         float dist = length(deltaTexCoord.xy);
 
         // TODO: This shouldn't be hardcoded
-        float threshold = 0.01;
+        float threshold = 0.01 * stepRatio;
         if (dist > threshold) {
             deltaTexCoord.xy /= (dist / threshold);
         }
 
         float illuminationDecay = 1.0;
-        for(int i=0; i < LIGHT_SHAFT_SAMPLES; i++) {
+        for(int i=0; i < sampleCount; i++) {
             uv0 -= deltaTexCoord;
             vec3 sampler = texture(texScene, uv0).rgb;
 
-            sampler *= illuminationDecay * weight;
+            sampler *= illuminationDecay * stepWeight;
             outExposure.rgb += sampler;
-            illuminationDecay *= decay;
+            illuminationDecay *= stepDecay;
         }
 
         outExposure.rgb *= exposure * lightDirDotViewDir;
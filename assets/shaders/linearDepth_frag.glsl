@@ -0,0 +1,19 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+in vec2 v_uv0;
+
+uniform sampler2D texDepth;
+
+// The third column of the projection matrix, third and fourth row: the only terms the depth depends on.
+uniform vec2 depthParameters;
+
+layout(location = 0) out vec4 outColor;
+
+void main() {
+    float ndcDepth = texture(texDepth, v_uv0.xy).r * 2.0 - 1.0;
+    float linearDepth = depthParameters.y / (ndcDepth + depthParameters.x);
+
+    outColor.rgba = vec4(linearDepth, linearDepth, 0.0, 1.0);
+}
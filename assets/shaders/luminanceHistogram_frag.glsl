@@ -0,0 +1,10 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+layout(location = 0) out vec4 outCount;
+
+void main() {
+    // Accumulated by additive blending.
+    outCount = vec4(1.0, 0.0, 0.0, 0.0);
+}
@@ -0,0 +1,27 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+// Drawn as samplesX * samplesY points with no vertex attributes: each point samples the scene at the grid position
+// given by its gl_VertexID and lands on the histogram bin matching the log2 of the sampled luminance.
+
+uniform sampler2D texScene;
+
+uniform int samplesX;
+uniform int samplesY;
+uniform float minLogLuminance;
+uniform float logLuminanceRange;
+
+void main() {
+    vec2 uv = (vec2(gl_VertexID % samplesX, gl_VertexID / samplesX) + 0.5) / vec2(samplesX, samplesY);
+    vec3 color = textureLod(texScene, uv, 0.0).rgb;
+
+    // See: https://en.wikipedia.org/wiki/Luma_(video)#Use_of_relative_luminance for the constants below.
+    float luminance = dot(vec3(0.2126, 0.7152, 0.0722), color);
+    float logLuminance = log2(max(luminance, 1e-6));
+    float bin = clamp((logLuminance - minLogLuminance) / logLuminanceRange, 0.0, 1.0);
+
+    // Bins are spread over [-1, 1]: the last one would fall on the edge of the viewport without the clamp.
+    gl_Position = vec4(min(bin * 2.0 - 1.0, 0.999), 0.0, 0.0, 1.0);
+    gl_PointSize = 1.0;
+}
@@ -10,12 +10,20 @@ uniform sampler2D texSceneOpaqueNormals;
 uniform sampler2D texSceneOpaqueLightBuffer;
 uniform sampler2D texSceneReflectiveRefractive;
 
-#if defined (LOCAL_REFLECTIONS)
 uniform sampler2D texSceneReflectiveRefractiveNormals;
 
 uniform mat4 invProjMatrix;
 uniform mat4 projMatrix;
-#endif
+
+// Set when the water reflections are traced in screen space instead of rendering a planar reflection.
+uniform float screenSpaceWaterReflections;
+
+// Set when the refractive/reflective buffers are smaller than the opaque ones and need to be upsampled.
+uniform float refractiveReflectiveUpsample;
+uniform sampler2D texSceneReflectiveRefractiveDepth;
+
+// Relative depth tolerance, in window space, below which a low resolution sample is considered visible.
+#define UPSAMPLE_DEPTH_TOLERANCE 0.02
 
 #ifdef INSCATTERING
 uniform vec4 skyInscatteringSettingsFrag;
@@ -54,12 +62,77 @@ layout(location = 0) out vec4 outColor;
 layout(location = 1) out vec4 outNormal;
 layout(location = 2) out vec4 outLight;
 
+// Joint bilateral upsample of the refractive/reflective buffers: the four low resolution texels around the fragment
+// are weighted bilinearly, but texels whose depth lies behind the opaque scene at this fragment are discarded, so
+// that water does not bleed over the geometry in front of it. If all of them are discarded the closest one is used.
+void upsampleReflectiveRefractive(float referenceDepth, out vec4 color, out vec4 normal, out float depth) {
+    ivec2 size = textureSize(texSceneReflectiveRefractive, 0);
+    vec2 texelPosition = v_uv0.xy * vec2(size) - 0.5;
+    ivec2 baseTexel = ivec2(floor(texelPosition));
+    vec2 f = fract(texelPosition);
+
+    float bilinearWeights[4] = float[4]((1.0 - f.x) * (1.0 - f.y), f.x * (1.0 - f.y), (1.0 - f.x) * f.y, f.x * f.y);
+    ivec2 offsets[4] = ivec2[4](ivec2(0, 0), ivec2(1, 0), ivec2(0, 1), ivec2(1, 1));
+
+    float threshold = referenceDepth + UPSAMPLE_DEPTH_TOLERANCE * (1.0 - referenceDepth);
+
+    color = vec4(0.0);
+    normal = vec4(0.0);
+    depth = 0.0;
+    float totalWeight = 0.0;
+
+    ivec2 closestTexel = baseTexel;
+    float closestDepth = 2.0;
+
+    for (int i = 0; i < 4; ++i) {
+        ivec2 texel = clamp(baseTexel + offsets[i], ivec2(0), size - 1);
+        float sampleDepth = texelFetch(texSceneReflectiveRefractiveDepth, texel, 0).r;
+        float sampleDistance = abs(sampleDepth - referenceDepth);
+
+        if (sampleDistance < closestDepth) {
+            closestDepth = sampleDistance;
+            closestTexel = texel;
+        }
+
+        if (sampleDepth <= threshold) {
+            float weight = bilinearWeights[i];
+            color += texelFetch(texSceneReflectiveRefractive, texel, 0) * weight;
+            normal += texelFetch(texSceneReflectiveRefractiveNormals, texel, 0) * weight;
+            depth += sampleDepth * weight;
+            totalWeight += weight;
+        }
+    }
+
+    if (totalWeight > 0.0) {
+        color /= totalWeight;
+        normal /= totalWeight;
+        depth /= totalWeight;
+    } else {
+        color = texelFetch(texSceneReflectiveRefractive, closestTexel, 0);
+        normal = texelFetch(texSceneReflectiveRefractiveNormals, closestTexel, 0);
+        depth = texelFetch(texSceneReflectiveRefractiveDepth, closestTexel, 0).r;
+    }
+}
+
 void main() {
     vec4 colorOpaque = texture(texSceneOpaque, v_uv0.xy);
     float depthOpaque = texture(texSceneOpaqueDepth, v_uv0.xy).r * 2.0 - 1.0;
     vec4 normalOpaque = texture(texSceneOpaqueNormals, v_uv0.xy);
     vec4 colorTransparent = texture(texSceneReflectiveRefractive, v_uv0.xy);
     vec4 lightBufferOpaque = texture(texSceneOpaqueLightBuffer, v_uv0.xy);
+    vec4 normalTransparent = vec4(0.0);
+
+    if (refractiveReflectiveUpsample > 0.0) {
+        float depthTransparent;
+        upsampleReflectiveRefractive(depthOpaque * 0.5 + 0.5, colorTransparent, normalTransparent, depthTransparent);
+
+        // At full scale the refractive/reflective blocks write into the opaque depth buffer, here they have their own.
+        // The upsampled water depth is merged in and written back through gl_FragDepth below, so that the nodes
+        // reading the depth of the gBuffer after this one still see the water surface rather than what lies below it.
+        if (colorTransparent.a > 0.0) {
+            depthOpaque = min(depthOpaque, depthTransparent * 2.0 - 1.0);
+        }
+    }
 
 #if defined VOLUMETRIC_FOG
     // TODO: As costly as in the deferred light geometry pass - frustum ray method would be great here
@@ -67,15 +140,29 @@ void main() {
 #endif
 
 #if defined (LOCAL_REFLECTIONS)
-    vec3 worldPositionViewSpace = reconstructViewPos(depthOpaque, v_uv0.xy, invProjMatrix);
+    bool traceReflections = true;
+#else
+    bool traceReflections = screenSpaceWaterReflections > 0.0;
+#endif
+
+    // The alpha of the reflective normals scales the reflection: where it is 0, i.e. outside of water and other
+    // reflective surfaces, whatever the march finds is faded out entirely, so the march is skipped.
+    vec4 transparentNormalColorValue = vec4(0.0);
+    if (traceReflections) {
+        transparentNormalColorValue = refractiveReflectiveUpsample > 0.0
+                ? normalTransparent : texture(texSceneReflectiveRefractiveNormals, v_uv0.xy);
+    }
+
+    // Rays that leave the screen keep the reflected sky rendered by the refractive/reflective pass.
+    if (transparentNormalColorValue.a > 0.0) {
+        vec3 worldPositionViewSpace = reconstructViewPos(depthOpaque, v_uv0.xy, invProjMatrix);
 
-    vec4 transparentNormalColorValue = texture(texSceneReflectiveRefractiveNormals, v_uv0.xy).xyzw;
-    vec3 reflectionNormal = transparentNormalColorValue.xyz * 2.0 - 1.0;
-    vec3 viewingDirection = normalize(worldPositionViewSpace.xyz);
+        vec3 reflectionNormal = transparentNormalColorValue.xyz * 2.0 - 1.0;
+        vec3 viewingDirection = normalize(worldPositionViewSpace.xyz);
 
-    vec3 reflectionDirection = reflect(viewingDirection.xyz, reflectionNormal.xyz);
+        vec3 reflectionDirection = reflect(viewingDirection.xyz, reflectionNormal.xyz);
 
-    // TODO: Move this some place else
+        // TODO: Move this some place else
 #define SAMPLES_LOCAL_REFLECTION 64
 #define RAY_MARCHING_DISTANCE 128.0
 #define SAMPLE_STEP_SIZE (RAY_MARCHING_DISTANCE / SAMPLES_LOCAL_REFLECTION)
@@ -84,48 +171,48 @@ void main() {
 #define EDGE_THRESHOLD 0.95
 #define EDGE_FADE_INTERVAL 0.05
 
-    vec3 viewSpaceRayPosition = worldPositionViewSpace;
-    for (int i=0; i<SAMPLES_LOCAL_REFLECTION; ++i) {
-        viewSpaceRayPosition += reflectionDirection * SAMPLE_STEP_SIZE;
+        vec3 viewSpaceRayPosition = worldPositionViewSpace;
+        for (int i=0; i<SAMPLES_LOCAL_REFLECTION; ++i) {
+            viewSpaceRayPosition += reflectionDirection * SAMPLE_STEP_SIZE;
 
-        vec4 screenSpaceRayPosition = projMatrix * vec4(viewSpaceRayPosition.x, viewSpaceRayPosition.y, viewSpaceRayPosition.z, 1.0);
-        screenSpaceRayPosition.xyz /= screenSpaceRayPosition.w;
+            vec4 screenSpaceRayPosition = projMatrix * vec4(viewSpaceRayPosition.x, viewSpaceRayPosition.y, viewSpaceRayPosition.z, 1.0);
+            screenSpaceRayPosition.xyz /= screenSpaceRayPosition.w;
 
-        // Nahh... We don't want to touch anything outside of the screen
-        // TODO: Maybe fade at the screen edges?
-        if (abs(screenSpaceRayPosition.x) > 1.0 || abs(screenSpaceRayPosition.y) > 1.0) {
-            break;
-        }
+            // Nahh... We don't want to touch anything outside of the screen
+            // TODO: Maybe fade at the screen edges?
+            if (abs(screenSpaceRayPosition.x) > 1.0 || abs(screenSpaceRayPosition.y) > 1.0) {
+                break;
+            }
 
-        float newSampledDepth = texture(texSceneOpaqueDepth, screenSpaceRayPosition.xy * 0.5 + 0.5).r * 2.0 - 1.0;
+            float newSampledDepth = texture(texSceneOpaqueDepth, screenSpaceRayPosition.xy * 0.5 + 0.5).r * 2.0 - 1.0;
 
-        if (newSampledDepth < screenSpaceRayPosition.z) {
-            float reflectionFadeFactor = transparentNormalColorValue.a;
+            if (newSampledDepth < screenSpaceRayPosition.z) {
+                float reflectionFadeFactor = transparentNormalColorValue.a;
 
-            // TODO: Make this an option
-            // Fades the reflection if the reflection vector is too steep
-            if (reflectionDirection.y > ANGLE_THRESHOLD) {
-                reflectionFadeFactor *= clamp(1.0 - (reflectionDirection.y - ANGLE_THRESHOLD) / ANGLE_FADE_INTERVAL, 0.0, 1.0);
-            }
+                // TODO: Make this an option
+                // Fades the reflection if the reflection vector is too steep
+                if (reflectionDirection.y > ANGLE_THRESHOLD) {
+                    reflectionFadeFactor *= clamp(1.0 - (reflectionDirection.y - ANGLE_THRESHOLD) / ANGLE_FADE_INTERVAL, 0.0, 1.0);
+                }
 
-            // Fade out at the edges
-            // TODO: Make this an option
-            float rayLength = length(screenSpaceRayPosition.xy);
-            if (rayLength > EDGE_THRESHOLD) {
-                reflectionFadeFactor *= clamp(1.0 - (rayLength - EDGE_THRESHOLD) / EDGE_FADE_INTERVAL, 0.0, 1.0);
-            }
+                // Fade out at the edges
+                // TODO: Make this an option
+                float rayLength = length(screenSpaceRayPosition.xy);
+                if (rayLength > EDGE_THRESHOLD) {
+                    reflectionFadeFactor *= clamp(1.0 - (rayLength - EDGE_THRESHOLD) / EDGE_FADE_INTERVAL, 0.0, 1.0);
+                }
 
-            // TODO: Find a better way to do this... Using the previous frame buffer caused too much lag though
-            vec4 tempColTransparent = texture(texSceneReflectiveRefractive, screenSpaceRayPosition.xy * 0.5 + 0.5).rgba;
-            vec3 tempColOpaque = texture(texSceneOpaque, screenSpaceRayPosition.xy * 0.5 + 0.5).rgb;
+                // TODO: Find a better way to do this... Using the previous frame buffer caused too much lag though
+                vec4 tempColTransparent = texture(texSceneReflectiveRefractive, screenSpaceRayPosition.xy * 0.5 + 0.5).rgba;
+                vec3 tempColOpaque = texture(texSceneOpaque, screenSpaceRayPosition.xy * 0.5 + 0.5).rgb;
 
-            float fade = clamp(1.0 - tempColTransparent.a, 0.0, 1.0);
-            vec3 reflectionColor = mix(tempColTransparent.rgb, tempColOpaque.rgb, fade);
-            colorTransparent.rgb = mix(colorTransparent.rgb, reflectionColor, reflectionFadeFactor);
-            break;
+                float fade = clamp(1.0 - tempColTransparent.a, 0.0, 1.0);
+                vec3 reflectionColor = mix(tempColTransparent.rgb, tempColOpaque.rgb, fade);
+                colorTransparent.rgb = mix(colorTransparent.rgb, reflectionColor, reflectionFadeFactor);
+                break;
+            }
         }
     }
-#endif
 
 #ifdef SSAO
     float ssao = texture(texSsao, v_uv0.xy).x;
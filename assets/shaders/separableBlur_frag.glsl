@@ -0,0 +1,29 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+in vec2 v_uv0;
+
+uniform sampler2D tex;
+
+// One texel along the blur axis, in texture coordinates.
+uniform vec2 direction;
+
+// Linearly sampled Gaussian taps as (offset in texels, weight), the first one being the center.
+// The size must match GaussianKernel.MAX_TAPS.
+#define MAX_TAPS 9
+uniform vec2 taps[MAX_TAPS];
+uniform int tapCount;
+
+layout(location = 0) out vec4 outColor;
+
+void main() {
+    vec4 result = texture(tex, v_uv0.xy) * taps[0].y;
+
+    for (int i = 1; i < tapCount; ++i) {
+        vec2 offset = direction * taps[i].x;
+        result += (texture(tex, v_uv0.xy + offset) + texture(tex, v_uv0.xy - offset)) * taps[i].y;
+    }
+
+    outColor = result;
+}
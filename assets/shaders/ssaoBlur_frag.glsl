@@ -3,20 +3,51 @@
 // SPDX-License-Identifier: Apache-2.0
 
 uniform sampler2D tex;
-uniform vec2 texelSize;
+
+// Set when tex is smaller than the output and has to be upsampled.
+uniform float upsample;
+uniform vec2 inputTexelSize;
+uniform sampler2D texDepth;
+
+// Relative difference in linear depth beyond which a low resolution sample is ignored.
+#define UPSAMPLE_DEPTH_TOLERANCE 0.05
+#define UPSAMPLE_MIN_WEIGHT 0.0001
 
 in vec2 v_uv0;
 
 layout(location = 0) out vec4 outColor;
 
-void main() {
+// Blurs the 4x4 low resolution texels around the fragment, weighting each of them by the similarity of its depth
+// to the depth of the fragment. Falls back to a plain box blur where no texel is similar enough, e.g. on thin edges.
+float bilateralUpsample() {
+    float centerDepth = linDepth(texture(texDepth, v_uv0.xy).x);
+    vec2 baseTexel = floor(v_uv0.xy / inputTexelSize - 0.5) - 1.0;
+
     float result = 0.0;
-    for (int i=-2; i<2; ++i) {
-        for (int j=-2; j<2; ++j) {
-            vec2 offset = vec2(texelSize.x * float(j), texelSize.y * float(i));
-            result += texture(tex, v_uv0.xy + offset).r;
+    float totalWeight = 0.0;
+    float boxResult = 0.0;
+    for (int i=0; i<4; ++i) {
+        for (int j=0; j<4; ++j) {
+            vec2 sampleUv = (baseTexel + vec2(float(j), float(i)) + 0.5) * inputTexelSize;
+            float occlusion = texture(tex, sampleUv).r;
+            float sampleDepth = linDepth(texture(texDepth, sampleUv).x);
+
+            float weight = max(0.0, 1.0 - abs(centerDepth - sampleDepth) / (UPSAMPLE_DEPTH_TOLERANCE * centerDepth));
+            result += occlusion * weight;
+            totalWeight += weight;
+            boxResult += occlusion;
         }
     }
 
-    outColor.rgba = vec4(result / 16.0);
+    return totalWeight > UPSAMPLE_MIN_WEIGHT ? result / totalWeight : boxResult / 16.0;
+}
+
+void main() {
+    if (upsample > 0.0) {
+        outColor.rgba = vec4(bilateralUpsample());
+        return;
+    }
+
+    // The occlusion has already been blurred at its own resolution by the AmbientOcclusionBlurNodes
+    outColor.rgba = vec4(texture(tex, v_uv0.xy).r);
 }
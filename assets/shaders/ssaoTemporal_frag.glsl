@@ -0,0 +1,46 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+in vec2 v_uv0;
+
+uniform sampler2D texSsao;
+uniform sampler2D texLinearDepth;
+// Red: accumulated occlusion, green: the linear depth it was computed at.
+uniform sampler2D texHistory;
+
+uniform mat4 projMatrix;
+// Maps the normalized device coordinates of the current frame to the clip space of the previous frame.
+uniform mat4 reprojectionMatrix;
+
+// Weight of the current frame, 1.0 discards the history.
+uniform float blendFactor;
+// Relative difference in linear depth beyond which the history is considered disoccluded.
+uniform float depthRejectionThreshold;
+
+layout(location = 0) out vec4 outColor;
+
+void main() {
+    float occlusion = texture(texSsao, v_uv0.xy).r;
+    float linearDepth = texture(texLinearDepth, v_uv0.xy).r;
+
+    // The inverse of the linearization done by the LinearDepthNode
+    float ndcDepth = projMatrix[3][2] / linearDepth - projMatrix[2][2];
+    vec4 previousPosition = reprojectionMatrix * vec4(v_uv0.xy * 2.0 - 1.0, ndcDepth, 1.0);
+    vec2 previousUv = previousPosition.xy / previousPosition.w * 0.5 + 0.5;
+
+    float weight = blendFactor;
+    if (any(lessThan(previousUv, vec2(0.0))) || any(greaterThan(previousUv, vec2(1.0)))) {
+        weight = 1.0;
+    } else {
+        vec2 history = texture(texHistory, previousUv).rg;
+        // For a perspective projection, w is the linear depth of the point in the previous frame.
+        float expectedDepth = previousPosition.w;
+        if (abs(history.g - expectedDepth) > depthRejectionThreshold * expectedDepth) {
+            weight = 1.0;
+        }
+        occlusion = mix(history.r, occlusion, weight);
+    }
+
+    outColor.rgba = vec4(occlusion, linearDepth, 0.0, 1.0);
+}
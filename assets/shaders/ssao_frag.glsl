@@ -13,30 +13,43 @@ uniform vec2 noiseTexelSize;
 
 uniform sampler2D texNormals;
 uniform sampler2D texNoise;
-uniform sampler2D texDepth;
+// Linear view depth, as produced by the LinearDepthNode. The sky is at skyLinearDepth.
+uniform sampler2D texLinearDepth;
+uniform float skyLinearDepth;
 
-uniform mat4 invProjMatrix;
 uniform mat4 projMatrix;
 
 uniform vec3 ssaoSamples[SSAO_KERNEL_ELEMENTS];
 
+// The kernel elements evaluated by this frame: sampleCount of them, sampleStride apart, starting at sampleOffset.
+// All of them when the occlusion isn't accumulated over several frames.
+uniform int sampleCount;
+uniform int sampleStride;
+uniform int sampleOffset;
+uniform vec2 noiseOffset;
+
 layout(location = 0) out vec4 outColor;
 
+// Returns the view-space position, at unit linear depth, of the point projecting onto the given coordinates.
+vec3 viewRay(vec2 uv) {
+    vec2 ndc = uv * 2.0 - 1.0;
+    return vec3((ndc + vec2(projMatrix[2][0], projMatrix[2][1])) / vec2(projMatrix[0][0], projMatrix[1][1]), -1.0);
+}
+
 void main() {
-    float currentDepth = texture(texDepth, v_uv0.xy).x * 2.0 - 1.0;
+    float currentDepth = texture(texLinearDepth, v_uv0.xy).r;
 
     // Exclude the sky...
-    if (epsilonEqualsOne(currentDepth)) {
+    if (currentDepth >= skyLinearDepth * 0.99) {
         outColor.rgba = vec4(1.0);
         return;
     }
 
     vec3 normal = texture(texNormals, v_uv0.xy).xyz * 2.0 - 1.0;
     vec2 noiseScale = noiseTexelSize / texelSize;
-    vec3 randomVec = texture(texNoise, v_uv0.xy * noiseScale).xyz * 2.0 - 1.0;
+    vec3 randomVec = texture(texNoise, (v_uv0.xy + noiseOffset) * noiseScale).xyz * 2.0 - 1.0;
 
-    // TODO: This is costly... See below
-    vec3 viewSpacePos = reconstructViewPos(currentDepth, v_uv0.xy, invProjMatrix);
+    vec3 viewSpacePos = viewRay(v_uv0.xy) * currentDepth;
 
     vec3 tangent = normalize(randomVec - normal * dot(randomVec, normal));
     vec3 bitangent = cross(normal, tangent);
@@ -50,16 +63,15 @@ void main() {
     float samplesTaken = 0.0;
     const float maxDepthDifference = 1;
 
-    for (int i=0; i<SSAO_KERNEL_ELEMENTS; ++i) {
-        samplePosition = (tbn * ssaoSamples[i]) * ssaoRadius + viewSpacePos;
+    for (int i=0; i<sampleCount; ++i) {
+        samplePosition = (tbn * ssaoSamples[sampleOffset + i * sampleStride]) * ssaoRadius + viewSpacePos;
 
         offset = vec4(samplePosition.x, samplePosition.y, samplePosition.z, 1.0);
         offset = projMatrix * offset;
         offset.xy /= offset.w;
         offset.xy = offset.xy * vec2(0.5) + vec2(0.5);
 
-        // TODO: Holy... frustum ray and linearized depth - please!
-        sampleDepth = reconstructViewPos(texture(texDepth, offset.xy).r * 2.0 - 1.0, v_uv0.xy, invProjMatrix).z;
+        sampleDepth = -texture(texLinearDepth, offset.xy).r;
         float depthDifference = abs(viewSpacePos.z - sampleDepth);
 
         float rangeCheck;
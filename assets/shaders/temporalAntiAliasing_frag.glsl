@@ -0,0 +1,57 @@
+#version 330 core
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+in vec2 v_uv0;
+
+uniform sampler2D texScene;
+uniform sampler2D texLinearDepth;
+uniform sampler2D texHistory;
+
+uniform mat4 projMatrix;
+// Maps the normalized device coordinates of the current frame to the clip space of the previous frame.
+uniform mat4 reprojectionMatrix;
+uniform vec2 texelSize;
+
+// Weight of the current frame, 1.0 discards the history.
+uniform float blendFactor;
+
+layout(location = 0) out vec4 outColor;
+
+float luminance(vec3 color) {
+    return dot(color, vec3(0.2126, 0.7152, 0.0722));
+}
+
+void main() {
+    vec3 current = texture(texScene, v_uv0.xy).rgb;
+
+    // The history is clamped to the range of the current 3x3 neighbourhood, rejecting the colors
+    // that can't be found around this pixel any longer
+    vec3 minColor = current;
+    vec3 maxColor = current;
+    for (int y = -1; y <= 1; y++) {
+        for (int x = -1; x <= 1; x++) {
+            vec3 neighbour = texture(texScene, v_uv0.xy + vec2(x, y) * texelSize).rgb;
+            minColor = min(minColor, neighbour);
+            maxColor = max(maxColor, neighbour);
+        }
+    }
+
+    // The inverse of the linearization done by the LinearDepthNode
+    float linearDepth = texture(texLinearDepth, v_uv0.xy).r;
+    float ndcDepth = projMatrix[3][2] / linearDepth - projMatrix[2][2];
+    vec4 previousPosition = reprojectionMatrix * vec4(v_uv0.xy * 2.0 - 1.0, ndcDepth, 1.0);
+    vec2 previousUv = previousPosition.xy / previousPosition.w * 0.5 + 0.5;
+
+    vec3 result = current;
+    if (all(greaterThanEqual(previousUv, vec2(0.0))) && all(lessThanEqual(previousUv, vec2(1.0)))) {
+        vec3 history = clamp(texture(texHistory, previousUv).rgb, minColor, maxColor);
+
+        // Weighting by the inverse luminance keeps single bright HDR samples from flickering
+        float currentWeight = blendFactor / (1.0 + luminance(current));
+        float historyWeight = (1.0 - blendFactor) / (1.0 + luminance(history));
+        result = (current * currentWeight + history * historyWeight) / (currentWeight + historyWeight);
+    }
+
+    outColor.rgba = vec4(result, 1.0);
+}
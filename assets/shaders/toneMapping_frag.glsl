@@ -10,6 +10,10 @@ in vec2 v_uv0;
 
 uniform sampler2D texScene;
 uniform float exposure = 1;
+
+// When set, exposure is a bias applied to the adapted exposure found in the red channel of texExposure.
+uniform sampler2D texExposure;
+uniform float exposureFromTexture = 0.0;
 uniform float whitePoint = W;
 
 layout(location = 0) out vec4 outColor;
@@ -17,19 +21,21 @@ layout(location = 0) out vec4 outColor;
 void main(){
     vec4 color = srgbToLinear(texture(texScene, v_uv0.xy));
 
+    float sceneExposure = exposureFromTexture > 0.5 ? exposure * texelFetch(texExposure, ivec2(0, 0), 0).r : exposure;
+
 #ifdef REINHARD_TONEMAP
-    float t = tonemapReinhard(2.5, exposure);
+    float t = tonemapReinhard(2.5, sceneExposure);
     color *= t;
 #endif
 
 #ifdef UNCHARTED_2_TONEMAP
     //HDR tone mapping using Uncharted 2 method
     // http://frictionalgames.blogspot.com/2012/09/tech-feature-hdr-lightning.html
-    color.rgb = uncharted2Tonemap(color.rgb * exposure) / uncharted2Tonemap(vec3(whitePoint));
+    color.rgb = uncharted2Tonemap(color.rgb * sceneExposure) / uncharted2Tonemap(vec3(whitePoint));
 #endif
 
 #ifdef BURGESS_TONEMAP
-    color.rgb *= exposure;
+    color.rgb *= sceneExposure;
     vec3 x = max(vec3(0.0),color.rgb-vec3(0.004));
     vec3 finalColor = (x*(6.2*x+.5))/(x*(6.2*x+1.7)+0.06);
     color.rgb = finalColor;
@@ -2,25 +2,34 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.corerendering.rendering;
 
+import org.terasology.corerendering.rendering.dag.nodes.AmbientOcclusionBlurNode;
 import org.terasology.corerendering.rendering.dag.nodes.AmbientOcclusionNode;
-import org.terasology.corerendering.rendering.dag.nodes.BloomBlurNode;
+import org.terasology.corerendering.rendering.dag.nodes.BloomDownSamplerNode;
+import org.terasology.corerendering.rendering.dag.nodes.BloomUpSamplerNode;
 import org.terasology.corerendering.rendering.dag.nodes.BlurredAmbientOcclusionNode;
 import org.terasology.corerendering.rendering.dag.nodes.BufferClearingNode;
+import org.terasology.corerendering.rendering.dag.nodes.CameraJitterNode;
 import org.terasology.corerendering.rendering.dag.nodes.HazeNode;
-import org.terasology.corerendering.rendering.dag.nodes.HighPassNode;
 import org.terasology.corerendering.rendering.dag.nodes.LightShaftsNode;
 import org.terasology.corerendering.rendering.dag.nodes.ShadowMapNode;
+import org.terasology.corerendering.rendering.dag.nodes.TemporalAmbientOcclusionNode;
+import org.terasology.corerendering.rendering.utils.TransientFboPool;
 import org.terasology.engine.context.Context;
 import org.terasology.engine.rendering.cameras.Camera;
 import org.terasology.engine.rendering.dag.ModuleRendering;
 import org.terasology.engine.rendering.dag.Node;
 import org.terasology.engine.rendering.opengl.FBO;
 import org.terasology.engine.rendering.opengl.FboConfig;
+import org.terasology.engine.rendering.opengl.ScalingFactors;
 import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
 import org.terasology.engine.rendering.opengl.fbms.ImmutableFbo;
 import org.terasology.engine.rendering.opengl.fbms.ShadowMapResolutionDependentFbo;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.lwjgl.opengl.GL11.GL_DEPTH_BUFFER_BIT;
+import static org.terasology.engine.rendering.opengl.ScalingFactors.FULL_SCALE;
 import static org.terasology.engine.rendering.opengl.ScalingFactors.HALF_SCALE;
 import static org.terasology.engine.rendering.opengl.ScalingFactors.ONE_16TH_SCALE;
 import static org.terasology.engine.rendering.opengl.ScalingFactors.ONE_32TH_SCALE;
@@ -33,6 +42,7 @@ public class AdvancedRenderingModule extends ModuleRendering {
     private DisplayResolutionDependentFbo displayResolutionDependentFbo;
     private ShadowMapResolutionDependentFbo shadowMapResolutionDependentFbo;
     private ImmutableFbo immutableFbo;
+    private TransientFboPool transientFboPool;
 
     private ShadowMapNode shadowMapNode;
 
@@ -56,7 +66,9 @@ public class AdvancedRenderingModule extends ModuleRendering {
         context.put(ShadowMapResolutionDependentFbo.class, shadowMapResolutionDependentFbo);
 
         displayResolutionDependentFbo = context.get(DisplayResolutionDependentFbo.class);
+        transientFboPool = context.get(TransientFboPool.class);
 
+        // The haze FBOs are not transient: the HazeNodes keep their output across frames while the view is steady.
         addHaze();
 
         addShadowMap();
@@ -137,21 +149,90 @@ public class AdvancedRenderingModule extends ModuleRendering {
         Node alphaRejectBlocksNode = renderGraph.findAka("alphaRejectBlocks");
         Node applyDeferredLightingNode = renderGraph.findAka("applyDeferredLighting");
 
+        // The level of the depth pyramid matching the resolution the occlusion is computed at
+        ScalingFactors ssaoScale = context.get(CoreRenderingConfig.class).getSsaoScale();
+        Node linearDepthNode;
+        switch (ssaoScale) {
+            case HALF_SCALE:
+                linearDepthNode = renderGraph.findNode("CoreRendering:halfScaleDepthPyramidNode");
+                break;
+            case QUARTER_SCALE:
+                linearDepthNode = renderGraph.findNode("CoreRendering:quarterScaleDepthPyramidNode");
+                break;
+            case ONE_8TH_SCALE:
+                linearDepthNode = renderGraph.findNode("CoreRendering:one8thScaleDepthPyramidNode");
+                break;
+            default:
+                linearDepthNode = renderGraph.findNode("CoreRendering:linearDepthNode");
+                break;
+        }
+
         Node ambientOcclusionNode = new AmbientOcclusionNode("ambientOcclusionNode", providingModule, context);
         renderGraph.connectBufferPair(applyDeferredLightingNode, 1, ambientOcclusionNode, 1);
+        renderGraph.connectFbo(linearDepthNode, 1, ambientOcclusionNode, 1);
         renderGraph.connectRunOrder(opaqueObjectsNode, 3, ambientOcclusionNode, 1);
         renderGraph.connectRunOrder(opaqueBlocksNode, 3, ambientOcclusionNode, 2);
         renderGraph.connectRunOrder(alphaRejectBlocksNode, 4, ambientOcclusionNode, 3);
         renderGraph.addNode(ambientOcclusionNode);
 
-        Node blurredAmbientOcclusionNode = new BlurredAmbientOcclusionNode("blurredAmbientOcclusionNode",
-            providingModule, context);
-        renderGraph.connectBufferPair(ambientOcclusionNode, 1, blurredAmbientOcclusionNode, 1);
-        renderGraph.connectFbo(ambientOcclusionNode, 1, blurredAmbientOcclusionNode, 1);
-        renderGraph.addNode(blurredAmbientOcclusionNode);
+        Node sharpAmbientOcclusionNode = ambientOcclusionNode;
+        Node temporalAmbientOcclusionNode = null;
+        if (context.get(CoreRenderingConfig.class).isTemporalSsao()) {
+            // With temporal anti-aliasing, the history is reprojected with the matrices of the unjittered camera
+            CameraJitterNode cameraJitterNode = null;
+            if (context.get(CoreRenderingConfig.class).isTemporalAntiAliasing()) {
+                cameraJitterNode = (CameraJitterNode) renderGraph.findNode("CoreRendering:cameraJitterNode");
+            }
+
+            temporalAmbientOcclusionNode = new TemporalAmbientOcclusionNode("temporalAmbientOcclusionNode",
+                providingModule, context, cameraJitterNode);
+            renderGraph.connectBufferPair(ambientOcclusionNode, 1, temporalAmbientOcclusionNode, 1);
+            renderGraph.connectFbo(ambientOcclusionNode, 1, temporalAmbientOcclusionNode, 1);
+            renderGraph.connectFbo(linearDepthNode, 1, temporalAmbientOcclusionNode, 2);
+            renderGraph.addNode(temporalAmbientOcclusionNode);
+            sharpAmbientOcclusionNode = temporalAmbientOcclusionNode;
+        }
+
+        // Separable depth-aware blur, at the resolution the occlusion is computed at
+        Node horizontalAmbientOcclusionBlurNode = new AmbientOcclusionBlurNode("horizontalAmbientOcclusionBlurNode",
+            providingModule, context, AmbientOcclusionBlurNode.HORIZONTALLY_BLURRED_FBO_URI, true);
+        renderGraph.connectFbo(sharpAmbientOcclusionNode, 1, horizontalAmbientOcclusionBlurNode, 1);
+        renderGraph.connectFbo(linearDepthNode, 1, horizontalAmbientOcclusionBlurNode, 2);
+        renderGraph.addNode(horizontalAmbientOcclusionBlurNode);
+
+        Node verticalAmbientOcclusionBlurNode = new AmbientOcclusionBlurNode("verticalAmbientOcclusionBlurNode",
+            providingModule, context, AmbientOcclusionBlurNode.BILATERALLY_BLURRED_FBO_URI, false);
+        renderGraph.connectFbo(horizontalAmbientOcclusionBlurNode, 1, verticalAmbientOcclusionBlurNode, 1);
+        renderGraph.connectFbo(linearDepthNode, 1, verticalAmbientOcclusionBlurNode, 2);
+        renderGraph.addNode(verticalAmbientOcclusionBlurNode);
+
+        Node blurredAmbientOcclusionNode = verticalAmbientOcclusionBlurNode;
+        if (ssaoScale != FULL_SCALE) {
+            // Only needed to bring the occlusion back to full resolution
+            blurredAmbientOcclusionNode = new BlurredAmbientOcclusionNode("blurredAmbientOcclusionNode",
+                providingModule, context);
+            renderGraph.connectBufferPair(sharpAmbientOcclusionNode, 1, blurredAmbientOcclusionNode, 1);
+            renderGraph.connectFbo(verticalAmbientOcclusionBlurNode, 1, blurredAmbientOcclusionNode, 1);
+            renderGraph.addNode(blurredAmbientOcclusionNode);
+        }
 
         Node prePostCompositeNode = renderGraph.findAka("prePostComposite");
         renderGraph.connectFbo(blurredAmbientOcclusionNode, 1, prePostCompositeNode, 1);
+
+        // The raw occlusion is read by the temporal filter if there is one, by the blur otherwise
+        transientFboPool.request(AmbientOcclusionNode.SSAO_FBO_URI, ssaoScale, FBO.Type.DEFAULT, ambientOcclusionNode,
+            temporalAmbientOcclusionNode != null ? temporalAmbientOcclusionNode : horizontalAmbientOcclusionBlurNode);
+        transientFboPool.request(AmbientOcclusionBlurNode.HORIZONTALLY_BLURRED_FBO_URI, ssaoScale, FBO.Type.DEFAULT,
+            horizontalAmbientOcclusionBlurNode, verticalAmbientOcclusionBlurNode);
+        if (blurredAmbientOcclusionNode != verticalAmbientOcclusionBlurNode) {
+            transientFboPool.request(AmbientOcclusionBlurNode.BILATERALLY_BLURRED_FBO_URI, ssaoScale, FBO.Type.DEFAULT,
+                verticalAmbientOcclusionBlurNode, blurredAmbientOcclusionNode);
+            transientFboPool.request(BlurredAmbientOcclusionNode.SSAO_BLURRED_FBO_URI, FULL_SCALE, FBO.Type.DEFAULT,
+                blurredAmbientOcclusionNode, prePostCompositeNode);
+        } else {
+            transientFboPool.request(AmbientOcclusionBlurNode.BILATERALLY_BLURRED_FBO_URI, ssaoScale, FBO.Type.DEFAULT,
+                verticalAmbientOcclusionBlurNode, prePostCompositeNode);
+        }
     }
 
     private void addLightShafts() {
@@ -164,47 +245,95 @@ public class AdvancedRenderingModule extends ModuleRendering {
 
         Node initialPostProcessing = renderGraph.findNode("CoreRendering:initialPostProcessingNode");
         renderGraph.connectFbo(lightShaftsNode, 1, initialPostProcessing, 1);
+
+        if (context.get(CoreRenderingConfig.class).isFusedPostProcessing()) {
+            Node fusedPostProcessing = renderGraph.findNode("CoreRendering:fusedPostProcessingNode");
+            renderGraph.connectFbo(lightShaftsNode, 1, fusedPostProcessing, 1);
+            transientFboPool.request(LightShaftsNode.LIGHT_SHAFTS_FBO_URI, HALF_SCALE, FBO.Type.DEFAULT,
+                lightShaftsNode, initialPostProcessing, fusedPostProcessing);
+        } else {
+            transientFboPool.request(LightShaftsNode.LIGHT_SHAFTS_FBO_URI, HALF_SCALE, FBO.Type.DEFAULT,
+                lightShaftsNode, initialPostProcessing);
+        }
     }
 
     private void addBloomNodes() {
-        // Bloom Effect: one high-pass filter and three blur passes
-        Node simpleBlendMaterialsNode = renderGraph.findNode("CoreRendering:simpleBlendMaterialsNode");
-
-        Node highPassNode = new HighPassNode("highPassNode", providingModule, context);
-        renderGraph.connectBufferPair(simpleBlendMaterialsNode, 1, highPassNode, 1);
-        renderGraph.addNode(highPassNode);
-
-        FboConfig halfScaleBloomConfig = new FboConfig(BloomBlurNode.HALF_SCALE_FBO_URI, HALF_SCALE, FBO.Type.DEFAULT);
-        FBO halfScaleBloomFbo = displayResolutionDependentFbo.request(halfScaleBloomConfig);
-
-        // TODO once everything is new system based, update halfscaleblurrednode's input obtaining
-        BloomBlurNode halfScaleBlurredBloomNode = new BloomBlurNode("halfScaleBlurredBloomNode", providingModule,
-            context, halfScaleBloomFbo);
-        // halfScaleBlurredBloomNode.addInputFboConnection(1, displayResolutionDependentFbo.get(HighPassNode
-        // .HIGH_PASS_FBO_URI));
-        renderGraph.connectFbo(highPassNode, 1, halfScaleBlurredBloomNode, 1);
-        renderGraph.addNode(halfScaleBlurredBloomNode);
+        // Bloom Effect: a dual-filter chain, thresholding and downsampling the scene level after level
+        // from half scale, then upsampling it back to half scale while averaging in each downsampled level.
+        ScalingFactors[] bloomScales = {HALF_SCALE, QUARTER_SCALE, ONE_8TH_SCALE, ONE_16TH_SCALE, ONE_32TH_SCALE};
+        int bloomLevels = context.get(CoreRenderingConfig.class).getBloomLevels();
 
-        FboConfig quarterScaleBloomConfig = new FboConfig(BloomBlurNode.QUARTER_SCALE_FBO_URI, QUARTER_SCALE,
-            FBO.Type.DEFAULT);
-        FBO quarterScaleBloomFbo = displayResolutionDependentFbo.request(quarterScaleBloomConfig);
-
-        BloomBlurNode quarterScaleBlurredBloomNode = new BloomBlurNode("quarterScaleBlurredBloomNode",
-            providingModule, context, quarterScaleBloomFbo);
-        renderGraph.connectFbo(halfScaleBlurredBloomNode, 1, quarterScaleBlurredBloomNode, 1);
-        renderGraph.addNode(quarterScaleBlurredBloomNode);
-
-        FboConfig one8thScaleBloomConfig = new FboConfig(BloomBlurNode.ONE_8TH_SCALE_FBO_URI, ONE_8TH_SCALE,
-            FBO.Type.DEFAULT);
-        FBO one8thScaleBloomFbo = displayResolutionDependentFbo.request(one8thScaleBloomConfig);
+        Node simpleBlendMaterialsNode = renderGraph.findNode("CoreRendering:simpleBlendMaterialsNode");
 
-        BloomBlurNode one8thScaleBlurredBloomNode = new BloomBlurNode("one8thScaleBlurredBloomNode", providingModule,
-            context, one8thScaleBloomFbo);
-        renderGraph.connectFbo(quarterScaleBlurredBloomNode, 1, one8thScaleBlurredBloomNode, 1);
-        renderGraph.addNode(one8thScaleBlurredBloomNode);
+        Node[] downSamplerNodes = new Node[bloomLevels];
+        for (int level = 0; level < bloomLevels; level++) {
+            downSamplerNodes[level] = new BloomDownSamplerNode("bloomDownSamplerNode" + level, providingModule,
+                context, BloomDownSamplerNode.getFboUri(level), level == 0);
+            if (level == 0) {
+                renderGraph.connectBufferPair(simpleBlendMaterialsNode, 1, downSamplerNodes[level], 1);
+            } else {
+                renderGraph.connectFbo(downSamplerNodes[level - 1], 1, downSamplerNodes[level], 1);
+            }
+            renderGraph.addNode(downSamplerNodes[level]);
+        }
+
+        Node[] upSamplerNodes = new Node[bloomLevels];
+        Node bloomNode = downSamplerNodes[bloomLevels - 1];
+        for (int level = bloomLevels - 2; level >= 0; level--) {
+            upSamplerNodes[level] = new BloomUpSamplerNode("bloomUpSamplerNode" + level, providingModule, context,
+                BloomUpSamplerNode.getFboUri(level), bloomLevels - level);
+            renderGraph.connectFbo(bloomNode, 1, upSamplerNodes[level], 1);
+            renderGraph.connectFbo(downSamplerNodes[level], 1, upSamplerNodes[level], 2);
+            renderGraph.addNode(upSamplerNodes[level]);
+
+            bloomNode = upSamplerNodes[level];
+        }
 
         Node initialPostProcessing = renderGraph.findNode("CoreRendering:initialPostProcessingNode");
-        renderGraph.connectFbo(one8thScaleBlurredBloomNode, 1, initialPostProcessing, 2);
+        renderGraph.connectFbo(bloomNode, 1, initialPostProcessing, 2);
+
+        Node fusedPostProcessing = null;
+        if (context.get(CoreRenderingConfig.class).isFusedPostProcessing()) {
+            fusedPostProcessing = renderGraph.findNode("CoreRendering:fusedPostProcessingNode");
+            renderGraph.connectFbo(bloomNode, 1, fusedPostProcessing, 2);
+        }
+
+        for (int level = 0; level < bloomLevels; level++) {
+            // Each downsampled level is read by the next one, by the upsampler of the same scale, and the last one
+            // by the upsampler of the previous scale. Each upsampled level is read by the upsampler of the next scale.
+            List<Node> downSampledUsers = new ArrayList<>();
+            downSampledUsers.add(downSamplerNodes[level]);
+            if (level + 1 < bloomLevels) {
+                downSampledUsers.add(downSamplerNodes[level + 1]);
+                downSampledUsers.add(upSamplerNodes[level]);
+            } else if (level > 0) {
+                downSampledUsers.add(upSamplerNodes[level - 1]);
+            }
+            if (downSamplerNodes[level] == bloomNode) {
+                addBloomReaders(downSampledUsers, initialPostProcessing, fusedPostProcessing);
+            }
+            transientFboPool.request(BloomDownSamplerNode.getFboUri(level), bloomScales[level], FBO.Type.DEFAULT,
+                downSampledUsers.toArray(new Node[0]));
+
+            if (upSamplerNodes[level] != null) {
+                List<Node> upSampledUsers = new ArrayList<>();
+                upSampledUsers.add(upSamplerNodes[level]);
+                if (level > 0) {
+                    upSampledUsers.add(upSamplerNodes[level - 1]);
+                } else {
+                    addBloomReaders(upSampledUsers, initialPostProcessing, fusedPostProcessing);
+                }
+                transientFboPool.request(BloomUpSamplerNode.getFboUri(level), bloomScales[level], FBO.Type.DEFAULT,
+                    upSampledUsers.toArray(new Node[0]));
+            }
+        }
+    }
+
+    private static void addBloomReaders(List<Node> users, Node initialPostProcessing, Node fusedPostProcessing) {
+        users.add(initialPostProcessing);
+        if (fusedPostProcessing != null) {
+            users.add(fusedPostProcessing);
+        }
     }
 
     public Camera getLightCamera() {
@@ -0,0 +1,363 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering;
+
+import org.terasology.engine.rendering.opengl.ScalingFactors;
+import org.terasology.engine.utilities.subscribables.AbstractSubscribable;
+
+/**
+ * Rendering settings owned by the CoreRendering module, complementing the engine-side RenderingConfig.
+ *
+ * An instance of this class is created by the CoreRenderingModule and put in the context, so that nodes
+ * can read it and subscribe to its properties in the same way they do with the RenderingConfig.
+ */
+public class CoreRenderingConfig extends AbstractSubscribable {
+    public static final String WATER_REFLECTION_MODE = "waterReflectionMode";
+    public static final String REFRACTIVE_REFLECTIVE_SCALE = "refractiveReflectiveScale";
+    public static final String SSAO_SCALE = "ssaoScale";
+    public static final String TEMPORAL_SSAO = "temporalSsao";
+    public static final String SSAO_QUALITY = "ssaoQuality";
+    public static final String AUTOMATIC_SSAO_QUALITY = "automaticSsaoQuality";
+    public static final String BLOOM_LEVELS = "bloomLevels";
+    public static final String GPU_EYE_ADAPTATION = "gpuEyeAdaptation";
+    public static final String EXPOSURE_METERING = "exposureMetering";
+    public static final String FUSED_POST_PROCESSING = "fusedPostProcessing";
+    public static final String TRANSIENT_FBO_ALIASING = "transientFboAliasing";
+    public static final String DYNAMIC_RESOLUTION = "dynamicResolution";
+    public static final String TEMPORAL_ANTI_ALIASING = "temporalAntiAliasing";
+    public static final String STATIC_LATE_BLUR_REUSE = "staticLateBlurReuse";
+
+    public static final int MAX_BLOOM_LEVELS = 5;
+
+    /**
+     * Describes how reflections on water are produced when the RenderingConfig's reflective water setting is enabled.
+     */
+    public enum WaterReflectionMode {
+        /**
+         * The landscape is rendered a second time, mirrored, into a half-scale buffer. Most accurate, most expensive.
+         */
+        PLANAR,
+        /**
+         * Reflections are ray-marched in screen space over the lit gBuffer. The reflected sky is used wherever
+         * the rays leave the screen, so the second render of the landscape can be skipped entirely.
+         */
+        SCREEN_SPACE
+    }
+
+    /**
+     * Quality tiers of the screen-space ambient occlusion, from the cheapest to the most expensive.
+     */
+    public enum SsaoQuality {
+        LOW(8, 1.0f, ScalingFactors.QUARTER_SCALE, 2),
+        MEDIUM(16, 1.25f, ScalingFactors.HALF_SCALE, 4),
+        HIGH(32, 1.5f, ScalingFactors.FULL_SCALE, 4);
+
+        private final int kernelSize;
+        private final float radius;
+        private final ScalingFactors scale;
+        private final int blurRadius;
+
+        SsaoQuality(int kernelSize, float radius, ScalingFactors scale, int blurRadius) {
+            this.kernelSize = kernelSize;
+            this.radius = radius;
+            this.scale = scale;
+            this.blurRadius = blurRadius;
+        }
+
+        /**
+         * Returns the number of samples per pixel, at most AmbientOcclusionNode.SSAO_KERNEL_ELEMENTS.
+         */
+        public int getKernelSize() {
+            return kernelSize;
+        }
+
+        /**
+         * Returns the radius of the sample kernel, in world units.
+         */
+        public float getRadius() {
+            return radius;
+        }
+
+        public ScalingFactors getScale() {
+            return scale;
+        }
+
+        /**
+         * Returns the radius of the separable blur applied to the occlusion, in texels.
+         */
+        public int getBlurRadius() {
+            return blurRadius;
+        }
+
+        public SsaoQuality lower() {
+            return this == HIGH ? MEDIUM : LOW;
+        }
+
+        public SsaoQuality higher() {
+            return this == LOW ? MEDIUM : HIGH;
+        }
+    }
+
+    /**
+     * Describes how the brightness of the scene is measured for eye adaptation.
+     */
+    public enum ExposureMetering {
+        /**
+         * The scene is downsampled to a single pixel, in several passes, and its color averaged.
+         */
+        AVERAGE,
+        /**
+         * A histogram of the log luminance of the HDR scene is built in a single pass, and averaged between two
+         * percentiles, so that small very bright or very dark areas are ignored. Always computed on the GPU.
+         */
+        HISTOGRAM
+    }
+
+    private WaterReflectionMode waterReflectionMode = WaterReflectionMode.PLANAR;
+    private ScalingFactors refractiveReflectiveScale = ScalingFactors.FULL_SCALE;
+    private ScalingFactors ssaoScale = ScalingFactors.FULL_SCALE;
+    private boolean temporalSsao;
+    private SsaoQuality ssaoQuality = SsaoQuality.HIGH;
+    private boolean automaticSsaoQuality;
+    private int bloomLevels = 4;
+    private boolean gpuEyeAdaptation;
+    private ExposureMetering exposureMetering = ExposureMetering.AVERAGE;
+    private boolean fusedPostProcessing;
+    private boolean transientFboAliasing;
+    private boolean dynamicResolution;
+    private boolean temporalAntiAliasing;
+    private boolean staticLateBlurReuse;
+
+    public WaterReflectionMode getWaterReflectionMode() {
+        return waterReflectionMode;
+    }
+
+    public void setWaterReflectionMode(WaterReflectionMode waterReflectionMode) {
+        WaterReflectionMode oldValue = this.waterReflectionMode;
+        this.waterReflectionMode = waterReflectionMode;
+        propertyChangeSupport.firePropertyChange(WATER_REFLECTION_MODE, oldValue, waterReflectionMode);
+    }
+
+    /**
+     * Returns the scale, relative to the display resolution, at which refractive and reflective blocks (i.e. water)
+     * are rendered. Below full scale, the result is upsampled with a depth-aware filter when composited, and the
+     * upsampled water depth is written back into the gBuffer depth for the nodes that follow. Nodes reading the gBuffer
+     * depth before the composite, i.e. the OutlineNode and the linear depth used by SSAO and temporal anti-aliasing,
+     * only see the opaque scene, as they already do at full scale.
+     *
+     * This is read when the render graph is built: changes take effect the next time the graph is initialised.
+     */
+    public ScalingFactors getRefractiveReflectiveScale() {
+        return refractiveReflectiveScale;
+    }
+
+    public void setRefractiveReflectiveScale(ScalingFactors refractiveReflectiveScale) {
+        ScalingFactors oldValue = this.refractiveReflectiveScale;
+        this.refractiveReflectiveScale = refractiveReflectiveScale;
+        propertyChangeSupport.firePropertyChange(REFRACTIVE_REFLECTIVE_SCALE, oldValue, refractiveReflectiveScale);
+    }
+
+    /**
+     * Returns the scale, relative to the display resolution, at which screen-space ambient occlusion is computed.
+     * Below full scale, the blur pass doubles as a depth-aware upsample back to full resolution.
+     *
+     * Half and quarter scale are the sensible choices. This is read when the render graph is built.
+     */
+    public ScalingFactors getSsaoScale() {
+        return ssaoScale;
+    }
+
+    public void setSsaoScale(ScalingFactors ssaoScale) {
+        ScalingFactors oldValue = this.ssaoScale;
+        this.ssaoScale = ssaoScale;
+        propertyChangeSupport.firePropertyChange(SSAO_SCALE, oldValue, ssaoScale);
+    }
+
+    /**
+     * Returns true if screen-space ambient occlusion only evaluates part of its sample kernel each frame,
+     * accumulating the results over several frames. This is read when the render graph is built.
+     */
+    public boolean isTemporalSsao() {
+        return temporalSsao;
+    }
+
+    public void setTemporalSsao(boolean temporalSsao) {
+        boolean oldValue = this.temporalSsao;
+        this.temporalSsao = temporalSsao;
+        propertyChangeSupport.firePropertyChange(TEMPORAL_SSAO, oldValue, temporalSsao);
+    }
+
+    /**
+     * Returns the quality tier of the screen-space ambient occlusion. Its kernel size, radius and blur radius are
+     * applied immediately, while its resolution scale only becomes the SSAO scale when the tier is set.
+     */
+    public SsaoQuality getSsaoQuality() {
+        return ssaoQuality;
+    }
+
+    /**
+     * Sets the quality tier of the screen-space ambient occlusion, along with its resolution scale.
+     * As with setSsaoScale(), the latter takes effect the next time the render graph is built.
+     */
+    public void setSsaoQuality(SsaoQuality ssaoQuality) {
+        SsaoQuality oldValue = this.ssaoQuality;
+        this.ssaoQuality = ssaoQuality;
+        propertyChangeSupport.firePropertyChange(SSAO_QUALITY, oldValue, ssaoQuality);
+        setSsaoScale(ssaoQuality.getScale());
+    }
+
+    /**
+     * Returns true if the AmbientOcclusionNode may step the kernel size and radius of the SSAO quality tier up and
+     * down by itself, depending on the GPU time it measures against its budget. The configured tier, and with it
+     * the SSAO scale and blur radius, is left unchanged.
+     *
+     * The automatic tier never changes the resolution SSAO is computed at: that would require rebuilding the render
+     * graph. Only setSsaoQuality() or setSsaoScale() followed by a rebuild of the graph do.
+     */
+    public boolean isAutomaticSsaoQuality() {
+        return automaticSsaoQuality;
+    }
+
+    public void setAutomaticSsaoQuality(boolean automaticSsaoQuality) {
+        boolean oldValue = this.automaticSsaoQuality;
+        this.automaticSsaoQuality = automaticSsaoQuality;
+        propertyChangeSupport.firePropertyChange(AUTOMATIC_SSAO_QUALITY, oldValue, automaticSsaoQuality);
+    }
+
+    /**
+     * Returns the number of levels of the bloom mip chain, the first one being at half scale and each following one
+     * at half the size of the previous. More levels give a wider bloom at a small additional cost.
+     *
+     * This is read when the render graph is built: changes take effect the next time the graph is initialised.
+     */
+    public int getBloomLevels() {
+        return bloomLevels;
+    }
+
+    /**
+     * Sets the number of levels of the bloom mip chain, clamped between 1 and MAX_BLOOM_LEVELS.
+     */
+    public void setBloomLevels(int bloomLevels) {
+        int oldValue = this.bloomLevels;
+        this.bloomLevels = Math.max(1, Math.min(bloomLevels, MAX_BLOOM_LEVELS));
+        propertyChangeSupport.firePropertyChange(BLOOM_LEVELS, oldValue, this.bloomLevels);
+    }
+
+    /**
+     * Returns true if eye adaptation is computed entirely on the GPU, the exposure being kept in a 1x1 texture
+     * sampled by the tone mapping, rather than read back to the CPU every frame. This is always the case with
+     * histogram metering.
+     *
+     * This is read when the render graph is built: changes take effect the next time the graph is initialised.
+     */
+    public boolean isGpuEyeAdaptation() {
+        return gpuEyeAdaptation || exposureMetering == ExposureMetering.HISTOGRAM;
+    }
+
+    public void setGpuEyeAdaptation(boolean gpuEyeAdaptation) {
+        boolean oldValue = this.gpuEyeAdaptation;
+        this.gpuEyeAdaptation = gpuEyeAdaptation;
+        propertyChangeSupport.firePropertyChange(GPU_EYE_ADAPTATION, oldValue, gpuEyeAdaptation);
+    }
+
+    /**
+     * Returns how the brightness of the scene is measured for eye adaptation.
+     * This is read when the render graph is built.
+     */
+    public ExposureMetering getExposureMetering() {
+        return exposureMetering;
+    }
+
+    public void setExposureMetering(ExposureMetering exposureMetering) {
+        ExposureMetering oldValue = this.exposureMetering;
+        this.exposureMetering = exposureMetering;
+        propertyChangeSupport.firePropertyChange(EXPOSURE_METERING, oldValue, exposureMetering);
+    }
+
+    /**
+     * Returns true if the initial post-processing, the tone mapping and the final post-processing are performed in
+     * a single pass whenever neither blur nor motion blur are enabled. The separate passes are still used otherwise,
+     * and always with temporal anti-aliasing, which takes place between the initial post-processing and the tone mapping.
+     *
+     * This is read when the render graph is built: changes take effect the next time the graph is initialised.
+     */
+    public boolean isFusedPostProcessing() {
+        return fusedPostProcessing && !temporalAntiAliasing;
+    }
+
+    public void setFusedPostProcessing(boolean fusedPostProcessing) {
+        boolean oldValue = this.fusedPostProcessing;
+        this.fusedPostProcessing = fusedPostProcessing;
+        propertyChangeSupport.firePropertyChange(FUSED_POST_PROCESSING, oldValue, fusedPostProcessing);
+    }
+
+    /**
+     * Returns true if the FBOs only used during part of the frame, i.e. by the SSAO and its blurs, the light shafts,
+     * the bloom, the exposure downsampling and the late blur, share their storage whenever their size and type match
+     * and the nodes using them don't overlap in the run order of the render graph.
+     *
+     * This is read when the render graph is built: changes take effect the next time the graph is initialised.
+     */
+    public boolean isTransientFboAliasing() {
+        return transientFboAliasing;
+    }
+
+    public void setTransientFboAliasing(boolean transientFboAliasing) {
+        boolean oldValue = this.transientFboAliasing;
+        this.transientFboAliasing = transientFboAliasing;
+        propertyChangeSupport.firePropertyChange(TRANSIENT_FBO_ALIASING, oldValue, transientFboAliasing);
+    }
+
+    /**
+     * Returns true if the FBO scale of the RenderingConfig is lowered and raised automatically, so that the GPU time
+     * of the frame stays close to the target of the DynamicResolutionNode. The scale set by the user is restored as
+     * soon as this is turned off.
+     *
+     * Each change of scale regenerates the display resolution dependent FBOs, resetting the histories of temporal
+     * anti-aliasing, temporal SSAO and the static late blur reuse: changes are therefore limited to a few large steps,
+     * at most one every few seconds.
+     *
+     * This is read when the render graph is built: changes take effect the next time the graph is initialised.
+     */
+    public boolean isDynamicResolution() {
+        return dynamicResolution;
+    }
+
+    public void setDynamicResolution(boolean dynamicResolution) {
+        boolean oldValue = this.dynamicResolution;
+        this.dynamicResolution = dynamicResolution;
+        propertyChangeSupport.firePropertyChange(DYNAMIC_RESOLUTION, oldValue, dynamicResolution);
+    }
+
+    /**
+     * Returns true if the camera is jittered by a sub-pixel offset each frame and the HDR scene accumulated over
+     * several frames before tone mapping, smoothing the edges of the geometry.
+     *
+     * This is read when the render graph is built: changes take effect the next time the graph is initialised.
+     */
+    public boolean isTemporalAntiAliasing() {
+        return temporalAntiAliasing;
+    }
+
+    public void setTemporalAntiAliasing(boolean temporalAntiAliasing) {
+        boolean oldValue = this.temporalAntiAliasing;
+        this.temporalAntiAliasing = temporalAntiAliasing;
+        propertyChangeSupport.firePropertyChange(TEMPORAL_ANTI_ALIASING, oldValue, temporalAntiAliasing);
+    }
+
+    /**
+     * Returns true if the late blur nodes keep the blurred scene of a previous frame, rather than blurring the scene
+     * again, for as long as the camera stays still.
+     *
+     * This is read when the render graph is built: changes take effect the next time the graph is initialised.
+     */
+    public boolean isStaticLateBlurReuse() {
+        return staticLateBlurReuse;
+    }
+
+    public void setStaticLateBlurReuse(boolean staticLateBlurReuse) {
+        boolean oldValue = this.staticLateBlurReuse;
+        this.staticLateBlurReuse = staticLateBlurReuse;
+        propertyChangeSupport.firePropertyChange(STATIC_LATE_BLUR_REUSE, oldValue, staticLateBlurReuse);
+    }
+}
@@ -5,14 +5,25 @@ package org.terasology.corerendering.rendering;
 import org.terasology.corerendering.rendering.dag.nodes.AlphaRejectBlocksNode;
 import org.terasology.corerendering.rendering.dag.nodes.ApplyDeferredLightingNode;
 import org.terasology.corerendering.rendering.dag.nodes.BackdropNode;
+import org.terasology.corerendering.rendering.dag.nodes.AdaptExposureNode;
 import org.terasology.corerendering.rendering.dag.nodes.BackdropReflectionNode;
 import org.terasology.corerendering.rendering.dag.nodes.BufferClearingNode;
+import org.terasology.corerendering.rendering.dag.nodes.CameraJitterNode;
 import org.terasology.corerendering.rendering.dag.nodes.DeferredMainLightNode;
 import org.terasology.corerendering.rendering.dag.nodes.DeferredPointLightsNode;
+import org.terasology.corerendering.rendering.dag.nodes.DepthDownSamplerNode;
+import org.terasology.corerendering.rendering.dag.nodes.DepthPyramidNode;
 import org.terasology.corerendering.rendering.dag.nodes.DownSamplerForExposureNode;
+import org.terasology.corerendering.rendering.dag.nodes.DynamicResolutionNode;
 import org.terasology.corerendering.rendering.dag.nodes.FinalPostProcessingNode;
+import org.terasology.corerendering.rendering.dag.nodes.FrameCaptureNode;
+import org.terasology.corerendering.rendering.dag.nodes.FusedPostProcessingNode;
+import org.terasology.corerendering.rendering.dag.nodes.GpuReadbackNode;
+import org.terasology.corerendering.rendering.dag.nodes.HistogramMeteringNode;
 import org.terasology.corerendering.rendering.dag.nodes.InitialPostProcessingNode;
 import org.terasology.corerendering.rendering.dag.nodes.LateBlurNode;
+import org.terasology.corerendering.rendering.dag.nodes.LinearDepthNode;
+import org.terasology.corerendering.rendering.dag.nodes.LuminanceHistogramNode;
 import org.terasology.corerendering.rendering.dag.nodes.OpaqueBlocksNode;
 import org.terasology.corerendering.rendering.dag.nodes.OpaqueObjectsNode;
 import org.terasology.corerendering.rendering.dag.nodes.OutlineNode;
@@ -22,9 +33,14 @@ import org.terasology.corerendering.rendering.dag.nodes.PrePostCompositeNode;
 import org.terasology.corerendering.rendering.dag.nodes.RefractiveReflectiveBlocksNode;
 import org.terasology.corerendering.rendering.dag.nodes.ShadowMapNode;
 import org.terasology.corerendering.rendering.dag.nodes.SimpleBlendMaterialsNode;
+import org.terasology.corerendering.rendering.dag.nodes.TemporalAntiAliasingNode;
 import org.terasology.corerendering.rendering.dag.nodes.ToneMappingNode;
+import org.terasology.corerendering.rendering.dag.nodes.UpdateCameraEnvironmentNode;
 import org.terasology.corerendering.rendering.dag.nodes.UpdateExposureNode;
 import org.terasology.corerendering.rendering.dag.nodes.WorldReflectionNode;
+import org.terasology.corerendering.rendering.utils.CameraEnvironmentSnapshot;
+import org.terasology.corerendering.rendering.utils.GpuReadbackService;
+import org.terasology.corerendering.rendering.utils.TransientFboPool;
 import org.terasology.engine.context.Context;
 import org.terasology.engine.core.subsystem.DisplayDevice;
 import org.terasology.engine.rendering.cameras.Camera;
@@ -36,6 +52,7 @@ import org.terasology.engine.rendering.dag.dependencyConnections.BufferPair;
 import org.terasology.engine.rendering.dag.ModuleRendering;
 import org.terasology.engine.rendering.opengl.FBO;
 import org.terasology.engine.rendering.opengl.FboConfig;
+import org.terasology.engine.rendering.opengl.ScalingFactors;
 import org.terasology.engine.rendering.opengl.SwappableFBO;
 import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
 import org.terasology.engine.rendering.opengl.fbms.ImmutableFbo;
@@ -44,15 +61,17 @@ import org.terasology.engine.rendering.opengl.fbms.ShadowMapResolutionDependentF
 import static org.lwjgl.opengl.GL11.GL_COLOR_BUFFER_BIT;
 import static org.lwjgl.opengl.GL11.GL_DEPTH_BUFFER_BIT;
 import static org.lwjgl.opengl.GL11.GL_STENCIL_BUFFER_BIT;
-import static org.terasology.corerendering.rendering.dag.nodes.DownSamplerForExposureNode.FBO_16X16_CONFIG;
-import static org.terasology.corerendering.rendering.dag.nodes.DownSamplerForExposureNode.FBO_1X1_CONFIG;
-import static org.terasology.corerendering.rendering.dag.nodes.DownSamplerForExposureNode.FBO_2X2_CONFIG;
-import static org.terasology.corerendering.rendering.dag.nodes.DownSamplerForExposureNode.FBO_4X4_CONFIG;
-import static org.terasology.corerendering.rendering.dag.nodes.DownSamplerForExposureNode.FBO_8X8_CONFIG;
+import static org.terasology.corerendering.rendering.dag.nodes.DownSamplerForExposureNode.FBO_16X16_URI;
+import static org.terasology.corerendering.rendering.dag.nodes.DownSamplerForExposureNode.FBO_1X1_URI;
+import static org.terasology.corerendering.rendering.dag.nodes.DownSamplerForExposureNode.FBO_2X2_URI;
+import static org.terasology.corerendering.rendering.dag.nodes.DownSamplerForExposureNode.FBO_4X4_URI;
+import static org.terasology.corerendering.rendering.dag.nodes.DownSamplerForExposureNode.FBO_8X8_URI;
 import static org.terasology.corerendering.rendering.dag.nodes.LateBlurNode.FIRST_LATE_BLUR_FBO_URI;
 import static org.terasology.corerendering.rendering.dag.nodes.LateBlurNode.SECOND_LATE_BLUR_FBO_URI;
 import static org.terasology.engine.rendering.opengl.ScalingFactors.FULL_SCALE;
 import static org.terasology.engine.rendering.opengl.ScalingFactors.HALF_SCALE;
+import static org.terasology.engine.rendering.opengl.ScalingFactors.ONE_8TH_SCALE;
+import static org.terasology.engine.rendering.opengl.ScalingFactors.QUARTER_SCALE;
 
 public class CoreRenderingModule extends ModuleRendering {
 
@@ -61,6 +80,7 @@ public class CoreRenderingModule extends ModuleRendering {
     private DisplayResolutionDependentFbo displayResolutionDependentFbo;
     private ShadowMapResolutionDependentFbo shadowMapResolutionDependentFbo;
     private ImmutableFbo immutableFbo;
+    private TransientFboPool transientFboPool;
 
     private ShadowMapNode shadowMapNode;
     private DisplayDevice displayDevice;
@@ -79,6 +99,11 @@ public class CoreRenderingModule extends ModuleRendering {
     }
 
     private void initCoreRendering() {
+        if (context.get(CoreRenderingConfig.class) == null) {
+            context.put(CoreRenderingConfig.class, new CoreRenderingConfig());
+        }
+        context.put(CameraEnvironmentSnapshot.class, new CameraEnvironmentSnapshot());
+
         immutableFbo = new ImmutableFbo();
         context.put(ImmutableFbo.class, immutableFbo);
 
@@ -88,14 +113,24 @@ public class CoreRenderingModule extends ModuleRendering {
         displayResolutionDependentFbo = context.get(DisplayResolutionDependentFbo.class);
         displayDevice = context.get(DisplayDevice.class);
 
+        transientFboPool = new TransientFboPool(renderGraph, displayResolutionDependentFbo, immutableFbo,
+                context.get(CoreRenderingConfig.class).isTransientFboAliasing());
+        context.put(TransientFboPool.class, transientFboPool);
+
+        context.put(GpuReadbackService.class, new GpuReadbackService());
+
         addGBufferClearingNodes(renderGraph);
 
+        addCameraEnvironmentNodes(renderGraph);
+
         addSkyNodes(renderGraph);
 
         addWorldRenderingNodes(renderGraph);
 
         addLightingNodes(renderGraph);
 
+        addLinearDepthNodes(renderGraph);
+
         add3dDecorationNodes(renderGraph);
 
         addReflectionAndRefractionNodes(renderGraph);
@@ -111,6 +146,10 @@ public class CoreRenderingModule extends ModuleRendering {
         addFinalPostProcessingNodes(renderGraph);
 
         addOutputNodes(renderGraph);
+
+        if (context.get(CoreRenderingConfig.class).isDynamicResolution()) {
+            addDynamicResolutionNodes(renderGraph);
+        }
     }
 
     private void addGBufferClearingNodes(RenderGraph renderGraph) {
@@ -140,6 +179,31 @@ public class CoreRenderingModule extends ModuleRendering {
         renderGraph.addNode(staleGBufferClearingNode);
     }
 
+    private void addCameraEnvironmentNodes(RenderGraph renderGraph) {
+        Node lastUpdatedGBufferClearingNode = renderGraph.findNode("CoreRendering:lastUpdatedGBufferClearingNode");
+        Node staleGBufferClearingNode = renderGraph.findNode("CoreRendering:staleGBufferClearingNode");
+
+        // Refreshes the CameraEnvironmentSnapshot before any other node gets to read it.
+        Node updateCameraEnvironmentNode = new UpdateCameraEnvironmentNode("updateCameraEnvironmentNode", providingModule, context);
+        renderGraph.addNode(updateCameraEnvironmentNode);
+        renderGraph.connectRunOrder(updateCameraEnvironmentNode, 1, lastUpdatedGBufferClearingNode, 1);
+        renderGraph.connectRunOrder(updateCameraEnvironmentNode, 2, staleGBufferClearingNode, 1);
+
+        // Delivers the readbacks completed since the previous frame before anything is rendered
+        Node gpuReadbackNode = new GpuReadbackNode("gpuReadbackNode", providingModule, context);
+        renderGraph.addNode(gpuReadbackNode);
+        renderGraph.connectRunOrder(gpuReadbackNode, 1, updateCameraEnvironmentNode, 2);
+
+        if (context.get(CoreRenderingConfig.class).isTemporalAntiAliasing()) {
+            // Jitters the camera before anything is rendered with it
+            Node cameraJitterNode = new CameraJitterNode("cameraJitterNode", providingModule, context);
+            renderGraph.addNode(cameraJitterNode);
+            renderGraph.connectRunOrder(updateCameraEnvironmentNode, 3, cameraJitterNode, 1);
+            renderGraph.connectRunOrder(cameraJitterNode, 1, lastUpdatedGBufferClearingNode, 2);
+            renderGraph.connectRunOrder(cameraJitterNode, 2, staleGBufferClearingNode, 2);
+        }
+    }
+
     private void addSkyNodes(RenderGraph renderGraph) {
         Node lastUpdatedGBufferClearingNode = renderGraph.findNode("CoreRendering:lastUpdatedGBufferClearingNode");
         // TODO maybe read from both clearing nodes and output bufferpair then, created along the way,
@@ -211,6 +275,41 @@ public class CoreRenderingModule extends ModuleRendering {
         renderGraph.connectRunOrder(deferredPointLightsNode, 2, applyDeferredLightingNode, 1);
     }
 
+    private void addLinearDepthNodes(RenderGraph renderGraph) {
+        // Linear depth of the opaque scene and its min/max pyramid, shared by the screen-space effects
+        Node applyDeferredLightingNode = renderGraph.findNode("CoreRendering:applyDeferredLightingNode");
+
+        Node linearDepthNode = new LinearDepthNode("linearDepthNode", providingModule, context);
+        renderGraph.connectBufferPair(applyDeferredLightingNode, 1, linearDepthNode, 1);
+        renderGraph.addNode(linearDepthNode);
+
+        FboConfig halfScaleDepthPyramidConfig = new FboConfig(DepthPyramidNode.HALF_SCALE_FBO_URI, HALF_SCALE, FBO.Type.HDR);
+        FBO halfScaleDepthPyramidFbo = displayResolutionDependentFbo.request(halfScaleDepthPyramidConfig);
+
+        Node halfScaleDepthPyramidNode = new DepthPyramidNode("halfScaleDepthPyramidNode", providingModule, context,
+                halfScaleDepthPyramidFbo);
+        renderGraph.connectFbo(linearDepthNode, 1, halfScaleDepthPyramidNode, 1);
+        renderGraph.addNode(halfScaleDepthPyramidNode);
+
+        FboConfig quarterScaleDepthPyramidConfig = new FboConfig(DepthPyramidNode.QUARTER_SCALE_FBO_URI, QUARTER_SCALE,
+                FBO.Type.HDR);
+        FBO quarterScaleDepthPyramidFbo = displayResolutionDependentFbo.request(quarterScaleDepthPyramidConfig);
+
+        Node quarterScaleDepthPyramidNode = new DepthPyramidNode("quarterScaleDepthPyramidNode", providingModule, context,
+                quarterScaleDepthPyramidFbo);
+        renderGraph.connectFbo(halfScaleDepthPyramidNode, 1, quarterScaleDepthPyramidNode, 1);
+        renderGraph.addNode(quarterScaleDepthPyramidNode);
+
+        FboConfig one8thScaleDepthPyramidConfig = new FboConfig(DepthPyramidNode.ONE_8TH_SCALE_FBO_URI, ONE_8TH_SCALE,
+                FBO.Type.HDR);
+        FBO one8thScaleDepthPyramidFbo = displayResolutionDependentFbo.request(one8thScaleDepthPyramidConfig);
+
+        Node one8thScaleDepthPyramidNode = new DepthPyramidNode("one8thScaleDepthPyramidNode", providingModule, context,
+                one8thScaleDepthPyramidFbo);
+        renderGraph.connectFbo(quarterScaleDepthPyramidNode, 1, one8thScaleDepthPyramidNode, 1);
+        renderGraph.addNode(one8thScaleDepthPyramidNode);
+    }
+
     private void add3dDecorationNodes(RenderGraph renderGraph) {
         Node applyDeferredLightingNode = renderGraph.findNode("CoreRendering:applyDeferredLightingNode");
 
@@ -237,18 +336,33 @@ public class CoreRenderingModule extends ModuleRendering {
         renderGraph.connectFbo(reflectedBackdropNode, 1, worldReflectionNode, 1);
         renderGraph.addNode(worldReflectionNode);
 
-        FboConfig reflectedRefractedBufferConfig = new FboConfig(
-                RefractiveReflectiveBlocksNode.REFRACTIVE_REFLECTIVE_FBO_URI, FULL_SCALE, FBO.Type.HDR).useNormalBuffer();
+        ScalingFactors refractiveReflectiveScale = context.get(CoreRenderingConfig.class).getRefractiveReflectiveScale();
+        FboConfig reflectedRefractedBufferConfig = new FboConfig(RefractiveReflectiveBlocksNode.REFRACTIVE_REFLECTIVE_FBO_URI,
+                refractiveReflectiveScale, FBO.Type.HDR).useNormalBuffer();
+        if (refractiveReflectiveScale != FULL_SCALE) {
+            // Can't share the depth buffer of the gBuffer, see RefractiveReflectiveBlocksNode.
+            reflectedRefractedBufferConfig.useDepthBuffer();
+        }
         BufferClearingNode reflectedRefractedBufferClearingNode = new BufferClearingNode(
                 "reflectedRefractedBufferClearingNode", providingModule,
                 context, reflectedRefractedBufferConfig, displayResolutionDependentFbo,
                 GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
         renderGraph.addNode(reflectedRefractedBufferClearingNode);
 
+        Node refractiveReflectiveInputNode = reflectedRefractedBufferClearingNode;
+        if (refractiveReflectiveScale != FULL_SCALE) {
+            Node refractiveReflectiveDepthNode = new DepthDownSamplerNode(
+                    "refractiveReflectiveDepthNode", providingModule, context);
+            renderGraph.connectBufferPair(applyDeferredLightingNode, 1, refractiveReflectiveDepthNode, 1);
+            renderGraph.connectFbo(reflectedRefractedBufferClearingNode, 1, refractiveReflectiveDepthNode, 1);
+            renderGraph.addNode(refractiveReflectiveDepthNode);
+            refractiveReflectiveInputNode = refractiveReflectiveDepthNode;
+        }
+
         Node chunksRefractiveReflectiveNode = new RefractiveReflectiveBlocksNode(
                 "chunksRefractiveReflectiveNode", providingModule, context);
         renderGraph.connectBufferPair(applyDeferredLightingNode, 1, chunksRefractiveReflectiveNode, 1);
-        renderGraph.connectFbo(reflectedRefractedBufferClearingNode, 1, chunksRefractiveReflectiveNode, 1);
+        renderGraph.connectFbo(refractiveReflectiveInputNode, 1, chunksRefractiveReflectiveNode, 1);
         renderGraph.connectFbo(worldReflectionNode, 1, chunksRefractiveReflectiveNode, 2);
         renderGraph.addNode(chunksRefractiveReflectiveNode);
 
@@ -298,36 +412,41 @@ public class CoreRenderingModule extends ModuleRendering {
     private void addExposureNodes(RenderGraph renderGraph) {
             SimpleBlendMaterialsNode simpleBlendMaterialsNode =
                     (SimpleBlendMaterialsNode) renderGraph.findNode("CoreRendering:simpleBlendMaterialsNode");
+        if (context.get(CoreRenderingConfig.class).getExposureMetering() == CoreRenderingConfig.ExposureMetering.HISTOGRAM) {
+            addHistogramExposureNodes(renderGraph, simpleBlendMaterialsNode);
+            return;
+        }
+
         // TODO: Remove the hard coded value here
         // FboConfig gBuffer2Config = displayResolutionDependentFbo.getFboConfig(new SimpleUri("CoreRendering:fbo.gBuffer2"));
         DownSamplerForExposureNode exposureDownSamplerTo16pixels =
                 new DownSamplerForExposureNode("exposureDownSamplerTo16pixels", providingModule,
-                context, displayResolutionDependentFbo, FBO_16X16_CONFIG, immutableFbo);
+                context, displayResolutionDependentFbo, FBO_16X16_URI, immutableFbo);
         renderGraph.connectFbo(simpleBlendMaterialsNode, 1, exposureDownSamplerTo16pixels, 1);
         renderGraph.addNode(exposureDownSamplerTo16pixels);
 
         DownSamplerForExposureNode exposureDownSamplerTo8pixels =
                 new DownSamplerForExposureNode("exposureDownSamplerTo8pixels", providingModule, context,
-                immutableFbo, FBO_8X8_CONFIG, immutableFbo);
+                immutableFbo, FBO_8X8_URI, immutableFbo);
         renderGraph.connectFbo(exposureDownSamplerTo16pixels, 1, exposureDownSamplerTo8pixels, 1);
         renderGraph.addNode(exposureDownSamplerTo8pixels);
 
 
         DownSamplerForExposureNode exposureDownSamplerTo4pixels =
                 new DownSamplerForExposureNode("exposureDownSamplerTo4pixels", providingModule, context,
-                immutableFbo, FBO_4X4_CONFIG, immutableFbo);
+                immutableFbo, FBO_4X4_URI, immutableFbo);
         renderGraph.connectFbo(exposureDownSamplerTo8pixels, 1, exposureDownSamplerTo4pixels, 1);
         renderGraph.addNode(exposureDownSamplerTo4pixels);
 
         DownSamplerForExposureNode exposureDownSamplerTo2pixels =
                 new DownSamplerForExposureNode("exposureDownSamplerTo2pixels", providingModule, context,
-                immutableFbo, FBO_2X2_CONFIG, immutableFbo);
+                immutableFbo, FBO_2X2_URI, immutableFbo);
         renderGraph.connectFbo(exposureDownSamplerTo4pixels, 1, exposureDownSamplerTo2pixels, 1);
         renderGraph.addNode(exposureDownSamplerTo2pixels);
 
         DownSamplerForExposureNode exposureDownSamplerTo1pixel =
                 new DownSamplerForExposureNode("exposureDownSamplerTo1pixel", providingModule, context,
-                immutableFbo, FBO_1X1_CONFIG, immutableFbo);
+                immutableFbo, FBO_1X1_URI, immutableFbo);
         renderGraph.connectFbo(exposureDownSamplerTo2pixels, 1, exposureDownSamplerTo1pixel, 1);
         renderGraph.addNode(exposureDownSamplerTo1pixel);
 
@@ -335,11 +454,57 @@ public class CoreRenderingModule extends ModuleRendering {
         renderGraph.connectFbo(exposureDownSamplerTo1pixel, 1, updateExposureNode, 1);
         renderGraph.addNode(updateExposureNode);
 
+        Node adaptExposureNode = null;
+        if (context.get(CoreRenderingConfig.class).isGpuEyeAdaptation()) {
+            adaptExposureNode = new AdaptExposureNode("adaptExposureNode", providingModule, context);
+            renderGraph.connectFbo(exposureDownSamplerTo1pixel, 1, adaptExposureNode, 1);
+            renderGraph.addNode(adaptExposureNode);
+        }
+
+        // Each level is only read by the next one: having different sizes, they can't share storage with each other,
+        // but they are released with their nodes like the other transient FBOs.
+        transientFboPool.request(FBO_16X16_URI, 16, 16, FBO.Type.DEFAULT,
+                exposureDownSamplerTo16pixels, exposureDownSamplerTo8pixels);
+        transientFboPool.request(FBO_8X8_URI, 8, 8, FBO.Type.DEFAULT,
+                exposureDownSamplerTo8pixels, exposureDownSamplerTo4pixels);
+        transientFboPool.request(FBO_4X4_URI, 4, 4, FBO.Type.DEFAULT,
+                exposureDownSamplerTo4pixels, exposureDownSamplerTo2pixels);
+        transientFboPool.request(FBO_2X2_URI, 2, 2, FBO.Type.DEFAULT,
+                exposureDownSamplerTo2pixels, exposureDownSamplerTo1pixel);
+        if (adaptExposureNode != null) {
+            transientFboPool.request(FBO_1X1_URI, 1, 1, FBO.Type.DEFAULT,
+                    exposureDownSamplerTo1pixel, updateExposureNode, adaptExposureNode);
+        } else {
+            transientFboPool.request(FBO_1X1_URI, 1, 1, FBO.Type.DEFAULT,
+                    exposureDownSamplerTo1pixel, updateExposureNode);
+        }
+
         // renderGraph.connect(simpleBlendMaterialsNode, exposureDownSamplerTo16pixels, exposureDownSamplerTo8pixels,
         //        exposureDownSamplerTo4pixels, exposureDownSamplerTo2pixels, exposureDownSamplerTo1pixel,
         //        updateExposureNode);
     }
 
+    private void addHistogramExposureNodes(RenderGraph renderGraph, Node simpleBlendMaterialsNode) {
+        // A single histogram pass over the HDR scene replaces the downsampling chain
+        LuminanceHistogramNode luminanceHistogramNode =
+                new LuminanceHistogramNode("luminanceHistogramNode", providingModule, context);
+        renderGraph.connectFbo(simpleBlendMaterialsNode, 1, luminanceHistogramNode, 1);
+        renderGraph.addNode(luminanceHistogramNode);
+
+        Node histogramMeteringNode = new HistogramMeteringNode("histogramMeteringNode", providingModule, context,
+                luminanceHistogramNode);
+        renderGraph.connectFbo(luminanceHistogramNode, 1, histogramMeteringNode, 1);
+        renderGraph.addNode(histogramMeteringNode);
+
+        // Still in charge of the default exposure, when eye adaptation is disabled
+        Node updateExposureNode = new UpdateExposureNode("updateExposureNode", providingModule, context);
+        renderGraph.addNode(updateExposureNode);
+
+        Node adaptExposureNode = new AdaptExposureNode("adaptExposureNode", providingModule, context);
+        renderGraph.connectFbo(histogramMeteringNode, 1, adaptExposureNode, 1);
+        renderGraph.addNode(adaptExposureNode);
+    }
+
     private void addInitialPostProcessingNodes(RenderGraph renderGraph) {
         Node simpleBlendMaterialsNode = renderGraph.findNode("CoreRendering:simpleBlendMaterialsNode");
         Node one8thScaleBlurredBloomNode = renderGraph.findNode("CoreRendering:one8thScaleBlurredBloomNode");
@@ -356,23 +521,37 @@ public class CoreRenderingModule extends ModuleRendering {
         Node initialPostProcessingNode = renderGraph.findNode("CoreRendering:initialPostProcessingNode");
         Node updateExposureNode = renderGraph.findNode("CoreRendering:updateExposureNode");
 
+        Node hdrSceneNode = initialPostProcessingNode;
+        if (context.get(CoreRenderingConfig.class).isTemporalAntiAliasing()) {
+            Node linearDepthNode = renderGraph.findNode("CoreRendering:linearDepthNode");
+
+            CameraJitterNode cameraJitterNode = (CameraJitterNode) renderGraph.findNode("CoreRendering:cameraJitterNode");
+
+            Node temporalAntiAliasingNode = new TemporalAntiAliasingNode("temporalAntiAliasingNode", providingModule,
+                    context, cameraJitterNode);
+            renderGraph.connectFbo(initialPostProcessingNode, 1, temporalAntiAliasingNode, 1);
+            renderGraph.connectFbo(linearDepthNode, 1, temporalAntiAliasingNode, 2);
+            renderGraph.addNode(temporalAntiAliasingNode);
+            hdrSceneNode = temporalAntiAliasingNode;
+        }
+
         ToneMappingNode toneMappingNode = new ToneMappingNode("toneMappingNode", providingModule, context);
-        renderGraph.connectFbo(initialPostProcessingNode, 1, toneMappingNode, 1);
+        renderGraph.connectFbo(hdrSceneNode, 1, toneMappingNode, 1);
+        if (context.get(CoreRenderingConfig.class).isGpuEyeAdaptation()) {
+            Node adaptExposureNode = renderGraph.findNode("CoreRendering:adaptExposureNode");
+            renderGraph.connectFbo(adaptExposureNode, 1, toneMappingNode, 2);
+        }
         renderGraph.addNode(toneMappingNode);
         renderGraph.connectRunOrder(updateExposureNode, 1, toneMappingNode, 1);
 
         // Late Blur nodes: assisting Motion Blur and Depth-of-Field effects
-        FboConfig firstLateBlurConfig = new FboConfig(FIRST_LATE_BLUR_FBO_URI, HALF_SCALE, FBO.Type.DEFAULT);
-        FBO firstLateBlurFbo = displayResolutionDependentFbo.request(firstLateBlurConfig);
-
-        LateBlurNode firstLateBlurNode = new LateBlurNode("firstLateBlurNode", providingModule, context, firstLateBlurFbo);
+        LateBlurNode firstLateBlurNode = new LateBlurNode("firstLateBlurNode", providingModule, context,
+                FIRST_LATE_BLUR_FBO_URI);
         renderGraph.connectFbo(toneMappingNode, 1, firstLateBlurNode, 1);
         renderGraph.addNode(firstLateBlurNode);
 
-        FboConfig secondLateBlurConfig = new FboConfig(SECOND_LATE_BLUR_FBO_URI, HALF_SCALE, FBO.Type.DEFAULT);
-        FBO secondLateBlurFbo = displayResolutionDependentFbo.request(secondLateBlurConfig);
-
-        LateBlurNode secondLateBlurNode = new LateBlurNode("secondLateBlurNode", providingModule, context, secondLateBlurFbo);
+        LateBlurNode secondLateBlurNode = new LateBlurNode("secondLateBlurNode", providingModule, context,
+                SECOND_LATE_BLUR_FBO_URI, firstLateBlurNode);
         renderGraph.connectFbo(firstLateBlurNode, 1, secondLateBlurNode, 1);
         renderGraph.addNode(secondLateBlurNode);
 
@@ -383,6 +562,31 @@ public class CoreRenderingModule extends ModuleRendering {
         renderGraph.connectFbo(secondLateBlurNode, 1, finalPostProcessingNode, 2);
         renderGraph.addNode(finalPostProcessingNode);
 
+        transientFboPool.request(FIRST_LATE_BLUR_FBO_URI, HALF_SCALE, FBO.Type.DEFAULT,
+                firstLateBlurNode, secondLateBlurNode);
+        if (context.get(CoreRenderingConfig.class).isStaticLateBlurReuse()) {
+            // Its content is kept from frame to frame while the camera is still: it can't be aliased
+            transientFboPool.requestPersistent(SECOND_LATE_BLUR_FBO_URI, HALF_SCALE, FBO.Type.DEFAULT);
+        } else {
+            transientFboPool.request(SECOND_LATE_BLUR_FBO_URI, HALF_SCALE, FBO.Type.DEFAULT,
+                    secondLateBlurNode, finalPostProcessingNode);
+        }
+
+        if (context.get(CoreRenderingConfig.class).isFusedPostProcessing()) {
+            // Replaces the three nodes above with a single pass, whenever no blurred intermediate is needed
+            Node simpleBlendMaterialsNode = renderGraph.findNode("CoreRendering:simpleBlendMaterialsNode");
+
+            Node fusedPostProcessingNode = new FusedPostProcessingNode("fusedPostProcessingNode", providingModule,
+                    context, toneMappingNode, initialPostProcessingNode, toneMappingNode, finalPostProcessingNode);
+            renderGraph.connectBufferPair(simpleBlendMaterialsNode, 1, fusedPostProcessingNode, 1);
+            if (context.get(CoreRenderingConfig.class).isGpuEyeAdaptation()) {
+                Node adaptExposureNode = renderGraph.findNode("CoreRendering:adaptExposureNode");
+                renderGraph.connectFbo(adaptExposureNode, 1, fusedPostProcessingNode, 3);
+            }
+            renderGraph.addNode(fusedPostProcessingNode);
+            renderGraph.connectRunOrder(updateExposureNode, 2, fusedPostProcessingNode, 1);
+        }
+
         // renderGraph.connect(toneMappingNode, firstLateBlurNode, secondLateBlurNode);
     }
 
@@ -397,10 +601,40 @@ public class CoreRenderingModule extends ModuleRendering {
         renderGraph.connectBufferPair(finalPostProcessingNode, 1, outputToScreenNode, 1);
         renderGraph.connectFbo(finalPostProcessingNode, 1, outputToScreenNode, 1);
         renderGraph.addNode(outputToScreenNode);
+
+        if (context.get(CoreRenderingConfig.class).isFusedPostProcessing()) {
+            // Writes into the same FBO as the finalPostProcessingNode, when enabled
+            Node fusedPostProcessingNode = renderGraph.findNode("CoreRendering:fusedPostProcessingNode");
+            renderGraph.connectRunOrder(fusedPostProcessingNode, 1, outputToScreenNode, 1);
+        }
+
+        // Saves the final buffer to files on request, without waiting for the GPU
+        Node frameCaptureNode = new FrameCaptureNode("frameCaptureNode", providingModule, context);
+        renderGraph.connectFbo(finalPostProcessingNode, 1, frameCaptureNode, 1);
+        renderGraph.addNode(frameCaptureNode);
+        if (context.get(CoreRenderingConfig.class).isFusedPostProcessing()) {
+            Node fusedPostProcessingNode = renderGraph.findNode("CoreRendering:fusedPostProcessingNode");
+            renderGraph.connectRunOrder(fusedPostProcessingNode, 2, frameCaptureNode, 1);
+        }
         // renderGraph.connect(finalPostProcessingNode, outputToScreenNode);
         // renderGraph.connectFbo(finalPostProcessingNode, tintNode, outputToScreenNode);
     }
 
+    private void addDynamicResolutionNodes(RenderGraph renderGraph) {
+        Node updateCameraEnvironmentNode = renderGraph.findNode("CoreRendering:updateCameraEnvironmentNode");
+        Node outputToScreenNode = renderGraph.findNode("CoreRendering:outputToScreenNode");
+
+        // Measures the GPU time between the first node of the frame and the output to the screen
+        DynamicResolutionNode frameStartNode = new DynamicResolutionNode("dynamicResolutionStartNode", providingModule,
+                context, null);
+        renderGraph.addNode(frameStartNode);
+        renderGraph.connectRunOrder(frameStartNode, 1, updateCameraEnvironmentNode, 1);
+
+        Node dynamicResolutionNode = new DynamicResolutionNode("dynamicResolutionNode", providingModule, context,
+                frameStartNode);
+        renderGraph.addNode(dynamicResolutionNode);
+        renderGraph.connectRunOrder(outputToScreenNode, 1, dynamicResolutionNode, 1);
+    }
 
     public Camera getLightCamera() {
         // TODO Hack around our shadow node in adv. module. This ain't gonna work without adv.module
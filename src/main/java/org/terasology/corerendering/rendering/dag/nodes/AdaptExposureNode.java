@@ -0,0 +1,126 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.terasology.corerendering.rendering.utils.FboBlitHelper;
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.assets.material.Material;
+import org.terasology.engine.rendering.assets.mesh.Mesh;
+import org.terasology.engine.rendering.dag.ConditionDependentNode;
+import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
+import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.FboConfig;
+import org.terasology.engine.rendering.opengl.fbms.ImmutableFbo;
+import org.terasology.engine.utilities.Assets;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.naming.Name;
+import org.terasology.nui.properties.Range;
+
+import java.beans.PropertyChangeEvent;
+
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
+
+/**
+ * The GPU-resident counterpart of the UpdateExposureNode, used when CoreRenderingConfig.isGpuEyeAdaptation() is set.
+ *
+ * Given the 1x1 downsampled scene as input FBO 1, an instance of this node computes its relative luminance, the
+ * exposure it calls for and the exposure smoothed over time, all in a single 1-pixel shader pass. The result is
+ * stored in the red channel of ADAPTED_EXPOSURE_FBO_URI, sampled directly by the ToneMappingNode: nothing is read
+ * back to the CPU. At the end of each frame it is copied into the history FBO, to be read during the next one.
+ */
+public class AdaptExposureNode extends ConditionDependentNode {
+    public static final FboConfig ADAPTED_EXPOSURE_FBO_CONFIG =
+            new FboConfig(new SimpleUri("engine:fbo.adaptedExposure"), 1, 1, FBO.Type.HDR);
+    public static final FboConfig EXPOSURE_HISTORY_FBO_CONFIG =
+            new FboConfig(new SimpleUri("engine:fbo.exposureHistory"), 1, 1, FBO.Type.HDR);
+    private static final ResourceUrn ADAPT_EXPOSURE_MATERIAL_URN = new ResourceUrn("CoreRendering:adaptExposure");
+
+    // The defaults below match the ones of the UpdateExposureNode.
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.0f, max = 10.0f)
+    private float hdrMaxExposure = 8.0f;
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.0f, max = 10.0f)
+    private float hdrMinExposure = 1.0f;
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.0f, max = 4.0f)
+    private float hdrTargetLuminance = 1.0f;
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.0f, max = 0.5f)
+    private float hdrExposureAdjustmentSpeed = 0.05f;
+
+    private Material adaptExposureMaterial;
+    private Mesh renderQuad;
+
+    private FBO adaptedExposureFbo;
+    private FBO historyFbo;
+    private boolean historyIsValid;
+
+    public AdaptExposureNode(String nodeUri, Name providingModule, Context context) {
+        super(nodeUri, providingModule, context);
+
+        RenderingConfig renderingConfig = context.get(Config.class).getRendering();
+        renderingConfig.subscribe(RenderingConfig.EYE_ADAPTATION, this);
+        requiresCondition(renderingConfig::isEyeAdaptation);
+        addOutputFboConnection(1);
+
+        this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
+                .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+        addDesiredStateChange(new EnableMaterial(ADAPT_EXPOSURE_MATERIAL_URN));
+        adaptExposureMaterial = getMaterial(ADAPT_EXPOSURE_MATERIAL_URN);
+
+        ImmutableFbo immutableFbo = context.get(ImmutableFbo.class);
+        adaptedExposureFbo = requiresFbo(ADAPTED_EXPOSURE_FBO_CONFIG, immutableFbo);
+        historyFbo = requiresFbo(EXPOSURE_HISTORY_FBO_CONFIG, immutableFbo);
+        addOutputFboConnection(1, adaptedExposureFbo);
+
+        addDesiredStateChange(new BindFbo(adaptedExposureFbo));
+        addDesiredStateChange(new SetViewportToSizeOf(adaptedExposureFbo));
+
+        addDesiredStateChange(new SetInputTextureFromFbo(0, getInputFboData(1), ColorTexture,
+                immutableFbo, ADAPT_EXPOSURE_MATERIAL_URN, "texScene"));
+        addDesiredStateChange(new SetInputTextureFromFbo(1, historyFbo, ColorTexture,
+                immutableFbo, ADAPT_EXPOSURE_MATERIAL_URN, "texHistory"));
+
+        historyIsValid = false;
+    }
+
+    /**
+     * Moves the exposure stored in the history towards the one the current scene calls for, then stores the
+     * result as history.
+     */
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        adaptExposureMaterial.setFloat("hdrMaxExposure", hdrMaxExposure, true);
+        adaptExposureMaterial.setFloat("hdrMinExposure", hdrMinExposure, true);
+        adaptExposureMaterial.setFloat("hdrTargetLuminance", hdrTargetLuminance, true);
+        adaptExposureMaterial.setFloat("adjustmentSpeed", historyIsValid ? hdrExposureAdjustmentSpeed : 1.0f, true);
+
+        renderQuad.render();
+
+        FboBlitHelper.blitColor(adaptedExposureFbo, historyFbo);
+        historyIsValid = true;
+
+        PerformanceMonitor.endActivity();
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        // The history is stale by the time eye adaptation is enabled again.
+        historyIsValid = false;
+        super.propertyChange(event);
+    }
+}
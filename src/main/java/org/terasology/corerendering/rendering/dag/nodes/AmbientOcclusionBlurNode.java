@@ -0,0 +1,65 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.terasology.corerendering.rendering.CoreRenderingConfig;
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.core.SimpleUri;
+import org.terasology.gestalt.naming.Name;
+
+import java.beans.PropertyChangeEvent;
+
+/**
+ * Instances of this node blur the ambient occlusion along one axis, at the resolution it was computed at.
+ * Two of them, one per axis, remove the noise pattern of the AmbientOcclusionNode without bleeding the occlusion
+ * across depth discontinuities. Their radius follows the SSAO quality tier of the CoreRenderingConfig.
+ */
+public class AmbientOcclusionBlurNode extends BilateralBlurNode {
+    public static final SimpleUri HORIZONTALLY_BLURRED_FBO_URI = new SimpleUri("engine:fbo.ssaoHorizontallyBlurred");
+    public static final SimpleUri BILATERALLY_BLURRED_FBO_URI = new SimpleUri("engine:fbo.ssaoBilaterallyBlurred");
+
+    private CoreRenderingConfig coreRenderingConfig;
+
+    /**
+     * Constructs an AmbientOcclusionBlurNode instance.
+     *
+     * @param outputFboUri The uri the output fbo, storing the blurred occlusion, was requested from the
+     *                     TransientFboPool with.
+     * @param horizontal true to blur along the horizontal axis, false to blur along the vertical one.
+     */
+    public AmbientOcclusionBlurNode(String nodeUri, Name providingModule, Context context, SimpleUri outputFboUri,
+                                    boolean horizontal) {
+        super(nodeUri, providingModule, context, outputFboUri, horizontal, 0);
+
+        RenderingConfig renderingConfig = context.get(Config.class).getRendering();
+        requiresCondition(renderingConfig::isSsao);
+        renderingConfig.subscribe(RenderingConfig.SSAO, this);
+
+        coreRenderingConfig = context.get(CoreRenderingConfig.class);
+        coreRenderingConfig.subscribe(CoreRenderingConfig.SSAO_QUALITY, this);
+        updateBlurRadius();
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        String propertyName = event.getPropertyName();
+
+        switch (propertyName) {
+            case RenderingConfig.SSAO:
+                super.propertyChange(event);
+                break;
+
+            case CoreRenderingConfig.SSAO_QUALITY:
+                updateBlurRadius();
+                break;
+
+            // default: no other cases are possible - see subscribe operations in the constructor.
+        }
+    }
+
+    private void updateBlurRadius() {
+        this.blurRadius = coreRenderingConfig.getSsaoQuality().getBlurRadius();
+    }
+}
@@ -4,6 +4,9 @@ package org.terasology.corerendering.rendering.dag.nodes;
 
 import org.joml.Vector3f;
 import org.lwjgl.BufferUtils;
+import org.terasology.corerendering.rendering.CoreRenderingConfig;
+import org.terasology.corerendering.rendering.utils.GpuTimer;
+import org.terasology.corerendering.rendering.utils.TransientFboPool;
 import org.terasology.engine.config.Config;
 import org.terasology.engine.config.RenderingConfig;
 import org.terasology.engine.context.Context;
@@ -22,7 +25,6 @@ import org.terasology.engine.rendering.dag.stateChanges.SetInputTexture2D;
 import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
 import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
 import org.terasology.engine.rendering.opengl.FBO;
-import org.terasology.engine.rendering.opengl.FboConfig;
 import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
 import org.terasology.engine.utilities.Assets;
 import org.terasology.engine.utilities.random.FastRandom;
@@ -37,9 +39,8 @@ import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.util.Optional;
 
-import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.DepthStencilTexture;
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
 import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.NormalsTexture;
-import static org.terasology.engine.rendering.opengl.ScalingFactors.FULL_SCALE;
 import static org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo.POST_FBO_REGENERATION;
 
 /**
@@ -53,6 +54,22 @@ import static org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDepen
  * shown on screen to the user. It is currently not possible to use the sharper output produced by
  * this node alone, i.e. to have lower quality but faster ambient occlusions.
  *
+ * Depth is read from the linear depth produced by the LinearDepthNode, or from the level of the depth pyramid
+ * matching the resolution of this node, connected as input FBO 1.
+ *
+ * In the temporal mode of the CoreRenderingConfig each frame only evaluates one of SSAO_TEMPORAL_FRAMES interleaved
+ * subsets of the kernel, and the noise pattern is shifted from frame to frame, so that the TemporalAmbientOcclusionNode
+ * downstream can accumulate the full kernel over several frames.
+ *
+ * The number of samples and the kernel radius follow the SSAO quality tier of the CoreRenderingConfig. When the tier
+ * is automatic, this node measures the GPU time it takes and steps them down to those of the tier below when it stays
+ * above ssaoBudgetMilliseconds, and back up when it stays well below it. The automatic tier does not cover the
+ * resolution: it is only read when the render graph is built, so it remains the one of the configured tier however
+ * far the kernel is stepped down, and so does the blur radius.
+ *
+ * The output can however be generated at a fraction of the display resolution, as set in the CoreRenderingConfig,
+ * in which case the BlurredAmbientOcclusionNode also takes care of upsampling it back to full resolution.
+ *
  * Ambient occlusion is a subtle visual effect that makes the rendering of the world more pleasing
  * at the cost of some additional milliseconds per frame. Disabling it may lead to increased frame
  * rate while the gameplay remains unaffected.
@@ -61,10 +78,16 @@ import static org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDepen
  */
 public class AmbientOcclusionNode extends ConditionDependentNode {
     public static final SimpleUri SSAO_FBO_URI = new SimpleUri("engine:fbo.ssao");
+    // The maximum kernel size, also the size of the kernel array on the shader side.
     public static final int SSAO_KERNEL_ELEMENTS = 32;
     public static final int SSAO_NOISE_SIZE = 4;
+    // In temporal mode, the kernel is split in this many interleaved subsets, one evaluated per frame.
+    public static final int SSAO_TEMPORAL_FRAMES = 4;
     private static final ResourceUrn SSAO_MATERIAL_URN = new ResourceUrn("CoreRendering:ssao");
     private static final float NOISE_TEXEL_SIZE = 0.25f;
+    // Number of consecutive frames over or under budget before the automatic quality changes tier.
+    private static final int QUALITY_CHANGE_FRAMES = 60;
+    private static final float GPU_TIME_SMOOTHING = 0.1f;
 
     private Material ssaoMaterial;
     private float outputFboWidth;
@@ -76,9 +99,23 @@ public class AmbientOcclusionNode extends ConditionDependentNode {
     @SuppressWarnings("FieldCanBeLocal")
     @Range(min = 0.1f, max = 25.0f)
     private float ssaoRad = 1.5f;
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.1f, max = 10.0f)
+    private float ssaoBudgetMilliseconds = 1.5f;
 
     private FBO ssaoFbo;
 
+    private boolean temporalSsaoIsEnabled;
+    private int frameIndex;
+
+    private CoreRenderingConfig coreRenderingConfig;
+    private CoreRenderingConfig.SsaoQuality appliedQuality;
+    private int kernelElements;
+    private GpuTimer gpuTimer;
+    private float averageGpuMilliseconds = -1.0f;
+    private int framesOverBudget;
+    private int framesUnderBudget;
+
     private Camera activeCamera;
 
     private final Random randomGenerator = new FastRandom();
@@ -97,6 +134,9 @@ public class AmbientOcclusionNode extends ConditionDependentNode {
         addOutputFboConnection(1);
         addOutputBufferPairConnection(1);
 
+        coreRenderingConfig = context.get(CoreRenderingConfig.class);
+        coreRenderingConfig.subscribe(CoreRenderingConfig.SSAO_QUALITY, this);
+        applyQuality(coreRenderingConfig.getSsaoQuality());
 
         this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
                 .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
@@ -108,7 +148,9 @@ public class AmbientOcclusionNode extends ConditionDependentNode {
         ssaoMaterial = getMaterial(SSAO_MATERIAL_URN);
 
         DisplayResolutionDependentFbo displayResolutionDependentFBOs = context.get(DisplayResolutionDependentFbo.class);
-        ssaoFbo = requiresFbo(new FboConfig(SSAO_FBO_URI, FULL_SCALE, FBO.Type.DEFAULT), displayResolutionDependentFBOs);
+        temporalSsaoIsEnabled = coreRenderingConfig.isTemporalSsao();
+        ssaoFbo = requiresFbo(context.get(TransientFboPool.class).getFboConfig(SSAO_FBO_URI),
+                displayResolutionDependentFBOs);
 
         addOutputFboConnection(1, ssaoFbo);
 
@@ -124,8 +166,8 @@ public class AmbientOcclusionNode extends ConditionDependentNode {
         addOutputBufferPairConnection(1, bufferPairConnection);
 
         int texId = 0;
-        addDesiredStateChange(new SetInputTextureFromFbo(texId++, lastUpdatedGBuffer, DepthStencilTexture, displayResolutionDependentFBOs,
-                SSAO_MATERIAL_URN, "texDepth"));
+        addDesiredStateChange(new SetInputTextureFromFbo(texId++, this.getInputFboData(1), ColorTexture, displayResolutionDependentFBOs,
+                SSAO_MATERIAL_URN, "texLinearDepth"));
         addDesiredStateChange(new SetInputTextureFromFbo(texId++, lastUpdatedGBuffer, NormalsTexture, displayResolutionDependentFBOs,
                 SSAO_MATERIAL_URN, "texNormals"));
         addDesiredStateChange(new SetInputTexture2D(texId, generateNoiseTexture().getId(), SSAO_MATERIAL_URN, "texNoise"));
@@ -148,15 +190,50 @@ public class AmbientOcclusionNode extends ConditionDependentNode {
 
         ssaoMaterial.setFloat4("ssaoSettings", ssaoStrength, ssaoRad, 0.0f, 0.0f, true);
 
-        ssaoMaterial.setMatrix4("invProjMatrix", activeCamera.getInverseProjectionMatrix(), true);
         ssaoMaterial.setMatrix4("projMatrix", activeCamera.getProjectionMatrix(), true);
+        ssaoMaterial.setFloat("skyLinearDepth", activeCamera.getzFar(), true);
 
         ssaoMaterial.setFloat2("texelSize", 1.0f / outputFboWidth, 1.0f / outputFboHeight, true);
         ssaoMaterial.setFloat2("noiseTexelSize", NOISE_TEXEL_SIZE, NOISE_TEXEL_SIZE, true);
 
+        if (ssaoSamples == null) {
+            createSamplesBuffer();
+        }
+
+        if (temporalSsaoIsEnabled) {
+            int phase = frameIndex;
+            frameIndex = (frameIndex + 1) % SSAO_TEMPORAL_FRAMES;
+
+            ssaoMaterial.setInt("sampleCount", Math.max(1, kernelElements / SSAO_TEMPORAL_FRAMES), true);
+            ssaoMaterial.setInt("sampleStride", SSAO_TEMPORAL_FRAMES, true);
+            ssaoMaterial.setInt("sampleOffset", phase, true);
+            // Shifts the tiled noise by whole pixels, giving each pixel a different rotation in each frame
+            ssaoMaterial.setFloat2("noiseOffset", (phase % 2) / outputFboWidth, (phase / 2) / outputFboHeight, true);
+        } else {
+            ssaoMaterial.setInt("sampleCount", kernelElements, true);
+            ssaoMaterial.setInt("sampleStride", 1, true);
+            ssaoMaterial.setInt("sampleOffset", 0, true);
+            ssaoMaterial.setFloat2("noiseOffset", 0.0f, 0.0f, true);
+        }
+
         ssaoMaterial.setFloat3("ssaoSamples", ssaoSamples);
 
-        this.renderQuad.render();
+        if (coreRenderingConfig.isAutomaticSsaoQuality()) {
+            if (gpuTimer == null) {
+                gpuTimer = new GpuTimer();
+            }
+            gpuTimer.begin();
+            this.renderQuad.render();
+            gpuTimer.end();
+
+            updateAutomaticQuality();
+        } else {
+            if (appliedQuality != coreRenderingConfig.getSsaoQuality()) {
+                // The automatic quality was just turned off
+                applyQuality(coreRenderingConfig.getSsaoQuality());
+            }
+            this.renderQuad.render();
+        }
 
         PerformanceMonitor.endActivity();
     }
@@ -174,19 +251,75 @@ public class AmbientOcclusionNode extends ConditionDependentNode {
                 retrieveFboDimensions();
                 break;
 
+            case CoreRenderingConfig.SSAO_QUALITY:
+                applyQuality(coreRenderingConfig.getSsaoQuality());
+                break;
+
             // default: no other cases are possible - see subscribe operations in initialize().
         }
     }
 
+    private void applyQuality(CoreRenderingConfig.SsaoQuality quality) {
+        appliedQuality = quality;
+        kernelElements = Math.min(quality.getKernelSize(), SSAO_KERNEL_ELEMENTS);
+        ssaoRad = quality.getRadius();
+        // The kernel is regenerated on the next frame, as its distribution depends on its size
+        ssaoSamples = null;
+
+        averageGpuMilliseconds = -1.0f;
+        if (gpuTimer != null) {
+            gpuTimer.discardResults();
+        }
+        framesOverBudget = 0;
+        framesUnderBudget = 0;
+    }
+
+    private void updateAutomaticQuality() {
+        float gpuMilliseconds = gpuTimer.getLastMilliseconds();
+        if (gpuMilliseconds < 0) {
+            return;
+        }
+
+        averageGpuMilliseconds = averageGpuMilliseconds < 0 ? gpuMilliseconds
+                : TeraMath.lerp(averageGpuMilliseconds, gpuMilliseconds, GPU_TIME_SMOOTHING);
+
+        // Only the per-frame parameters of the tier are changed, the configured tier is left alone
+        CoreRenderingConfig.SsaoQuality quality = appliedQuality;
+        if (averageGpuMilliseconds > ssaoBudgetMilliseconds) {
+            framesUnderBudget = 0;
+            if (++framesOverBudget >= QUALITY_CHANGE_FRAMES && quality.lower() != quality) {
+                applyQuality(quality.lower());
+            }
+        } else if (averageGpuMilliseconds < ssaoBudgetMilliseconds * 0.5f) {
+            // Going one tier up roughly doubles the cost: only do it if there is room for that
+            framesOverBudget = 0;
+            if (++framesUnderBudget >= QUALITY_CHANGE_FRAMES && quality.higher() != quality) {
+                applyQuality(quality.higher());
+            }
+        } else {
+            framesOverBudget = 0;
+            framesUnderBudget = 0;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (gpuTimer != null) {
+            gpuTimer.dispose();
+            gpuTimer = null;
+        }
+        super.dispose();
+    }
+
     private void retrieveFboDimensions() {
         outputFboWidth = ssaoFbo.width();
         outputFboHeight = ssaoFbo.height();
     }
 
     private void createSamplesBuffer() {
-        ssaoSamples = BufferUtils.createFloatBuffer(SSAO_KERNEL_ELEMENTS * 3);
+        ssaoSamples = BufferUtils.createFloatBuffer(kernelElements * 3);
 
-        for (int i = 0; i < SSAO_KERNEL_ELEMENTS; ++i) {
+        for (int i = 0; i < kernelElements; ++i) {
             Vector3f vec = new Vector3f(
                     randomGenerator.nextFloat(-1.0f, 1.0f),
                     randomGenerator.nextFloat(-1.0f, 1.0f),
@@ -195,7 +328,7 @@ public class AmbientOcclusionNode extends ConditionDependentNode {
 
             vec.normalize();
             vec.mul(randomGenerator.nextFloat(0.0f, 1.0f));
-            float scale = i / (float) SSAO_KERNEL_ELEMENTS;
+            float scale = i / (float) kernelElements;
             scale = TeraMath.lerp(0.25f, 1.0f, scale * scale);
 
             vec.mul(scale);
@@ -3,7 +3,9 @@
 package org.terasology.corerendering.rendering.dag.nodes;
 
 import org.joml.Vector3f;
+import org.joml.Vector3fc;
 import org.joml.Vector4f;
+import org.terasology.corerendering.rendering.utils.CameraEnvironmentSnapshot;
 import org.terasology.engine.config.Config;
 import org.terasology.engine.config.RenderingDebugConfig;
 import org.terasology.engine.context.Context;
@@ -53,6 +55,7 @@ public class BackdropNode extends AbstractNode implements WireframeCapable {
 
     private WorldRenderer worldRenderer;
     private BackdropProvider backdropProvider;
+    private CameraEnvironmentSnapshot cameraEnvironment;
 
     private SetWireframe wireframeStateChange;
 
@@ -72,7 +75,7 @@ public class BackdropNode extends AbstractNode implements WireframeCapable {
     private float skyNightBrightness = 1.0f;
 
     @SuppressWarnings("FieldCanBeLocal")
-    private Vector3f sunDirection;
+    private Vector3fc sunDirection;
     @SuppressWarnings("FieldCanBeLocal")
     private float turbidity;
 
@@ -81,6 +84,7 @@ public class BackdropNode extends AbstractNode implements WireframeCapable {
         super(nodeUri, providingModule, context);
 
         backdropProvider = context.get(BackdropProvider.class);
+        cameraEnvironment = context.get(CameraEnvironmentSnapshot.class);
 
         wireframeStateChange = new SetWireframe(true);
 
@@ -152,15 +156,15 @@ public class BackdropNode extends AbstractNode implements WireframeCapable {
 
         // Common Shader Parameters
 
-        sunDirection = backdropProvider.getSunDirection(false);
-        turbidity = backdropProvider.getTurbidity();
+        sunDirection = cameraEnvironment.getSunDirection(false);
+        turbidity = cameraEnvironment.getTurbidity();
 
-        skyMaterial.setFloat("daylight", backdropProvider.getDaylight(), true);
+        skyMaterial.setFloat("daylight", cameraEnvironment.getDaylight(), true);
         skyMaterial.setFloat3("sunVec", sunDirection, true);
 
         // Shader Parameters
 
-        skyMaterial.setFloat3("zenith", getAllWeatherZenith(backdropProvider.getSunDirection(false).y, turbidity),
+        skyMaterial.setFloat3("zenith", getAllWeatherZenith(sunDirection.y(), turbidity),
                 true);
         skyMaterial.setFloat("turbidity", turbidity, true);
         skyMaterial.setFloat("colorExp", backdropProvider.getColorExp(), true);
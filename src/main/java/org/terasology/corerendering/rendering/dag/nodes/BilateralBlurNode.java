@@ -0,0 +1,134 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.lwjgl.BufferUtils;
+import org.terasology.corerendering.rendering.utils.GaussianKernel;
+import org.terasology.corerendering.rendering.utils.TransientFboPool;
+import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.assets.material.Material;
+import org.terasology.engine.rendering.assets.mesh.Mesh;
+import org.terasology.engine.rendering.dag.ConditionDependentNode;
+import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
+import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
+import org.terasology.engine.utilities.Assets;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.naming.Name;
+
+import java.nio.FloatBuffer;
+
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
+
+/**
+ * A BilateralBlurNode blurs the content of the color buffer attached to the input FBO along one axis, with a Gaussian
+ * kernel whose weights are reduced for texels at a different depth than the one being blurred. Two instances, one
+ * horizontal and one vertical, make a separable depth-aware blur whose cost grows linearly with the radius.
+ *
+ * The input FBO 1 is the image to blur, the input FBO 2 holds linear depth in its red channel, i.e. the output of
+ * the LinearDepthNode or of a DepthPyramidNode. Both, and the output FBO, are expected to have the same size.
+ *
+ * Like the BlurNode, this class provides no condition of its own: subclasses are expected to add theirs.
+ */
+public class BilateralBlurNode extends ConditionDependentNode {
+    private static final ResourceUrn BILATERAL_BLUR_MATERIAL_URN = new ResourceUrn("CoreRendering:bilateralBlur");
+
+    protected float blurRadius;
+    protected float depthTolerance = 0.05f;
+
+    private final boolean horizontal;
+    private final FloatBuffer taps = BufferUtils.createFloatBuffer(2 * GaussianKernel.MAX_TAPS);
+    private float tapsRadius = -1.0f;
+    private int tapCount;
+
+    private Material bilateralBlurMaterial;
+    private FBO outputFbo;
+    private SimpleUri outputFboUri;
+    private Mesh renderQuad;
+
+    /**
+     * Constructs a BilateralBlurNode instance.
+     *
+     * @param outputFbo The output fbo, to store the blurred image.
+     * @param horizontal true to blur along the horizontal axis, false to blur along the vertical one.
+     * @param blurRadius the blur radius in texels of the output fbo, at most GaussianKernel.MAX_RADIUS.
+     */
+    public BilateralBlurNode(String nodeUri, Name providingModule, Context context, FBO outputFbo, boolean horizontal,
+                             float blurRadius) {
+        super(nodeUri, providingModule, context);
+
+        this.outputFbo = outputFbo;
+        this.horizontal = horizontal;
+        this.blurRadius = blurRadius;
+
+        addOutputFboConnection(1);
+        this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
+                .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
+    }
+
+    /**
+     * Constructs a BilateralBlurNode instance whose output fbo is taken from the TransientFboPool.
+     *
+     * @param outputFboUri The uri the output fbo was requested from the TransientFboPool with.
+     * @param horizontal true to blur along the horizontal axis, false to blur along the vertical one.
+     * @param blurRadius the blur radius in texels of the output fbo, at most GaussianKernel.MAX_RADIUS.
+     */
+    public BilateralBlurNode(String nodeUri, Name providingModule, Context context, SimpleUri outputFboUri,
+                             boolean horizontal, float blurRadius) {
+        this(nodeUri, providingModule, context, (FBO) null, horizontal, blurRadius);
+
+        this.outputFboUri = outputFboUri;
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+        DisplayResolutionDependentFbo displayResolutionDependentFBOs = context.get(DisplayResolutionDependentFbo.class);
+        if (outputFboUri != null) {
+            outputFbo = requiresFbo(context.get(TransientFboPool.class).getFboConfig(outputFboUri),
+                    displayResolutionDependentFBOs);
+        }
+
+        addOutputFboConnection(1, outputFbo);
+        addDesiredStateChange(new BindFbo(outputFbo));
+        addDesiredStateChange(new SetViewportToSizeOf(outputFbo));
+
+        addDesiredStateChange(new EnableMaterial(BILATERAL_BLUR_MATERIAL_URN));
+        bilateralBlurMaterial = getMaterial(BILATERAL_BLUR_MATERIAL_URN);
+
+        addDesiredStateChange(new SetInputTextureFromFbo(0, getInputFboData(1), ColorTexture,
+                displayResolutionDependentFBOs, BILATERAL_BLUR_MATERIAL_URN, "tex"));
+        addDesiredStateChange(new SetInputTextureFromFbo(1, getInputFboData(2), ColorTexture,
+                displayResolutionDependentFBOs, BILATERAL_BLUR_MATERIAL_URN, "texLinearDepth"));
+    }
+
+    /**
+     * Performs the blur along the axis of this node.
+     */
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        if (blurRadius != tapsRadius) {
+            tapCount = GaussianKernel.computeLinearTaps(blurRadius, taps);
+            tapsRadius = blurRadius;
+        }
+
+        if (horizontal) {
+            bilateralBlurMaterial.setFloat2("direction", 1.0f / outputFbo.width(), 0.0f, true);
+        } else {
+            bilateralBlurMaterial.setFloat2("direction", 0.0f, 1.0f / outputFbo.height(), true);
+        }
+        bilateralBlurMaterial.setInt("tapCount", tapCount, true);
+        bilateralBlurMaterial.setFloat2("taps", taps, true);
+        bilateralBlurMaterial.setFloat("depthTolerance", depthTolerance, true);
+
+        renderQuad.render();
+
+        PerformanceMonitor.endActivity();
+    }
+}
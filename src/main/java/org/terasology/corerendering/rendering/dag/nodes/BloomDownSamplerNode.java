@@ -0,0 +1,128 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.terasology.corerendering.rendering.utils.TransientFboPool;
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.assets.material.Material;
+import org.terasology.engine.rendering.assets.mesh.Mesh;
+import org.terasology.engine.rendering.dag.ConditionDependentNode;
+import org.terasology.engine.rendering.dag.dependencyConnections.BufferPairConnection;
+import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
+import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
+import org.terasology.engine.utilities.Assets;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.naming.Name;
+import org.terasology.nui.properties.Range;
+
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
+
+/**
+ * Instances of this class make up the downsample half of the dual-filter bloom: each one halves the resolution of
+ * its input with a five-tap filter. Each tap is placed on the corner shared by four input texels, so that bilinear
+ * filtering averages them: the center tap covers the 2x2 input texels under the output texel, and the four diagonal
+ * taps, one input texel away from it, the 2x2 blocks around it.
+ *
+ * The first level of the chain reads the color content of the last updated gBuffer, provided as input buffer pair 1,
+ * and only keeps its brightest areas, in the same way the HighPassNode does. The following levels read the output of
+ * the previous level, provided as input FBO 1.
+ *
+ * See BloomUpSamplerNode for the second half of the chain.
+ */
+public class BloomDownSamplerNode extends ConditionDependentNode {
+    private static final ResourceUrn BLOOM_DOWN_SAMPLER_MATERIAL_URN = new ResourceUrn("CoreRendering:bloomDownSampler");
+
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.0f, max = 5.0f)
+    private float highPassThreshold = 0.05f;
+
+    private final boolean firstLevel;
+    private final SimpleUri outputFboUri;
+    private FBO inputFbo;
+    private FBO outputFbo;
+
+    private Material bloomDownSamplerMaterial;
+    private Mesh renderQuad;
+
+    /**
+     * Constructs a BloomDownSamplerNode instance.
+     *
+     * @param outputFboUri The uri the output fbo was requested from the TransientFboPool with.
+     *                     The output fbo is expected to be half the size of the input.
+     * @param firstLevel true if this node reads and thresholds the gBuffer, false if it reads a previous level.
+     */
+    public BloomDownSamplerNode(String nodeUri, Name providingModule, Context context, SimpleUri outputFboUri,
+                                boolean firstLevel) {
+        super(nodeUri, providingModule, context);
+
+        this.outputFboUri = outputFboUri;
+        this.firstLevel = firstLevel;
+
+        RenderingConfig renderingConfig = context.get(Config.class).getRendering();
+        renderingConfig.subscribe(RenderingConfig.BLOOM, this);
+        requiresCondition(renderingConfig::isBloom);
+        addOutputFboConnection(1);
+        if (firstLevel) {
+            addOutputBufferPairConnection(1);
+        }
+
+        this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
+                .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
+    }
+
+    /**
+     * Returns the uri of the FBO holding the given level of the downsample chain, 0 being the half scale one.
+     */
+    public static SimpleUri getFboUri(int level) {
+        return new SimpleUri("engine:fbo.bloomDownSampled" + level);
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+        DisplayResolutionDependentFbo displayResolutionDependentFBOs = context.get(DisplayResolutionDependentFbo.class);
+        outputFbo = requiresFbo(context.get(TransientFboPool.class).getFboConfig(outputFboUri),
+                displayResolutionDependentFBOs);
+
+        if (firstLevel) {
+            BufferPairConnection bufferPairConnection = getInputBufferPairConnection(1);
+            inputFbo = bufferPairConnection.getBufferPair().getPrimaryFbo();
+            addOutputBufferPairConnection(1, bufferPairConnection);
+        } else {
+            inputFbo = getInputFboData(1);
+        }
+
+        addOutputFboConnection(1, outputFbo);
+        addDesiredStateChange(new BindFbo(outputFbo));
+        addDesiredStateChange(new SetViewportToSizeOf(outputFbo));
+
+        addDesiredStateChange(new EnableMaterial(BLOOM_DOWN_SAMPLER_MATERIAL_URN));
+        bloomDownSamplerMaterial = getMaterial(BLOOM_DOWN_SAMPLER_MATERIAL_URN);
+
+        addDesiredStateChange(new SetInputTextureFromFbo(0, inputFbo, ColorTexture,
+                displayResolutionDependentFBOs, BLOOM_DOWN_SAMPLER_MATERIAL_URN, "tex"));
+    }
+
+    /**
+     * Renders a full screen quad, each fragment averaging the input texels it covers and their immediate neighbours.
+     */
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        bloomDownSamplerMaterial.setFloat2("texelSize", 1.0f / inputFbo.width(), 1.0f / inputFbo.height(), true);
+        bloomDownSamplerMaterial.setFloat("applyThreshold", firstLevel ? 1.0f : 0.0f, true);
+        bloomDownSamplerMaterial.setFloat("highPassThreshold", highPassThreshold, true);
+
+        renderQuad.render();
+
+        PerformanceMonitor.endActivity();
+    }
+}
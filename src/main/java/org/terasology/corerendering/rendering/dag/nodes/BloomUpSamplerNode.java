@@ -0,0 +1,113 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.terasology.corerendering.rendering.utils.TransientFboPool;
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.assets.material.Material;
+import org.terasology.engine.rendering.assets.mesh.Mesh;
+import org.terasology.engine.rendering.dag.ConditionDependentNode;
+import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
+import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
+import org.terasology.engine.utilities.Assets;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.naming.Name;
+
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
+
+/**
+ * Instances of this class make up the upsample half of the dual-filter bloom: each one doubles the resolution of the
+ * input FBO 1, the previous (smaller) level of the chain, with an eight-tap tent filter and adds the input FBO 2, the
+ * level of the downsample chain matching the size of the output.
+ *
+ * Adding every level this way widens the bloom at each step while keeping the smooth falloff of the smaller levels.
+ * The output holds the average of all the levels added so far rather than their sum, so that it fits the 8 bit
+ * buffers of the chain and the overall intensity doesn't depend on its length.
+ *
+ * See BloomDownSamplerNode for the first half of the chain.
+ */
+public class BloomUpSamplerNode extends ConditionDependentNode {
+    private static final ResourceUrn BLOOM_UP_SAMPLER_MATERIAL_URN = new ResourceUrn("CoreRendering:bloomUpSampler");
+
+    private final int levelCount;
+    private final SimpleUri outputFboUri;
+    private FBO inputFbo;
+    private FBO outputFbo;
+
+    private Material bloomUpSamplerMaterial;
+    private Mesh renderQuad;
+
+    /**
+     * Constructs a BloomUpSamplerNode instance.
+     *
+     * @param outputFboUri The uri the output fbo was requested from the TransientFboPool with. The output fbo is
+     *                     expected to be twice the size of the input FBO 1 and the size of input FBO 2.
+     * @param levelCount the number of downsampled levels averaged into the output, including the input FBO 2.
+     */
+    public BloomUpSamplerNode(String nodeUri, Name providingModule, Context context, SimpleUri outputFboUri,
+                              int levelCount) {
+        super(nodeUri, providingModule, context);
+
+        this.outputFboUri = outputFboUri;
+        this.levelCount = levelCount;
+
+        RenderingConfig renderingConfig = context.get(Config.class).getRendering();
+        renderingConfig.subscribe(RenderingConfig.BLOOM, this);
+        requiresCondition(renderingConfig::isBloom);
+        addOutputFboConnection(1);
+
+        this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
+                .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
+    }
+
+    /**
+     * Returns the uri of the FBO holding the given level of the upsample chain, 0 being the half scale one.
+     */
+    public static SimpleUri getFboUri(int level) {
+        return new SimpleUri("engine:fbo.bloomUpSampled" + level);
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+        DisplayResolutionDependentFbo displayResolutionDependentFBOs = context.get(DisplayResolutionDependentFbo.class);
+        outputFbo = requiresFbo(context.get(TransientFboPool.class).getFboConfig(outputFboUri),
+                displayResolutionDependentFBOs);
+
+        inputFbo = getInputFboData(1);
+
+        addOutputFboConnection(1, outputFbo);
+        addDesiredStateChange(new BindFbo(outputFbo));
+        addDesiredStateChange(new SetViewportToSizeOf(outputFbo));
+
+        addDesiredStateChange(new EnableMaterial(BLOOM_UP_SAMPLER_MATERIAL_URN));
+        bloomUpSamplerMaterial = getMaterial(BLOOM_UP_SAMPLER_MATERIAL_URN);
+
+        addDesiredStateChange(new SetInputTextureFromFbo(0, inputFbo, ColorTexture,
+                displayResolutionDependentFBOs, BLOOM_UP_SAMPLER_MATERIAL_URN, "tex"));
+        addDesiredStateChange(new SetInputTextureFromFbo(1, getInputFboData(2), ColorTexture,
+                displayResolutionDependentFBOs, BLOOM_UP_SAMPLER_MATERIAL_URN, "texDownSampled"));
+    }
+
+    /**
+     * Renders a full screen quad, each fragment adding the tent-filtered lower level to the matching downsampled one.
+     */
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        bloomUpSamplerMaterial.setFloat2("texelSize", 1.0f / inputFbo.width(), 1.0f / inputFbo.height(), true);
+        bloomUpSamplerMaterial.setFloat("lowerLevelsWeight", (levelCount - 1) / (float) levelCount, true);
+
+        renderQuad.render();
+
+        PerformanceMonitor.endActivity();
+    }
+}
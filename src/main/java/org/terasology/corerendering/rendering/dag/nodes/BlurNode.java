@@ -2,7 +2,15 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.corerendering.rendering.dag.nodes;
 
+import org.lwjgl.BufferUtils;
+import org.terasology.corerendering.rendering.utils.GaussianKernel;
+import org.terasology.corerendering.rendering.utils.TransientFboPool;
+import org.terasology.engine.core.SimpleUri;
 import org.terasology.engine.rendering.assets.mesh.Mesh;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.opengl.FboConfig;
+import org.terasology.engine.rendering.opengl.ScalingFactors;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
 import org.terasology.engine.utilities.Assets;
 import org.terasology.gestalt.assets.ResourceUrn;
 import org.terasology.engine.context.Context;
@@ -15,27 +23,46 @@ import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
 import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
 import org.terasology.engine.rendering.opengl.FBO;
 
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
+import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
 
 /**
  * A BlurNode takes the content of the color buffer attached to the input FBO and generates
  * a blurred version of it in the color buffer attached to the output FBO.
+ *
+ * By default the blur is a separable Gaussian: a horizontal pass into an intermediate FBO of the same size as the
+ * output, followed by a vertical pass into the output. The intermediate FBO is shared by all the blur nodes whose
+ * output has the same scale and type. If the output FBO is not managed by the DisplayResolutionDependentFbo, or if
+ * the subclass clears the separable flag, the node falls back to a single pass over a 12-tap disk.
  */
 public class BlurNode extends ConditionDependentNode {
     private static final ResourceUrn BLUR_MATERIAL_URN = new ResourceUrn("CoreRendering:blur");
+    private static final ResourceUrn SEPARABLE_BLUR_MATERIAL_URN = new ResourceUrn("CoreRendering:separableBlur");
 
     protected float blurRadius;
+    protected boolean separable = true;
 
     private Material blurMaterial;
 
     private FBO inputFbo;
     private FBO outputFbo;
+    private SimpleUri outputFboUri;
+    private FBO intermediateFbo;
     private Mesh renderQuad;
 
+    private final FloatBuffer taps = BufferUtils.createFloatBuffer(2 * GaussianKernel.MAX_TAPS);
+    private float tapsRadius = -1.0f;
+    private int tapCount;
+
     /**
      * Constructs a BlurNode instance.
      *
      * @param outputFbo The output fbo, to store the blurred image.
-     * @param blurRadius the blur radius: higher values cause higher blur. The shader's default is 16.0f.
+     * @param blurRadius the blur radius in texels of the output fbo: higher values cause higher blur.
+     *                   The separable blur supports radii up to GaussianKernel.MAX_RADIUS.
      */
     public BlurNode(String nodeUri, Context context, Name providingModule, FBO outputFbo, float blurRadius) {
         super(nodeUri, providingModule, context);
@@ -49,15 +76,61 @@ public class BlurNode extends ConditionDependentNode {
                 .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
     }
 
+    /**
+     * Constructs a BlurNode instance whose output fbo is taken from the TransientFboPool.
+     *
+     * @param outputFboUri The uri the output fbo was requested from the TransientFboPool with.
+     * @param blurRadius the blur radius in texels of the output fbo: higher values cause higher blur.
+     *                   The separable blur supports radii up to GaussianKernel.MAX_RADIUS.
+     */
+    public BlurNode(String nodeUri, Context context, Name providingModule, SimpleUri outputFboUri, float blurRadius) {
+        this(nodeUri, context, providingModule, (FBO) null, blurRadius);
+
+        this.outputFboUri = outputFboUri;
+    }
+
     @Override
     public void setDependencies(Context context) {
+        DisplayResolutionDependentFbo displayResolutionDependentFBOs = context.get(DisplayResolutionDependentFbo.class);
+        if (outputFboUri != null) {
+            outputFbo = requiresFbo(context.get(TransientFboPool.class).getFboConfig(outputFboUri),
+                    displayResolutionDependentFBOs);
+        }
+
         inputFbo =  this.getInputFboData(1);
         addOutputFboConnection(1, outputFbo);
         addDesiredStateChange(new BindFbo(outputFbo));
         addDesiredStateChange(new SetViewportToSizeOf(outputFbo));
 
-        addDesiredStateChange(new EnableMaterial(BLUR_MATERIAL_URN));
-        this.blurMaterial = getMaterial(BLUR_MATERIAL_URN);
+        intermediateFbo = separable ? requestIntermediateFbo(displayResolutionDependentFBOs) : null;
+
+        ResourceUrn materialUrn = intermediateFbo != null ? SEPARABLE_BLUR_MATERIAL_URN : BLUR_MATERIAL_URN;
+        addDesiredStateChange(new EnableMaterial(materialUrn));
+        this.blurMaterial = getMaterial(materialUrn);
+
+        addDesiredStateChange(new SetInputTextureFromFbo(0, inputFbo, ColorTexture,
+                displayResolutionDependentFBOs, materialUrn, "tex"));
+    }
+
+    /**
+     * Returns an FBO with the same scale and type as the output one, shared with the other blur nodes,
+     * or null if the output FBO is not managed by the given FBO manager.
+     */
+    private FBO requestIntermediateFbo(DisplayResolutionDependentFbo displayResolutionDependentFBOs) {
+        FboConfig outputFboConfig = displayResolutionDependentFBOs.getFboConfig(outputFbo.getName());
+        if (outputFboConfig == null) {
+            return null;
+        }
+
+        for (ScalingFactors scale : ScalingFactors.values()) {
+            if (scale.getScale() == outputFboConfig.getScale()) {
+                SimpleUri intermediateFboUri = new SimpleUri("engine:fbo.blurIntermediate."
+                        + scale.name().toLowerCase() + "." + outputFboConfig.getType().name().toLowerCase());
+                return requiresFbo(new FboConfig(intermediateFboUri, scale, outputFboConfig.getType()),
+                        displayResolutionDependentFBOs);
+            }
+        }
+        return null;
     }
 
     /**
@@ -67,16 +140,35 @@ public class BlurNode extends ConditionDependentNode {
     public void process() {
         PerformanceMonitor.startActivity("rendering/" + getUri());
 
-        // TODO: these shader-related operations should go in their own StateChange implementations
-        blurMaterial.setFloat("radius", blurRadius, true);
-        blurMaterial.setFloat2("texelSize", 1.0f / outputFbo.width(), 1.0f / outputFbo.height(), true);
-
-        // TODO: binding the color buffer of an FBO should also be done in its own StateChange implementation
-       inputFbo.bindTexture();
-
-        renderQuad.render();
-
-       PerformanceMonitor.endActivity();
+        if (intermediateFbo == null) {
+            blurMaterial.setFloat("radius", blurRadius, true);
+            blurMaterial.setFloat2("texelSize", 1.0f / outputFbo.width(), 1.0f / outputFbo.height(), true);
+
+            renderQuad.render();
+        } else {
+            if (blurRadius != tapsRadius) {
+                tapCount = GaussianKernel.computeLinearTaps(blurRadius, taps);
+                tapsRadius = blurRadius;
+            }
+            blurMaterial.setInt("tapCount", tapCount, true);
+            blurMaterial.setFloat2("taps", taps, true);
+
+            // The input texture is sampled with the texel size of the output, as the single pass blur does.
+            intermediateFbo.bind();
+            blurMaterial.setFloat2("direction", 1.0f / outputFbo.width(), 0.0f, true);
+            renderQuad.render();
+
+            outputFbo.bind();
+            glActiveTexture(GL_TEXTURE0);
+            intermediateFbo.bindTexture();
+            blurMaterial.setFloat2("direction", 0.0f, 1.0f / outputFbo.height(), true);
+            renderQuad.render();
+
+            // Leaves the input texture bound, as expected by the state changes of this node.
+            inputFbo.bindTexture();
+        }
+
+        PerformanceMonitor.endActivity();
     }
 
 }
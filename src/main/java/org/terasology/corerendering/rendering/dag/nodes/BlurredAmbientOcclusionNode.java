@@ -2,6 +2,7 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.corerendering.rendering.dag.nodes;
 
+import org.terasology.corerendering.rendering.utils.TransientFboPool;
 import org.terasology.engine.config.Config;
 import org.terasology.engine.config.RenderingConfig;
 import org.terasology.engine.context.Context;
@@ -9,13 +10,14 @@ import org.terasology.engine.core.SimpleUri;
 import org.terasology.engine.monitoring.PerformanceMonitor;
 import org.terasology.engine.rendering.assets.material.Material;
 import org.terasology.engine.rendering.assets.mesh.Mesh;
+import org.terasology.engine.rendering.cameras.Camera;
 import org.terasology.engine.rendering.dag.ConditionDependentNode;
+import org.terasology.engine.rendering.dag.dependencyConnections.BufferPairConnection;
 import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
 import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
 import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
 import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
 import org.terasology.engine.rendering.opengl.FBO;
-import org.terasology.engine.rendering.opengl.FboConfig;
 import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
 import org.terasology.engine.utilities.Assets;
 import org.terasology.gestalt.assets.ResourceUrn;
@@ -24,17 +26,18 @@ import org.terasology.gestalt.naming.Name;
 import java.beans.PropertyChangeEvent;
 
 import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
-import static org.terasology.engine.rendering.opengl.ScalingFactors.FULL_SCALE;
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.DepthStencilTexture;
 import static org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo.POST_FBO_REGENERATION;
 
 /**
  * Instances of this node work in tandem with instances of the AmbientOcclusionNode class.
  * Together they constitute an ambient occlusion pass.
  *
- * This particular node blurs the ambient occlusion output produced by the AmbientOcclusionNode,
- * making it softer and more subtle. At this stage only the output of this node is used to enhance
- * the image eventually shown on screen to the user. It is currently not possible to use the (sharper)
- * output of the AmbientOcclusionNode alone, i.e. to have lower quality but faster ambient occlusion.
+ * This particular node brings the ambient occlusion, already blurred by a pair of AmbientOcclusionBlurNode
+ * instances at the resolution it was computed at, back to full resolution. It does so with a joint bilateral
+ * upsample: the low resolution samples are weighted by how close their depth is to the depth of the output pixel,
+ * so that the occlusion doesn't leak across depth discontinuities. The AdvancedRenderingModule only uses it when
+ * the occlusion is computed below full resolution; at the same resolution the input is copied as is.
  *
  * Ambient occlusion is a subtle visual effect that makes the rendering of the world more pleasing
  * at the cost of some additional milliseconds per frame. Disabling it may lead to increased frame
@@ -48,9 +51,12 @@ public class BlurredAmbientOcclusionNode extends ConditionDependentNode {
 
     private Material ssaoBlurredMaterial;
     private Mesh renderQuad;
-    private float outputFboWidth;
-    private float outputFboHeight;
+    private Camera activeCamera;
+    private float inputFboWidth;
+    private float inputFboHeight;
+    private boolean upsampleIsEnabled;
 
+    private FBO ssaoFbo;
     private FBO ssaoBlurredFbo;
 
     public BlurredAmbientOcclusionNode(String nodeUri, Name providingModule, Context context) {
@@ -61,6 +67,8 @@ public class BlurredAmbientOcclusionNode extends ConditionDependentNode {
         requiresCondition(renderingConfig::isSsao);
         addOutputFboConnection(1);
 
+        activeCamera = worldRenderer.getActiveCamera();
+
         this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
                 .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
     }
@@ -72,17 +80,28 @@ public class BlurredAmbientOcclusionNode extends ConditionDependentNode {
 
         DisplayResolutionDependentFbo displayResolutionDependentFBOs = context.get(DisplayResolutionDependentFbo.class);
 
-        ssaoBlurredFbo = requiresFbo(new FboConfig(SSAO_BLURRED_FBO_URI, FULL_SCALE, FBO.Type.DEFAULT), displayResolutionDependentFBOs);
+        ssaoBlurredFbo = requiresFbo(context.get(TransientFboPool.class).getFboConfig(SSAO_BLURRED_FBO_URI),
+                displayResolutionDependentFBOs);
         addOutputFboConnection(1, ssaoBlurredFbo);
         addDesiredStateChange(new BindFbo(ssaoBlurredFbo));
         addDesiredStateChange(new SetViewportToSizeOf(ssaoBlurredFbo));
         displayResolutionDependentFBOs.subscribe(POST_FBO_REGENERATION, this);
 
+        ssaoFbo = this.getInputFboData(1);
         retrieveFboDimensions();
 
         // DisplayResolutionDependentFbo displayResolutionDependentFBOs = context.get(DisplayResolutionDependentFbo.class);
-        addDesiredStateChange(new SetInputTextureFromFbo(0, this.getInputFboData(1), ColorTexture,
+        addDesiredStateChange(new SetInputTextureFromFbo(0, ssaoFbo, ColorTexture,
                 displayResolutionDependentFBOs, SSAO_BLURRED_MATERIAL_URN, "tex"));
+
+        // The FBO sizes only change proportionally on regeneration, so this can be decided once.
+        upsampleIsEnabled = ssaoFbo.width() != ssaoBlurredFbo.width() || ssaoFbo.height() != ssaoBlurredFbo.height();
+        if (upsampleIsEnabled) {
+            BufferPairConnection bufferPairConnection = getInputBufferPairConnection(1);
+            FBO lastUpdatedGBuffer = bufferPairConnection.getBufferPair().getPrimaryFbo();
+            addDesiredStateChange(new SetInputTextureFromFbo(1, lastUpdatedGBuffer, DepthStencilTexture,
+                    displayResolutionDependentFBOs, SSAO_BLURRED_MATERIAL_URN, "texDepth"));
+        }
     }
 
     /**
@@ -96,7 +115,12 @@ public class BlurredAmbientOcclusionNode extends ConditionDependentNode {
     public void process() {
         PerformanceMonitor.startActivity("rendering/" + getUri());
 
-        ssaoBlurredMaterial.setFloat2("texelSize", 1.0f / outputFboWidth, 1.0f / outputFboHeight, true);
+        ssaoBlurredMaterial.setFloat2("inputTexelSize", 1.0f / inputFboWidth, 1.0f / inputFboHeight, true);
+        ssaoBlurredMaterial.setFloat("upsample", upsampleIsEnabled ? 1.0f : 0.0f, true);
+        if (upsampleIsEnabled) {
+            // Needed by linDepth(), to compare the depths of the low resolution samples with the depth of the fragment
+            ssaoBlurredMaterial.setFloat3("cameraParameters", activeCamera.getzNear(), activeCamera.getzFar(), 0.0f, true);
+        }
 
         this.renderQuad.render();
 
@@ -121,7 +145,7 @@ public class BlurredAmbientOcclusionNode extends ConditionDependentNode {
     }
 
     private void retrieveFboDimensions() {
-        outputFboWidth = ssaoBlurredFbo.width();
-        outputFboHeight = ssaoBlurredFbo.height();
+        inputFboWidth = ssaoFbo.width();
+        inputFboHeight = ssaoFbo.height();
     }
 }
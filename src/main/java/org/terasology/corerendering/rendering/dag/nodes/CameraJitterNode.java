@@ -0,0 +1,131 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.joml.Matrix4f;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.cameras.Camera;
+import org.terasology.engine.rendering.dag.AbstractNode;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
+import org.terasology.gestalt.naming.Name;
+
+/**
+ * Shifts the projection of the active camera by a different sub-pixel offset each frame, following a Halton sequence,
+ * for the TemporalAntiAliasingNode to accumulate.
+ *
+ * This node doesn't render anything: it is meant to run before any node rendering the scene. The offset is applied
+ * to the projection and view-projection matrices of the camera and to their inverses, in place. If the camera didn't
+ * recompute them since the previous frame, the previous offset is removed first, so that offsets never add up.
+ *
+ * The view-projection matrices of the current and of the previous frame are also kept without the offset, for the
+ * TemporalAntiAliasingNode and the TemporalAmbientOcclusionNode to reproject their history with: reprojecting with the offset matrices would shift the
+ * history by the difference between two successive offsets, blurring it a little more each frame.
+ */
+public class CameraJitterNode extends AbstractNode {
+    private static final int JITTER_SAMPLES = 8;
+
+    private DisplayResolutionDependentFbo displayResolutionDependentFbo;
+    private Camera activeCamera;
+
+    private int sampleIndex;
+    private float jitterX;
+    private float jitterY;
+    private final Matrix4f jitteredProjectionMatrix = new Matrix4f();
+    private final Matrix4f jitterMatrix = new Matrix4f();
+    private final Matrix4f viewProjectionMatrix = new Matrix4f();
+    private final Matrix4f inverseViewProjectionMatrix = new Matrix4f();
+    private final Matrix4f previousViewProjectionMatrix = new Matrix4f();
+    private boolean hasPreviousFrame;
+
+    public CameraJitterNode(String nodeUri, Name providingModule, Context context) {
+        super(nodeUri, providingModule, context);
+
+        displayResolutionDependentFbo = context.get(DisplayResolutionDependentFbo.class);
+        activeCamera = worldRenderer.getActiveCamera();
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+    }
+
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        // The jitter is relative to the size of the full scale FBOs, the scene is rendered at
+        FBO sceneFbo = displayResolutionDependentFbo.get(TemporalAntiAliasingNode.TAA_ACCUMULATED_FBO_URI);
+        if (sceneFbo != null) {
+            if (activeCamera.getProjectionMatrix().equals(jitteredProjectionMatrix)) {
+                applyJitter(-jitterX, -jitterY);
+            }
+
+            if (hasPreviousFrame) {
+                previousViewProjectionMatrix.set(viewProjectionMatrix);
+            } else {
+                previousViewProjectionMatrix.set(activeCamera.getViewProjectionMatrix());
+                hasPreviousFrame = true;
+            }
+            viewProjectionMatrix.set(activeCamera.getViewProjectionMatrix());
+            viewProjectionMatrix.invert(inverseViewProjectionMatrix);
+
+            sampleIndex = sampleIndex % JITTER_SAMPLES + 1;
+            jitterX = (halton(sampleIndex, 2) - 0.5f) * 2.0f / sceneFbo.width();
+            jitterY = (halton(sampleIndex, 3) - 0.5f) * 2.0f / sceneFbo.height();
+            applyJitter(jitterX, jitterY);
+
+            jitteredProjectionMatrix.set(activeCamera.getProjectionMatrix());
+        }
+
+        PerformanceMonitor.endActivity();
+    }
+
+    /**
+     * Returns the view-projection matrix of the active camera for the current frame, without the sub-pixel offset.
+     */
+    public Matrix4f getViewProjectionMatrix() {
+        return viewProjectionMatrix;
+    }
+
+    /**
+     * Returns the inverse of getViewProjectionMatrix().
+     */
+    public Matrix4f getInverseViewProjectionMatrix() {
+        return inverseViewProjectionMatrix;
+    }
+
+    /**
+     * Returns the view-projection matrix of the active camera for the previous frame, without the sub-pixel offset.
+     */
+    public Matrix4f getPreviousViewProjectionMatrix() {
+        return previousViewProjectionMatrix;
+    }
+
+    /**
+     * Translates the clip space of the camera by the given offset, in normalized device coordinates.
+     */
+    private void applyJitter(float x, float y) {
+        jitterMatrix.translation(x, y, 0.0f);
+        activeCamera.getProjectionMatrix().mulLocal(jitterMatrix);
+        activeCamera.getViewProjectionMatrix().mulLocal(jitterMatrix);
+
+        jitterMatrix.translation(-x, -y, 0.0f);
+        activeCamera.getInverseProjectionMatrix().mul(jitterMatrix);
+        activeCamera.getInverseViewProjectionMatrix().mul(jitterMatrix);
+    }
+
+    /**
+     * Returns the element of the Halton sequence of the given base at the given index, in [0, 1).
+     */
+    private static float halton(int index, int base) {
+        float result = 0.0f;
+        float fraction = 1.0f;
+        while (index > 0) {
+            fraction /= base;
+            result += fraction * (index % base);
+            index /= base;
+        }
+        return result;
+    }
+}
@@ -4,6 +4,7 @@ package org.terasology.corerendering.rendering.dag.nodes;
 
 import org.joml.Vector3f;
 import org.terasology.corerendering.rendering.CoreRenderingModule;
+import org.terasology.corerendering.rendering.utils.CameraEnvironmentSnapshot;
 import org.terasology.engine.config.Config;
 import org.terasology.engine.config.RenderingConfig;
 import org.terasology.engine.context.Context;
@@ -12,7 +13,6 @@ import org.terasology.engine.monitoring.PerformanceMonitor;
 import org.terasology.engine.rendering.assets.material.Material;
 import org.terasology.engine.rendering.assets.mesh.Mesh;
 import org.terasology.engine.rendering.assets.shader.ShaderProgramFeature;
-import org.terasology.engine.rendering.backdrop.BackdropProvider;
 import org.terasology.engine.rendering.cameras.Camera;
 import org.terasology.engine.rendering.dag.AbstractNode;
 import org.terasology.engine.rendering.dag.dependencyConnections.BufferPairConnection;
@@ -30,7 +30,6 @@ import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo
 import org.terasology.engine.rendering.opengl.fbms.ShadowMapResolutionDependentFbo;
 import org.terasology.engine.rendering.world.WorldRenderer;
 import org.terasology.engine.utilities.Assets;
-import org.terasology.engine.world.WorldProvider;
 import org.terasology.gestalt.assets.ResourceUrn;
 import org.terasology.gestalt.naming.Name;
 
@@ -56,9 +55,8 @@ import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFr
 public class DeferredMainLightNode extends AbstractNode {
     private static final ResourceUrn LIGHT_GEOMETRY_MATERIAL_URN = new ResourceUrn("CoreRendering:lightGeometryPass");
 
-    private BackdropProvider backdropProvider;
+    private CameraEnvironmentSnapshot cameraEnvironment;
     private RenderingConfig renderingConfig;
-    private WorldProvider worldProvider;
     private CoreRenderingModule coreRendering;
 
     private LightComponent mainLightComponent = new LightComponent();
@@ -79,9 +77,8 @@ public class DeferredMainLightNode extends AbstractNode {
     public DeferredMainLightNode(String nodeUri, Name providingModule, Context context) {
         super(nodeUri, providingModule, context);
 
-        backdropProvider = context.get(BackdropProvider.class);
+        cameraEnvironment = context.get(CameraEnvironmentSnapshot.class);
         renderingConfig = context.get(Config.class).getRendering();
-        worldProvider = context.get(WorldProvider.class);
         coreRendering = ((CoreRenderingModule) context.get(RenderingModuleRegistry.class)
                 .getModuleRenderingByClass(CoreRenderingModule.class));
 
@@ -153,12 +150,12 @@ public class DeferredMainLightNode extends AbstractNode {
 
         // Common Shader Parameters
 
-        lightGeometryMaterial.setFloat("daylight", backdropProvider.getDaylight(), true);
+        lightGeometryMaterial.setFloat("daylight", cameraEnvironment.getDaylight(), true);
 
         // Specific Shader Parameters
 
         cameraPosition = activeCamera.getPosition();
-        mainLightInViewSpace = backdropProvider.getSunDirection(true);
+        mainLightInViewSpace.set(cameraEnvironment.getSunDirection(true));
         activeCamera.getViewMatrix().transformPosition(mainLightInViewSpace);
 
         // TODO: This is necessary right now because activateFeature removes all material parameters.
@@ -170,7 +167,7 @@ public class DeferredMainLightNode extends AbstractNode {
             lightGeometryMaterial.setInt("texSceneShadowMap", 3, true);
             if (renderingConfig.isCloudShadows()) {
                 lightGeometryMaterial.setInt("texSceneClouds", 4, true);
-                lightGeometryMaterial.setFloat("time", worldProvider.getTime().getDays(), true);
+                lightGeometryMaterial.setFloat("time", cameraEnvironment.getDays(), true);
                 lightGeometryMaterial.setFloat3("cameraPosition", cameraPosition, true);
             }
         }
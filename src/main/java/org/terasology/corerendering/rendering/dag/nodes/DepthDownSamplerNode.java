@@ -0,0 +1,75 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.terasology.engine.context.Context;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.assets.mesh.Mesh;
+import org.terasology.engine.rendering.dag.AbstractNode;
+import org.terasology.engine.rendering.dag.dependencyConnections.BufferPairConnection;
+import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
+import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
+import org.terasology.engine.rendering.dag.stateChanges.SetFboWriteMask;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
+import org.terasology.engine.utilities.Assets;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.naming.Name;
+
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.DepthStencilTexture;
+
+/**
+ * Instances of this class copy the depth of the last updated gBuffer into the depth buffer of a smaller FBO,
+ * point-sampling it, so that geometry rendered into the smaller FBO is still occluded by the opaque scene.
+ *
+ * The input FBO must have a depth buffer of its own. Its color attachments are left untouched.
+ */
+public class DepthDownSamplerNode extends AbstractNode {
+    private static final ResourceUrn DEPTH_DOWN_SAMPLER_MATERIAL_URN = new ResourceUrn("CoreRendering:depthDownSampler");
+
+    private Mesh renderQuad;
+
+    public DepthDownSamplerNode(String nodeUri, Name providingModule, Context context) {
+        super(nodeUri, providingModule, context);
+
+        addOutputFboConnection(1);
+        addOutputBufferPairConnection(1);
+
+        this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
+                .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+        BufferPairConnection bufferPairConnection = getInputBufferPairConnection(1);
+        FBO lastUpdatedGBuffer = bufferPairConnection.getBufferPair().getPrimaryFbo();
+        addOutputBufferPairConnection(1, bufferPairConnection);
+
+        FBO outputFbo = getInputFboData(1);
+        addOutputFboConnection(1, outputFbo);
+
+        addDesiredStateChange(new BindFbo(outputFbo));
+        addDesiredStateChange(new SetViewportToSizeOf(outputFbo));
+        addDesiredStateChange(new SetFboWriteMask(outputFbo, false, false, false));
+        addDesiredStateChange(new EnableMaterial(DEPTH_DOWN_SAMPLER_MATERIAL_URN));
+
+        DisplayResolutionDependentFbo displayResolutionDependentFbo = context.get(DisplayResolutionDependentFbo.class);
+        addDesiredStateChange(new SetInputTextureFromFbo(0, lastUpdatedGBuffer, DepthStencilTexture,
+                displayResolutionDependentFbo, DEPTH_DOWN_SAMPLER_MATERIAL_URN, "texDepth"));
+    }
+
+    /**
+     * Renders a full-screen quad whose fragments take the depth of the gBuffer at the same location.
+     * The output FBO is expected to have been cleared, so that every fragment passes the depth test.
+     */
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        renderQuad.render();
+
+        PerformanceMonitor.endActivity();
+    }
+}
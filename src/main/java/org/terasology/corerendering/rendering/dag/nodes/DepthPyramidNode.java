@@ -0,0 +1,87 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.assets.material.Material;
+import org.terasology.engine.rendering.assets.mesh.Mesh;
+import org.terasology.engine.rendering.dag.ConditionDependentNode;
+import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
+import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
+import org.terasology.engine.utilities.Assets;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.naming.Name;
+
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
+
+/**
+ * A DepthPyramidNode builds one level of the min/max linear depth pyramid, reducing the level held by the input FBO
+ * into the smaller output FBO. The red channel of each output texel holds the minimum and the green channel the
+ * maximum of the linear depth over the input texels it covers.
+ *
+ * The first level of the pyramid is the output of the LinearDepthNode.
+ */
+public class DepthPyramidNode extends ConditionDependentNode {
+    public static final SimpleUri HALF_SCALE_FBO_URI = new SimpleUri("engine:fbo.halfScaleDepthPyramid");
+    public static final SimpleUri QUARTER_SCALE_FBO_URI = new SimpleUri("engine:fbo.quarterScaleDepthPyramid");
+    public static final SimpleUri ONE_8TH_SCALE_FBO_URI = new SimpleUri("engine:fbo.one8thScaleDepthPyramid");
+    private static final ResourceUrn DEPTH_PYRAMID_MATERIAL_URN = new ResourceUrn("CoreRendering:depthPyramid");
+
+    private Material depthPyramidMaterial;
+    private FBO outputFbo;
+    private Mesh renderQuad;
+
+    /**
+     * Constructs a DepthPyramidNode instance.
+     *
+     * @param outputFbo The output fbo, to store the reduced level. It must be smaller than the input fbo.
+     */
+    public DepthPyramidNode(String nodeUri, Name providingModule, Context context, FBO outputFbo) {
+        super(nodeUri, providingModule, context);
+
+        this.outputFbo = outputFbo;
+
+        RenderingConfig renderingConfig = context.get(Config.class).getRendering();
+        renderingConfig.subscribe(RenderingConfig.SSAO, this);
+        requiresCondition(renderingConfig::isSsao);
+        addOutputFboConnection(1);
+
+        this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
+                .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+        addOutputFboConnection(1, outputFbo);
+        addDesiredStateChange(new BindFbo(outputFbo));
+        addDesiredStateChange(new SetViewportToSizeOf(outputFbo));
+        addDesiredStateChange(new EnableMaterial(DEPTH_PYRAMID_MATERIAL_URN));
+        depthPyramidMaterial = getMaterial(DEPTH_PYRAMID_MATERIAL_URN);
+
+        DisplayResolutionDependentFbo displayResolutionDependentFBOs = context.get(DisplayResolutionDependentFbo.class);
+        addDesiredStateChange(new SetInputTextureFromFbo(0, this.getInputFboData(1), ColorTexture,
+                displayResolutionDependentFBOs, DEPTH_PYRAMID_MATERIAL_URN, "tex"));
+    }
+
+    /**
+     * Renders a full-screen quad, each fragment reducing the input texels it covers.
+     */
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        depthPyramidMaterial.setFloat2("outputSize", outputFbo.width(), outputFbo.height(), true);
+
+        renderQuad.render();
+
+        PerformanceMonitor.endActivity();
+    }
+}
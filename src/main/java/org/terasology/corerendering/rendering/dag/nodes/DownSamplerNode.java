@@ -2,7 +2,9 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.corerendering.rendering.dag.nodes;
 
+import org.terasology.corerendering.rendering.utils.TransientFboPool;
 import org.terasology.engine.context.Context;
+import org.terasology.engine.core.SimpleUri;
 import org.terasology.engine.monitoring.PerformanceMonitor;
 import org.terasology.engine.rendering.assets.material.Material;
 import org.terasology.engine.rendering.assets.mesh.Mesh;
@@ -28,6 +30,9 @@ public class DownSamplerNode extends ConditionDependentNode {
     private static final String TEXTURE_NAME = "tex";
     private static final ResourceUrn DOWN_SAMPLER_MATERIAL_URN = new ResourceUrn("CoreRendering:downSampler");
 
+    private FboConfig outputFboConfig;
+    private SimpleUri outputFboUri;
+    private BaseFboManager outputFboManager;
     private FBO outputFbo;
     private Material downSampler;
     private BaseFboManager inputFboManager;
@@ -49,13 +54,28 @@ public class DownSamplerNode extends ConditionDependentNode {
         // TODO get rid of this? why load input fbo from dependency when I still need this
         this.inputFboManager = inputFboManager;
         addOutputFboConnection(1);
-        outputFbo = requiresFbo(outputFboConfig, outputFboManager);
-
+        this.outputFboConfig = outputFboConfig;
+        this.outputFboManager = outputFboManager;
 
         this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
                 .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
     }
 
+    /**
+     * Constructs the DownSamplerNode instance, with an output FBO taken from the TransientFboPool.
+     *
+     * @param inputFboManager the FBO manager from which to retrieve the input FBO
+     * @param outputFboUri the uri the output FBO was requested from the TransientFboPool with
+     * @param outputFboManager the FBO manager from which to retrieve the output FBO, matching the request
+     */
+    public DownSamplerNode(String nodeUri, Context context, Name providingModule,
+                           BaseFboManager inputFboManager,
+                           SimpleUri outputFboUri, BaseFboManager outputFboManager) {
+        this(nodeUri, context, providingModule, inputFboManager, (FboConfig) null, outputFboManager);
+
+        this.outputFboUri = outputFboUri;
+    }
+
     /**
      * Processes the input FBO downsampling its color attachment into the color attachment of the output FBO.
      */
@@ -72,6 +92,11 @@ public class DownSamplerNode extends ConditionDependentNode {
 
     @Override
     public void setDependencies(Context context) {
+        if (outputFboUri != null) {
+            outputFboConfig = context.get(TransientFboPool.class).getFboConfig(outputFboUri);
+        }
+        outputFbo = requiresFbo(outputFboConfig, outputFboManager);
+
         addOutputFboConnection(1, outputFbo);
         addDesiredStateChange(new BindFbo(outputFbo));
         addDesiredStateChange(new SetViewportToSizeOf(outputFbo));
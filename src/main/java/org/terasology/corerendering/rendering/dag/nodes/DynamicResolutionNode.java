@@ -0,0 +1,215 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.terasology.corerendering.rendering.CoreRenderingConfig;
+import org.terasology.corerendering.rendering.utils.GpuTimer;
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.dag.AbstractNode;
+import org.terasology.gestalt.naming.Name;
+import org.terasology.math.TeraMath;
+import org.terasology.nui.properties.Range;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+/**
+ * Keeps the GPU time of the render graph close to a target, by lowering the resolution of the display resolution
+ * dependent FBOs when the frame takes too long and raising it back when there is room for it.
+ *
+ * Two instances of this node are used: the first one runs before any other node and starts the measurement,
+ * the second one runs after the output to the screen, ends the measurement and adjusts the FBO scale of the
+ * RenderingConfig. The OutputToScreenNode already stretches the final buffer over the whole display, whatever its size.
+ *
+ * Changing the scale regenerates every display resolution dependent FBO, and with them the histories of the temporal
+ * nodes: the TemporalAntiAliasingNode, the TemporalAmbientOcclusionNode and the reused output of the LateBlurNodes
+ * restart from the current frame, which briefly shows as aliasing, noisier occlusion or a blur refresh. The scale is
+ * therefore changed in steps of SCALE_STEP percents, only once the frame time stayed out of its bounds for a while,
+ * and at most once every MIN_FRAMES_BETWEEN_CHANGES frames. Lowering the scale reacts faster than raising it, so that
+ * a heavy scene degrades quickly and the resolution doesn't oscillate.
+ *
+ * The FBO scale of the RenderingConfig is the only way to resize those FBOs, but it is also the setting chosen by
+ * the user. The second node therefore remembers the scale the user chose, follows it if the user changes it, and
+ * restores it when dynamic resolution is turned off or the node is disposed. Once turned off, the GPU time is no
+ * longer measured either.
+ */
+public class DynamicResolutionNode extends AbstractNode implements PropertyChangeListener {
+    private static final int SCALE_STEP = 25;
+    // Number of consecutive frames over or under the target before the scale changes.
+    private static final int SCALE_DOWN_FRAMES = 20;
+    private static final int SCALE_UP_FRAMES = 120;
+    // Each change resets the temporal histories: a steadily changing load gets at most one every few seconds.
+    private static final int MIN_FRAMES_BETWEEN_CHANGES = 300;
+    private static final float GPU_TIME_SMOOTHING = 0.1f;
+
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 4.0f, max = 50.0f)
+    private float targetFrameMilliseconds = 16.0f;
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 25.0f, max = 100.0f)
+    private float minimumScale = 50.0f;
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 25.0f, max = 200.0f)
+    private float maximumScale = 100.0f;
+
+    private final DynamicResolutionNode frameStartNode;
+    private final RenderingConfig renderingConfig;
+    private final CoreRenderingConfig coreRenderingConfig;
+
+    private GpuTimer gpuTimer;
+    private boolean measuring;
+    private int userScale;
+    private int dynamicScale;
+    private boolean applyingScale;
+    private boolean active = true;
+    private float averageGpuMilliseconds = -1.0f;
+    private int framesOverTarget;
+    private int framesUnderTarget;
+    private int framesSinceChange = MIN_FRAMES_BETWEEN_CHANGES;
+
+    /**
+     * @param frameStartNode null for the node starting the measurement, or that node for the one ending it.
+     */
+    public DynamicResolutionNode(String nodeUri, Name providingModule, Context context,
+                                 DynamicResolutionNode frameStartNode) {
+        super(nodeUri, providingModule, context);
+
+        this.frameStartNode = frameStartNode;
+        renderingConfig = context.get(Config.class).getRendering();
+        coreRenderingConfig = context.get(CoreRenderingConfig.class);
+
+        if (frameStartNode != null) {
+            userScale = renderingConfig.getFboScale();
+            dynamicScale = userScale;
+            renderingConfig.subscribe(RenderingConfig.FBO_SCALE, this);
+            coreRenderingConfig.subscribe(CoreRenderingConfig.DYNAMIC_RESOLUTION, this);
+        }
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+    }
+
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        if (frameStartNode == null) {
+            // The second node ends the measurement whenever this node started it, even if turned off in between
+            measuring = coreRenderingConfig.isDynamicResolution();
+            if (measuring) {
+                if (gpuTimer == null) {
+                    gpuTimer = new GpuTimer();
+                }
+                gpuTimer.begin();
+            }
+        } else if (frameStartNode.measuring) {
+            frameStartNode.gpuTimer.end();
+            if (active) {
+                updateScale(frameStartNode.gpuTimer.getLastMilliseconds());
+            }
+        }
+
+        PerformanceMonitor.endActivity();
+    }
+
+    private void updateScale(float gpuMilliseconds) {
+        if (gpuMilliseconds < 0) {
+            return;
+        }
+
+        averageGpuMilliseconds = averageGpuMilliseconds < 0 ? gpuMilliseconds
+                : TeraMath.lerp(averageGpuMilliseconds, gpuMilliseconds, GPU_TIME_SMOOTHING);
+        if (framesSinceChange < MIN_FRAMES_BETWEEN_CHANGES) {
+            framesSinceChange++;
+        }
+
+        int scale = dynamicScale;
+        int newScale = scale;
+        // The cost grows with the number of pixels: only go up if the frame is expected to stay within the target
+        float upscaledRatio = (float) (scale + SCALE_STEP) / scale;
+        float upscaledGpuMilliseconds = averageGpuMilliseconds * upscaledRatio * upscaledRatio;
+        if (averageGpuMilliseconds > targetFrameMilliseconds) {
+            framesUnderTarget = 0;
+            // The bounds only stop a step: a scale already beyond them is never moved the wrong way
+            if (++framesOverTarget >= SCALE_DOWN_FRAMES && scale > minimumScale) {
+                newScale = Math.max(scale - SCALE_STEP, (int) minimumScale);
+            }
+        } else if (upscaledGpuMilliseconds < targetFrameMilliseconds * 0.9f) {
+            framesOverTarget = 0;
+            if (++framesUnderTarget >= SCALE_UP_FRAMES && scale < maximumScale) {
+                newScale = Math.min(scale + SCALE_STEP, (int) maximumScale);
+            }
+        } else {
+            framesOverTarget = 0;
+            framesUnderTarget = 0;
+        }
+
+        if (newScale != scale && framesSinceChange >= MIN_FRAMES_BETWEEN_CHANGES) {
+            applyScale(newScale);
+            framesSinceChange = 0;
+        }
+    }
+
+    private void applyScale(int scale) {
+        dynamicScale = scale;
+        applyingScale = true;
+        renderingConfig.setFboScale(scale);
+        applyingScale = false;
+
+        // Measurements taken at the previous scale are no longer relevant, including those still in flight
+        averageGpuMilliseconds = -1.0f;
+        if (frameStartNode.gpuTimer != null) {
+            frameStartNode.gpuTimer.discardResults();
+        }
+        framesOverTarget = 0;
+        framesUnderTarget = 0;
+    }
+
+    private void restoreUserScale() {
+        if (active && dynamicScale != userScale) {
+            applyScale(userScale);
+        }
+        active = false;
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        String propertyName = event.getPropertyName();
+
+        switch (propertyName) {
+            case RenderingConfig.FBO_SCALE:
+                if (active && !applyingScale) {
+                    // Changed by the user: it becomes both the current scale and the one to restore
+                    userScale = renderingConfig.getFboScale();
+                    dynamicScale = userScale;
+                    averageGpuMilliseconds = -1.0f;
+                    framesOverTarget = 0;
+                    framesUnderTarget = 0;
+                }
+                break;
+
+            case CoreRenderingConfig.DYNAMIC_RESOLUTION:
+                if (!(Boolean) event.getNewValue()) {
+                    restoreUserScale();
+                }
+                break;
+
+            // default: no other cases are possible - see subscribe operations in the constructor.
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (frameStartNode != null) {
+            restoreUserScale();
+        } else if (gpuTimer != null) {
+            gpuTimer.dispose();
+            gpuTimer = null;
+        }
+        super.dispose();
+    }
+}
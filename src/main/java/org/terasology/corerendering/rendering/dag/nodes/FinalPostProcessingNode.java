@@ -27,7 +27,6 @@ import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
 import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
 import org.terasology.engine.rendering.opengl.FBO;
 import org.terasology.engine.rendering.opengl.FboConfig;
-import org.terasology.engine.rendering.opengl.ScreenGrabber;
 import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
 import org.terasology.engine.rendering.world.WorldRenderer;
 import org.terasology.engine.utilities.Assets;
@@ -43,8 +42,8 @@ import static org.terasology.engine.rendering.opengl.ScalingFactors.FULL_SCALE;
 
 /**
  * An instance of this class adds depth of field blur, motion blur and film grain to the rendering
- * of the scene obtained so far. Furthermore, depending if a screenshot has been requested,
- * it instructs the ScreenGrabber to save it to a file.
+ * of the scene obtained so far. Screenshots requested through the ScreenGrabber are saved from its output by the
+ * FrameCaptureNode.
  * <p>
  * If RenderingDebugConfig.isEnabled() returns true, this node is instead responsible for displaying
  * the content of a number of technical buffers rather than the final, post-processed rendering
@@ -57,7 +56,6 @@ public class FinalPostProcessingNode extends AbstractNode implements PropertyCha
 
     private final WorldRenderer worldRenderer;
     private final RenderingConfig renderingConfig;
-    private final ScreenGrabber screenGrabber;
 
     private final Material postMaterial;
 
@@ -85,7 +83,6 @@ public class FinalPostProcessingNode extends AbstractNode implements PropertyCha
 
         worldRenderer = context.get(WorldRenderer.class);
         activeCamera = worldRenderer.getActiveCamera();
-        screenGrabber = context.get(ScreenGrabber.class);
         cameraTargetSystem = context.get(CameraTargetSystem.class);
 
         postMaterial = getMaterial(POST_MATERIAL_URN);
@@ -174,10 +171,6 @@ public class FinalPostProcessingNode extends AbstractNode implements PropertyCha
 
         this.renderQuad.render();
 
-        if (screenGrabber.isTakingScreenshot()) {
-            screenGrabber.saveScreenshot();
-        }
-
         PerformanceMonitor.endActivity();
     }
 
@@ -0,0 +1,160 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.corerendering.rendering.utils.AsyncFrameCapture;
+import org.terasology.corerendering.rendering.utils.GpuReadbackService;
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.core.PathManager;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.dag.AbstractNode;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.ScreenGrabber;
+import org.terasology.gestalt.naming.Name;
+
+import java.lang.reflect.Field;
+
+/**
+ * Saves the final, post-processed rendering of the scene to PNG files in the screenshot directory, reading it back
+ * asynchronously through an AsyncFrameCapture so that the rendering never waits for it.
+ *
+ * The final FBO is expected as input FBO 1. Captures are controlled through node commands:
+ * "screenshot" captures the next frame, "startCapture [framesPerSecond]" captures frames continuously,
+ * at 30 frames per second by default, and "stopCapture" ends a continuous capture.
+ *
+ * Screenshots requested through the ScreenGrabber are taken the same way, in the format set by
+ * RenderingConfig.getScreenshotFormat() and in the same directory. The ScreenGrabber only ends a request within
+ * saveScreenshot(), which reads the final FBO back synchronously, so this node ends it by resetting its flag instead.
+ * If the flag can't be found, or if the request is for a game preview, whose location the ScreenGrabber doesn't
+ * expose, the screenshot falls back to saveScreenshot().
+ */
+public class FrameCaptureNode extends AbstractNode {
+    private static final Logger logger = LoggerFactory.getLogger(FrameCaptureNode.class);
+    private static final float DEFAULT_CAPTURE_FRAMES_PER_SECOND = 30.0f;
+    private static final Field TAKING_SCREENSHOT_FIELD = findScreenGrabberField("isTakingScreenshot");
+    private static final Field SAVING_GAME_PREVIEW_FIELD = findScreenGrabberField("savingGamePreview");
+
+    private GpuReadbackService readbackService;
+    private ScreenGrabber screenGrabber;
+    private RenderingConfig renderingConfig;
+    private AsyncFrameCapture frameCapture;
+    private FBO finalFbo;
+
+    public FrameCaptureNode(String nodeUri, Name providingModule, Context context) {
+        super(nodeUri, providingModule, context);
+
+        readbackService = context.get(GpuReadbackService.class);
+        screenGrabber = context.get(ScreenGrabber.class);
+        renderingConfig = context.get(Config.class).getRendering();
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+        finalFbo = getInputFboData(1);
+    }
+
+    @Override
+    public void process() {
+        if (frameCapture == null && !screenGrabber.isTakingScreenshot()) {
+            return;
+        }
+
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        if (screenGrabber.isTakingScreenshot()) {
+            if (canEndScreenshotRequest()) {
+                getFrameCapture().requestScreenshot(renderingConfig.getScreenshotFormat());
+                endScreenshotRequest();
+            } else {
+                screenGrabber.saveScreenshot();
+            }
+        }
+
+        if (frameCapture != null) {
+            frameCapture.update(finalFbo);
+        }
+
+        PerformanceMonitor.endActivity();
+    }
+
+    @Override
+    public void handleCommand(String command, String... arguments) {
+        switch (command) {
+            case "screenshot":
+                getFrameCapture().requestCapture();
+                break;
+
+            case "startCapture":
+                if (arguments.length > 1) {
+                    throw new RuntimeException("Invalid number of arguments; expected 0 or 1, received " + arguments.length + "!");
+                }
+                float framesPerSecond = arguments.length == 1 ? Float.parseFloat(arguments[0]) : DEFAULT_CAPTURE_FRAMES_PER_SECOND;
+                if (framesPerSecond <= 0) {
+                    throw new RuntimeException("The capture rate must be positive, received " + framesPerSecond + "!");
+                }
+                getFrameCapture().startContinuousCapture(framesPerSecond);
+                break;
+
+            case "stopCapture":
+                if (frameCapture != null && frameCapture.isCapturingContinuously()) {
+                    frameCapture.stopContinuousCapture();
+                }
+                break;
+
+            default:
+                throw new RuntimeException("Unrecognized command: '" + command + "'");
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (frameCapture != null) {
+            frameCapture.dispose();
+            frameCapture = null;
+        }
+        super.dispose();
+    }
+
+    private boolean canEndScreenshotRequest() {
+        if (TAKING_SCREENSHOT_FIELD == null || SAVING_GAME_PREVIEW_FIELD == null) {
+            return false;
+        }
+        try {
+            return !SAVING_GAME_PREVIEW_FIELD.getBoolean(screenGrabber);
+        } catch (IllegalAccessException e) {
+            return false;
+        }
+    }
+
+    private void endScreenshotRequest() {
+        try {
+            TAKING_SCREENSHOT_FIELD.setBoolean(screenGrabber, false);
+        } catch (IllegalAccessException e) {
+            // Can't happen, the field was made accessible when found
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Field findScreenGrabberField(String name) {
+        try {
+            Field field = ScreenGrabber.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("ScreenGrabber.{} not found, screenshots will be read back synchronously", name);
+            return null;
+        }
+    }
+
+    private AsyncFrameCapture getFrameCapture() {
+        // Created on first use, as it starts its encoder threads upfront
+        if (frameCapture == null) {
+            frameCapture = new AsyncFrameCapture(PathManager.getInstance().getScreenshotPath(), readbackService);
+        }
+        return frameCapture;
+    }
+}
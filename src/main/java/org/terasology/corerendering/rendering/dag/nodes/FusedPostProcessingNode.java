@@ -0,0 +1,257 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.joml.Vector3f;
+import org.terasology.corerendering.rendering.CoreRenderingConfig;
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.assets.material.Material;
+import org.terasology.engine.rendering.assets.mesh.Mesh;
+import org.terasology.engine.rendering.assets.texture.TextureUtil;
+import org.terasology.engine.rendering.dag.ConditionDependentNode;
+import org.terasology.engine.rendering.dag.Node;
+import org.terasology.engine.rendering.dag.StateChange;
+import org.terasology.engine.rendering.dag.dependencyConnections.BufferPairConnection;
+import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
+import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTexture2D;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTexture3D;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.FboConfig;
+import org.terasology.engine.rendering.opengl.ScreenGrabber;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
+import org.terasology.engine.rendering.opengl.fbms.ImmutableFbo;
+import org.terasology.engine.utilities.Assets;
+import org.terasology.engine.utilities.random.FastRandom;
+import org.terasology.engine.utilities.random.Random;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.naming.Name;
+import org.terasology.nui.properties.Range;
+
+import java.beans.PropertyChangeEvent;
+
+import static org.terasology.corerendering.rendering.dag.nodes.FinalPostProcessingNode.POST_FBO_URI;
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
+import static org.terasology.engine.rendering.opengl.ScalingFactors.FULL_SCALE;
+
+/**
+ * An instance of this node performs, in a single full screen pass, the work of the InitialPostProcessingNode, the
+ * ToneMappingNode and the FinalPostProcessingNode: adding light shafts and bloom, tone mapping, film grain, color
+ * grading and vignette. Its output goes straight into POST_FBO_URI, saving two full resolution round trips.
+ *
+ * This is only possible while no effect needs a blurred copy of the tone mapped image, i.e. with neither depth of
+ * field/blur nor motion blur. While that is the case this node is enabled and disables the nodes it replaces; as soon
+ * as one of those effects is turned on, it disables itself and enables them again. The shader permutation follows
+ * the active effects through the same defines used by the nodes it replaces.
+ *
+ * Input buffer pair 1 provides the scene, input FBOs 1 and 2 the light shafts and the bloom, as for the
+ * InitialPostProcessingNode. With CoreRenderingConfig.isGpuEyeAdaptation(), input FBO 3 provides the exposure.
+ */
+public class FusedPostProcessingNode extends ConditionDependentNode {
+    private static final ResourceUrn FUSED_POST_MATERIAL_URN = new ResourceUrn("CoreRendering:fusedPost");
+    private static final int NOISE_TEXTURE_SIZE = 1024;
+
+    // The defaults below match the ones of the InitialPostProcessingNode and of the FinalPostProcessingNode.
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.0f, max = 1.0f)
+    private float bloomFactor = 0.5f;
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.0f, max = 1.0f)
+    private float filmGrainIntensity = 0.05f;
+
+    private final RenderingConfig renderingConfig;
+    private final ScreenGrabber screenGrabber;
+    private final ToneMappingNode toneMappingNode;
+    private final Node[] replacedNodes;
+    private final boolean gpuEyeAdaptation;
+
+    private final Random randomGenerator = new FastRandom();
+    private final Vector3f tint = new Vector3f(.0f, .0f, .0f);
+
+    private DisplayResolutionDependentFbo displayResolutionDependentFbo;
+    private Material fusedPostMaterial;
+    private FBO lastUpdatedGBuffer;
+    private Mesh renderQuad;
+
+    private StateChange setLightShaftsInputTexture;
+    private StateChange setBloomInputTexture;
+    private StateChange setNoiseTexture;
+    private StateChange setVignetteInputTexture;
+
+    /**
+     * Constructs a FusedPostProcessingNode instance.
+     *
+     * @param toneMappingNode the tone mapping node, whose exposure bias and white point are used.
+     * @param replacedNodes the nodes this node replaces while it is enabled.
+     */
+    public FusedPostProcessingNode(String nodeUri, Name providingModule, Context context,
+                                   ToneMappingNode toneMappingNode, Node... replacedNodes) {
+        super(nodeUri, providingModule, context);
+
+        this.toneMappingNode = toneMappingNode;
+        this.replacedNodes = replacedNodes;
+
+        screenGrabber = context.get(ScreenGrabber.class);
+        gpuEyeAdaptation = context.get(CoreRenderingConfig.class).isGpuEyeAdaptation();
+
+        renderingConfig = context.get(Config.class).getRendering();
+        renderingConfig.subscribe(RenderingConfig.BLUR_INTENSITY, this);
+        renderingConfig.subscribe(RenderingConfig.MOTION_BLUR, this);
+        renderingConfig.subscribe(RenderingConfig.BLOOM, this);
+        renderingConfig.subscribe(RenderingConfig.LIGHT_SHAFTS, this);
+        renderingConfig.subscribe(RenderingConfig.FILM_GRAIN, this);
+        renderingConfig.subscribe(RenderingConfig.VIGNETTE, this);
+        requiresCondition(() -> renderingConfig.getBlurIntensity() == 0 && !renderingConfig.isMotionBlur());
+
+        addOutputFboConnection(1);
+        addOutputBufferPairConnection(1);
+
+        this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
+                .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
+
+        updateReplacedNodes();
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+        addDesiredStateChange(new EnableMaterial(FUSED_POST_MATERIAL_URN));
+        fusedPostMaterial = getMaterial(FUSED_POST_MATERIAL_URN);
+
+        displayResolutionDependentFbo = context.get(DisplayResolutionDependentFbo.class);
+        FBO finalBuffer = requiresFbo(new FboConfig(POST_FBO_URI, FULL_SCALE, FBO.Type.DEFAULT),
+                displayResolutionDependentFbo);
+        addOutputFboConnection(1, finalBuffer);
+        addDesiredStateChange(new BindFbo(finalBuffer));
+        addDesiredStateChange(new SetViewportToSizeOf(finalBuffer));
+
+        BufferPairConnection bufferPairConnection = getInputBufferPairConnection(1);
+        lastUpdatedGBuffer = bufferPairConnection.getBufferPair().getPrimaryFbo();
+        addOutputBufferPairConnection(1, bufferPairConnection);
+
+        int texId = 0;
+        addDesiredStateChange(new SetInputTextureFromFbo(texId++, lastUpdatedGBuffer, ColorTexture,
+                displayResolutionDependentFbo, FUSED_POST_MATERIAL_URN, "texScene"));
+        addDesiredStateChange(new SetInputTexture3D(texId++, "engine:colorGradingLut1", FUSED_POST_MATERIAL_URN,
+                "texColorGradingLut"));
+        if (gpuEyeAdaptation) {
+            addDesiredStateChange(new SetInputTextureFromFbo(texId++, getInputFboData(3), ColorTexture,
+                    context.get(ImmutableFbo.class), FUSED_POST_MATERIAL_URN, "texExposure"));
+        }
+
+        // Each optional input gets a slot of its own, whether or not the matching effect is currently enabled.
+        setLightShaftsInputTexture = new SetInputTextureFromFbo(texId++, getInputFboData(1), ColorTexture,
+                displayResolutionDependentFbo, FUSED_POST_MATERIAL_URN, "texLightShafts");
+        setBloomInputTexture = new SetInputTextureFromFbo(texId++, getInputFboData(2), ColorTexture,
+                displayResolutionDependentFbo, FUSED_POST_MATERIAL_URN, "texBloom");
+        setNoiseTexture = new SetInputTexture2D(texId++, TextureUtil.getTextureUriForWhiteNoise(NOISE_TEXTURE_SIZE,
+                0x1234, 0, 512).toString(), FUSED_POST_MATERIAL_URN, "texNoise");
+        setVignetteInputTexture = new SetInputTexture2D(texId, "engine:vignette", FUSED_POST_MATERIAL_URN,
+                "texVignette");
+
+        if (renderingConfig.isLightShafts()) {
+            addDesiredStateChange(setLightShaftsInputTexture);
+        }
+        if (renderingConfig.isBloom()) {
+            addDesiredStateChange(setBloomInputTexture);
+        }
+        if (renderingConfig.isFilmGrain()) {
+            addDesiredStateChange(setNoiseTexture);
+        }
+        if (renderingConfig.isVignette()) {
+            addDesiredStateChange(setVignetteInputTexture);
+        }
+    }
+
+    /**
+     * Renders a full screen quad, filling POST_FBO_URI with the fully post-processed scene.
+     */
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        if (gpuEyeAdaptation && renderingConfig.isEyeAdaptation()) {
+            fusedPostMaterial.setFloat("exposure", toneMappingNode.getExposureBias(), true);
+            fusedPostMaterial.setFloat("exposureFromTexture", 1.0f, true);
+        } else {
+            fusedPostMaterial.setFloat("exposure", screenGrabber.getExposure() * toneMappingNode.getExposureBias(), true);
+            fusedPostMaterial.setFloat("exposureFromTexture", 0.0f, true);
+        }
+        fusedPostMaterial.setFloat("whitePoint", toneMappingNode.getWhitePoint(), true);
+
+        if (renderingConfig.isBloom()) {
+            fusedPostMaterial.setFloat("bloomFactor", bloomFactor, true);
+        }
+
+        if (renderingConfig.isFilmGrain()) {
+            fusedPostMaterial.setFloat("grainIntensity", filmGrainIntensity, true);
+            fusedPostMaterial.setFloat("noiseOffset", randomGenerator.nextFloat(), true);
+
+            fusedPostMaterial.setFloat2("noiseSize", NOISE_TEXTURE_SIZE, NOISE_TEXTURE_SIZE, true);
+            fusedPostMaterial.setFloat2("renderTargetSize", lastUpdatedGBuffer.width(), lastUpdatedGBuffer.height(), true);
+        }
+
+        if (renderingConfig.isVignette()) {
+            fusedPostMaterial.setFloat3("tint", tint);
+        }
+
+        this.renderQuad.render();
+
+        PerformanceMonitor.endActivity();
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        String propertyName = event.getPropertyName();
+
+        switch (propertyName) {
+            case RenderingConfig.BLUR_INTENSITY:
+            case RenderingConfig.MOTION_BLUR:
+                super.propertyChange(event);
+                updateReplacedNodes();
+                break;
+
+            case RenderingConfig.LIGHT_SHAFTS:
+                toggleStateChange(setLightShaftsInputTexture, renderingConfig.isLightShafts());
+                break;
+
+            case RenderingConfig.BLOOM:
+                toggleStateChange(setBloomInputTexture, renderingConfig.isBloom());
+                break;
+
+            case RenderingConfig.FILM_GRAIN:
+                toggleStateChange(setNoiseTexture, renderingConfig.isFilmGrain());
+                break;
+
+            case RenderingConfig.VIGNETTE:
+                toggleStateChange(setVignetteInputTexture, renderingConfig.isVignette());
+                break;
+
+            // default: no other cases are possible - see subscribe operations in the constructor.
+        }
+
+        worldRenderer.requestTaskListRefresh();
+    }
+
+    private void toggleStateChange(StateChange stateChange, boolean enabled) {
+        if (stateChange == null) {
+            return; // the dependencies are not set yet: setDependencies() will check the configuration itself.
+        }
+
+        if (enabled) {
+            addDesiredStateChange(stateChange);
+        } else {
+            removeDesiredStateChange(stateChange);
+        }
+    }
+
+    private void updateReplacedNodes() {
+        for (Node replacedNode : replacedNodes) {
+            replacedNode.setEnabled(!isEnabled());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.terasology.corerendering.rendering.utils.GpuReadbackService;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.dag.AbstractNode;
+import org.terasology.gestalt.naming.Name;
+
+/**
+ * Hands the readbacks the GPU has completed to their requesters, through the GpuReadbackService found in the context.
+ *
+ * This node doesn't render anything: it is meant to run at the beginning of each frame, so that the nodes
+ * consuming readbacks see their results as soon as possible. As the service is created along with the render graph,
+ * this node also disposes it when the graph is torn down.
+ */
+public class GpuReadbackNode extends AbstractNode {
+    private GpuReadbackService readbackService;
+
+    public GpuReadbackNode(String nodeUri, Name providingModule, Context context) {
+        super(nodeUri, providingModule, context);
+
+        readbackService = context.get(GpuReadbackService.class);
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+    }
+
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        readbackService.update();
+
+        PerformanceMonitor.endActivity();
+    }
+
+    @Override
+    public void dispose() {
+        readbackService.dispose();
+        super.dispose();
+    }
+}
@@ -2,12 +2,21 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.corerendering.rendering.dag.nodes;
 
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+import org.terasology.corerendering.rendering.utils.CameraEnvironmentSnapshot;
 import org.terasology.engine.config.Config;
 import org.terasology.engine.config.RenderingConfig;
 import org.terasology.engine.context.Context;
 import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.rendering.cameras.Camera;
+import org.terasology.engine.rendering.world.WorldRenderer;
 import org.terasology.gestalt.naming.Name;
 import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.nui.properties.Range;
+
+import java.beans.PropertyChangeEvent;
 
 
 /**
@@ -19,13 +28,36 @@ import org.terasology.engine.rendering.opengl.FBO;
  *
  * I.e. if the sky is pink at sunset, faraway hills will fade into pink as they get
  * further away from the camera.
+ *
+ * The haze is only derived from the sky, which changes with the orientation of the camera and, slowly, with the
+ * position of the sun and the turbidity of the atmosphere. The output of this node is therefore cached: the blur
+ * only runs again once one of these has changed past its threshold, or the size of the output has changed.
  */
 public class HazeNode extends BlurNode {
     public static final SimpleUri INTERMEDIATE_HAZE_FBO_URI = new SimpleUri("engine:fbo.intermediateHaze");
     public static final SimpleUri FINAL_HAZE_FBO_URI = new SimpleUri("engine:fbo.finalHaze");
     private static final float BLUR_RADIUS = 8.0f;
 
+    @Range(min = 0.0f, max = 5.0f)
+    private float cameraRotationThreshold = 0.25f; // degrees
+    @Range(min = 0.0f, max = 5.0f)
+    private float sunRotationThreshold = 0.1f; // degrees
+    @Range(min = 0.0f, max = 1.0f)
+    private float turbidityThreshold = 0.01f;
+
     private RenderingConfig renderingConfig;
+    private CameraEnvironmentSnapshot cameraEnvironment;
+    private Camera activeCamera;
+    private FBO outputFbo;
+
+    private boolean cacheIsValid;
+    private final Vector3f cachedViewingDirection = new Vector3f();
+    private final Vector3f cachedUp = new Vector3f();
+    private final Matrix4f cachedProjectionMatrix = new Matrix4f();
+    private final Vector3f cachedSunDirection = new Vector3f();
+    private float cachedTurbidity;
+    private int cachedWidth;
+    private int cachedHeight;
 
     /**
      * Initializes the HazeNode instance.
@@ -38,5 +70,52 @@ public class HazeNode extends BlurNode {
         renderingConfig = context.get(Config.class).getRendering();
         requiresCondition(renderingConfig::isInscattering);
         renderingConfig.subscribe(RenderingConfig.INSCATTERING, this);
+
+        cameraEnvironment = context.get(CameraEnvironmentSnapshot.class);
+        activeCamera = context.get(WorldRenderer.class).getActiveCamera();
+        this.outputFbo = outputFbo;
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        // The cached output is stale by the time the node is enabled again.
+        cacheIsValid = false;
+        super.propertyChange(event);
+    }
+
+    /**
+     * Blurs the input into the output, unless the sky has not changed noticeably since the last time it did.
+     */
+    @Override
+    public void process() {
+        if (cacheIsValid && !skyHasChanged()) {
+            return;
+        }
+
+        super.process();
+
+        cachedViewingDirection.set(activeCamera.getViewingDirection());
+        cachedUp.set(activeCamera.getUp());
+        cachedProjectionMatrix.set(activeCamera.getProjectionMatrix());
+        cachedSunDirection.set(cameraEnvironment.getSunDirection(false));
+        cachedTurbidity = cameraEnvironment.getTurbidity();
+        cachedWidth = outputFbo.width();
+        cachedHeight = outputFbo.height();
+        cacheIsValid = true;
+    }
+
+    private boolean skyHasChanged() {
+        // The tolerance on the projection ignores the sub-pixel jitter of the temporal anti-aliasing,
+        // while still catching changes of the field of view of about a degree
+        return outputFbo.width() != cachedWidth || outputFbo.height() != cachedHeight
+                || !activeCamera.getProjectionMatrix().equals(cachedProjectionMatrix, 1e-2f)
+                || angleDegrees(activeCamera.getViewingDirection(), cachedViewingDirection) > cameraRotationThreshold
+                || angleDegrees(activeCamera.getUp(), cachedUp) > cameraRotationThreshold
+                || angleDegrees(cameraEnvironment.getSunDirection(false), cachedSunDirection) > sunRotationThreshold
+                || Math.abs(cameraEnvironment.getTurbidity() - cachedTurbidity) > turbidityThreshold;
+    }
+
+    private static float angleDegrees(Vector3fc first, Vector3f second) {
+        return (float) Math.toDegrees(second.angle(first));
     }
 }
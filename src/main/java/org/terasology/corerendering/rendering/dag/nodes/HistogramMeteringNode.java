@@ -0,0 +1,106 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.assets.material.Material;
+import org.terasology.engine.rendering.assets.mesh.Mesh;
+import org.terasology.engine.rendering.dag.ConditionDependentNode;
+import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
+import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.FboConfig;
+import org.terasology.engine.rendering.opengl.fbms.ImmutableFbo;
+import org.terasology.engine.utilities.Assets;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.naming.Name;
+import org.terasology.nui.properties.Range;
+
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
+
+/**
+ * Given the histogram built by the LuminanceHistogramNode as input FBO 1, an instance of this node computes the
+ * average luminance of the scene, ignoring the darkest and the brightest samples: those below lowPercentile and
+ * above highPercentile of the histogram. A few very bright pixels, i.e. the sun or lava, no longer skew the result.
+ *
+ * The luminance is written into the three color channels of a 1x1 FBO, in the same way as the 1x1 downsampled
+ * scene, so that the AdaptExposureNode can turn it into an exposure.
+ */
+public class HistogramMeteringNode extends ConditionDependentNode {
+    public static final FboConfig METERED_LUMINANCE_FBO_CONFIG =
+            new FboConfig(new SimpleUri("engine:fbo.meteredLuminance"), 1, 1, FBO.Type.HDR);
+    private static final ResourceUrn HISTOGRAM_METERING_MATERIAL_URN = new ResourceUrn("CoreRendering:histogramMetering");
+
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.0f, max = 1.0f)
+    private float lowPercentile = 0.5f;
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.0f, max = 1.0f)
+    private float highPercentile = 0.95f;
+
+    private final LuminanceHistogramNode luminanceHistogramNode;
+    private Material histogramMeteringMaterial;
+    private Mesh renderQuad;
+
+    /**
+     * Constructs a HistogramMeteringNode instance.
+     *
+     * @param luminanceHistogramNode the node building the histogram, to read the luminance range of its bins from.
+     */
+    public HistogramMeteringNode(String nodeUri, Name providingModule, Context context,
+                                 LuminanceHistogramNode luminanceHistogramNode) {
+        super(nodeUri, providingModule, context);
+
+        this.luminanceHistogramNode = luminanceHistogramNode;
+
+        RenderingConfig renderingConfig = context.get(Config.class).getRendering();
+        renderingConfig.subscribe(RenderingConfig.EYE_ADAPTATION, this);
+        requiresCondition(renderingConfig::isEyeAdaptation);
+        addOutputFboConnection(1);
+
+        this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
+                .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+        addDesiredStateChange(new EnableMaterial(HISTOGRAM_METERING_MATERIAL_URN));
+        histogramMeteringMaterial = getMaterial(HISTOGRAM_METERING_MATERIAL_URN);
+
+        ImmutableFbo immutableFbo = context.get(ImmutableFbo.class);
+        FBO meteredLuminanceFbo = requiresFbo(METERED_LUMINANCE_FBO_CONFIG, immutableFbo);
+        addOutputFboConnection(1, meteredLuminanceFbo);
+
+        addDesiredStateChange(new BindFbo(meteredLuminanceFbo));
+        addDesiredStateChange(new SetViewportToSizeOf(meteredLuminanceFbo));
+
+        addDesiredStateChange(new SetInputTextureFromFbo(0, getInputFboData(1), ColorTexture,
+                immutableFbo, HISTOGRAM_METERING_MATERIAL_URN, "texHistogram"));
+    }
+
+    /**
+     * Walks the histogram in a single 1-pixel pass, averaging the log luminance of the bins between the percentiles.
+     */
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        histogramMeteringMaterial.setInt("binCount", LuminanceHistogramNode.HISTOGRAM_BINS, true);
+        histogramMeteringMaterial.setFloat("sampleCount",
+                LuminanceHistogramNode.SAMPLES_X * LuminanceHistogramNode.SAMPLES_Y, true);
+        histogramMeteringMaterial.setFloat("minLogLuminance", luminanceHistogramNode.getMinLogLuminance(), true);
+        histogramMeteringMaterial.setFloat("logLuminanceRange", luminanceHistogramNode.getLogLuminanceRange(), true);
+        histogramMeteringMaterial.setFloat("lowPercentile", lowPercentile, true);
+        histogramMeteringMaterial.setFloat("highPercentile", Math.max(highPercentile, lowPercentile), true);
+
+        renderQuad.render();
+
+        PerformanceMonitor.endActivity();
+    }
+}
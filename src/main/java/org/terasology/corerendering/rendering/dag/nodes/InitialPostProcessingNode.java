@@ -2,7 +2,7 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.corerendering.rendering.dag.nodes;
 
-import org.terasology.corerendering.rendering.utils.UnderwaterHelper;
+import org.terasology.corerendering.rendering.utils.CameraEnvironmentSnapshot;
 import org.terasology.engine.config.Config;
 import org.terasology.engine.config.RenderingConfig;
 import org.terasology.engine.context.Context;
@@ -10,7 +10,6 @@ import org.terasology.engine.core.SimpleUri;
 import org.terasology.engine.monitoring.PerformanceMonitor;
 import org.terasology.engine.rendering.assets.material.Material;
 import org.terasology.engine.rendering.assets.mesh.Mesh;
-import org.terasology.engine.rendering.cameras.Camera;
 import org.terasology.engine.rendering.dag.AbstractNode;
 import org.terasology.engine.rendering.dag.StateChange;
 import org.terasology.engine.rendering.dag.dependencyConnections.BufferPairConnection;
@@ -24,7 +23,6 @@ import org.terasology.engine.rendering.opengl.FboConfig;
 import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
 import org.terasology.engine.rendering.world.WorldRenderer;
 import org.terasology.engine.utilities.Assets;
-import org.terasology.engine.world.WorldProvider;
 import org.terasology.gestalt.assets.ResourceUrn;
 import org.terasology.gestalt.naming.Name;
 import org.terasology.nui.properties.Range;
@@ -37,7 +35,7 @@ import static org.terasology.engine.rendering.opengl.ScalingFactors.FULL_SCALE;
 
 /**
  * An instance of this node adds chromatic aberration (currently non-functional), light shafts,
- * 1/8th resolution bloom and vignette onto the rendering achieved so far, stored in the gbuffer.
+ * bloom and vignette onto the rendering achieved so far, stored in the gbuffer.
  * Stores the result into the InitialPostProcessingNode.INITIAL_POST_FBO_URI, to be used at a later stage.
  */
 public class InitialPostProcessingNode extends AbstractNode implements PropertyChangeListener {
@@ -45,9 +43,8 @@ public class InitialPostProcessingNode extends AbstractNode implements PropertyC
     private static final ResourceUrn INITIAL_POST_MATERIAL_URN = new ResourceUrn("CoreRendering:initialPost");
 
     private RenderingConfig renderingConfig;
-    private WorldProvider worldProvider;
+    private CameraEnvironmentSnapshot cameraEnvironment;
     private WorldRenderer worldRenderer;
-    private Camera activeCamera;
     private DisplayResolutionDependentFbo displayResolutionDependentFbo;
 
     private Material initialPostMaterial;
@@ -69,10 +66,9 @@ public class InitialPostProcessingNode extends AbstractNode implements PropertyC
     public InitialPostProcessingNode(String nodeUri, Name providingModule, Context context) {
         super(nodeUri, providingModule, context);
 
-        worldProvider = context.get(WorldProvider.class);
+        cameraEnvironment = context.get(CameraEnvironmentSnapshot.class);
 
         worldRenderer = context.get(WorldRenderer.class);
-        activeCamera = worldRenderer.getActiveCamera();
 
         renderingConfig = context.get(Config.class).getRendering();
         bloomIsEnabled = renderingConfig.isBloom();
@@ -141,12 +137,11 @@ public class InitialPostProcessingNode extends AbstractNode implements PropertyC
 
         // Common Shader Parameters
 
-        initialPostMaterial.setFloat("swimming", UnderwaterHelper.isUnderwater(
-                activeCamera.getPosition(), worldProvider, renderingConfig) ? 1.0f : 0.0f, true);
+        initialPostMaterial.setFloat("swimming", cameraEnvironment.isUnderwater() ? 1.0f : 0.0f, true);
 
         // Shader Parameters
 
-        initialPostMaterial.setFloat3("inLiquidTint", worldProvider.getBlock(activeCamera.getPosition()).getTint(), true);
+        initialPostMaterial.setFloat3("inLiquidTint", cameraEnvironment.getLiquidTint(), true);
 
         if (bloomIsEnabled) {
             initialPostMaterial.setFloat("bloomFactor", bloomFactor, true);
@@ -2,17 +2,22 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.corerendering.rendering.dag.nodes;
 
+import org.joml.Matrix4f;
+import org.terasology.corerendering.rendering.CoreRenderingConfig;
 import org.terasology.engine.config.Config;
 import org.terasology.engine.config.RenderingConfig;
 import org.terasology.engine.context.Context;
 import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.rendering.cameras.Camera;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
 import org.terasology.gestalt.naming.Name;
 import org.terasology.nui.properties.Range;
-import org.terasology.engine.rendering.opengl.FBO;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
+import static org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo.POST_FBO_REGENERATION;
+
 /**
  * This class is a thin facade in front of the BlurNode class it inherits from.
  * The term "late" is due to the fact that this type of nodes is used near the
@@ -22,6 +27,11 @@ import java.beans.PropertyChangeListener;
  * Eventually the blurred version can be used for blur-based effects such as
  * Depth of Field.
  *
+ * When CoreRenderingConfig.isStaticLateBlurReuse() is set, the late blur nodes keep the output of a previous
+ * frame while the camera doesn't move, for up to maxReusedFrames frames, as the scene they blur barely changes.
+ * The first node of the chain decides for the whole chain: the following nodes are given it at construction.
+ * The output FBO of the last node must then be requested with TransientFboPool.requestPersistent().
+ *
  * For more information on Blur: https://en.wikipedia.org/wiki/Box_blur
  * For more information on DoF: http://en.wikipedia.org/wiki/Depth_of_field
  */
@@ -32,15 +42,46 @@ public class LateBlurNode extends BlurNode implements PropertyChangeListener {
     @Range(min = 0.0f, max = 16.0f)
     private static final float OVERALL_BLUR_RADIUS_FACTOR = 0.8f;
 
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.0f, max = 60.0f)
+    private float maxReusedFrames = 4.0f;
+
     private RenderingConfig renderingConfig;
+    private Camera activeCamera;
+    private LateBlurNode firstNode;
+    private boolean staticReuse;
+
+    private boolean outputIsValid;
+    private boolean reusingOutput;
+    private int reusedFrames;
+    private final Matrix4f cachedViewMatrix = new Matrix4f();
+    private final Matrix4f cachedProjectionMatrix = new Matrix4f();
+
+    /**
+     * Constructs a LateBlurNode instance.
+     *
+     * @param outputFboUri The uri the output fbo, to store the blurred image, was requested from the
+     *                     TransientFboPool with.
+     */
+    public LateBlurNode(String nodeUri, Name providingModule, Context context, SimpleUri outputFboUri) {
+        this(nodeUri, providingModule, context, outputFboUri, null);
+    }
 
     /**
      * Constructs a LateBlurNode instance.
      *
-     * @param outputFbo The output fbo, to store the blurred image.
+     * @param outputFboUri The uri the output fbo, to store the blurred image, was requested from the
+     *                     TransientFboPool with.
+     * @param firstNode the first node of the late blur chain, deciding whether its output is reused,
+     *                  or null if this node is the first one.
      */
-    public LateBlurNode(String nodeUri, Name providingModule, Context context, FBO outputFbo) {
-        super(nodeUri, context, providingModule, outputFbo, 0); // note: blurRadius is 0.0 at this stage.
+    public LateBlurNode(String nodeUri, Name providingModule, Context context, SimpleUri outputFboUri,
+                        LateBlurNode firstNode) {
+        super(nodeUri, context, providingModule, outputFboUri, 0); // note: blurRadius is 0.0 at this stage.
+
+        this.firstNode = firstNode;
+        activeCamera = worldRenderer.getActiveCamera();
+        staticReuse = context.get(CoreRenderingConfig.class).isStaticLateBlurReuse();
 
         renderingConfig = context.get(Config.class).getRendering();
         requiresCondition(() -> renderingConfig.getBlurIntensity() != 0); // getBlurIntensity > 0 implies blur is enabled.
@@ -49,9 +90,63 @@ public class LateBlurNode extends BlurNode implements PropertyChangeListener {
         updateBlurRadius(); // only here blurRadius is properly set.
     }
 
+    @Override
+    public void setDependencies(Context context) {
+        super.setDependencies(context);
+
+        if (staticReuse && firstNode == null) {
+            context.get(DisplayResolutionDependentFbo.class).subscribe(POST_FBO_REGENERATION, this);
+        }
+        outputIsValid = false;
+    }
+
+    @Override
+    public void process() {
+        if (staticReuse) {
+            if (firstNode == null) {
+                reusingOutput = canReuseOutput();
+            }
+            if (isReusingOutput()) {
+                return;
+            }
+        }
+
+        super.process();
+    }
+
+    /**
+     * Returns true if the camera didn't move since the output of the chain was last rendered,
+     * and that output hasn't been reused for too many frames. Otherwise remembers the camera.
+     */
+    private boolean canReuseOutput() {
+        // The projection tolerance lets the sub-pixel jitter of the temporal anti-aliasing through
+        if (outputIsValid && reusedFrames < maxReusedFrames
+                && activeCamera.getViewMatrix().equals(cachedViewMatrix, 1e-4f)
+                && activeCamera.getProjectionMatrix().equals(cachedProjectionMatrix, 1e-2f)) {
+            reusedFrames++;
+            return true;
+        }
+
+        cachedViewMatrix.set(activeCamera.getViewMatrix());
+        cachedProjectionMatrix.set(activeCamera.getProjectionMatrix());
+        reusedFrames = 0;
+        outputIsValid = true;
+        return false;
+    }
+
+    private boolean isReusingOutput() {
+        return firstNode != null ? firstNode.isReusingOutput() : reusingOutput;
+    }
+
     @Override
     public void propertyChange(PropertyChangeEvent event) {
+        if (event.getPropertyName().equals(POST_FBO_REGENERATION)) {
+            outputIsValid = false;
+            return;
+        }
+
         updateBlurRadius();
+        outputIsValid = false;
         // Changing the blurRadius can potentially enable/disable the Node, meaning we have to refresh the taskList.
         super.propertyChange(event);
     }
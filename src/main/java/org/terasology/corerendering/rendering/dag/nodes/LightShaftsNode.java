@@ -2,8 +2,10 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.corerendering.rendering.dag.nodes;
 
-import org.joml.Vector3f;
+import org.joml.Vector3fc;
 import org.joml.Vector4f;
+import org.terasology.corerendering.rendering.utils.CameraEnvironmentSnapshot;
+import org.terasology.corerendering.rendering.utils.TransientFboPool;
 import org.terasology.engine.config.Config;
 import org.terasology.engine.config.RenderingConfig;
 import org.terasology.engine.context.Context;
@@ -11,7 +13,6 @@ import org.terasology.engine.core.SimpleUri;
 import org.terasology.engine.monitoring.PerformanceMonitor;
 import org.terasology.engine.rendering.assets.material.Material;
 import org.terasology.engine.rendering.assets.mesh.Mesh;
-import org.terasology.engine.rendering.backdrop.BackdropProvider;
 import org.terasology.engine.rendering.cameras.Camera;
 import org.terasology.engine.rendering.dag.ConditionDependentNode;
 import org.terasology.engine.rendering.dag.dependencyConnections.BufferPairConnection;
@@ -20,17 +21,17 @@ import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
 import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
 import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
 import org.terasology.engine.rendering.opengl.FBO;
-import org.terasology.engine.rendering.opengl.FboConfig;
 import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
 import org.terasology.engine.rendering.world.WorldRenderer;
 import org.terasology.engine.utilities.Assets;
-import org.terasology.engine.world.WorldProvider;
 import org.terasology.gestalt.assets.ResourceUrn;
 import org.terasology.gestalt.naming.Name;
 import org.terasology.nui.properties.Range;
 
+import static org.lwjgl.opengl.GL11.GL_COLOR_BUFFER_BIT;
+import static org.lwjgl.opengl.GL11.glClear;
+import static org.lwjgl.opengl.GL11.glClearColor;
 import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
-import static org.terasology.engine.rendering.opengl.ScalingFactors.HALF_SCALE;
 
 /**
  * An instance of this class takes advantage of the color and depth buffers attached to the read-only gbuffer
@@ -41,15 +42,18 @@ import static org.terasology.engine.rendering.opengl.ScalingFactors.HALF_SCALE;
  * be able to provide indoor light shafts through other means and it might be appropriate to rename
  * this node accordingly.
  *
+ * The cost of the effect follows its contribution: when the main light is behind the camera the output is
+ * simply cleared to black, and otherwise the number of radial samples shrinks as the light moves away from
+ * the screen and as daylight fades.
+ *
  * [1] https://en.wikipedia.org/wiki/Crepuscular_rays
  */
 public class LightShaftsNode extends ConditionDependentNode {
     public static final SimpleUri LIGHT_SHAFTS_FBO_URI = new SimpleUri("engine:fbo.lightShafts");
     private static final ResourceUrn LIGHT_SHAFTS_MATERIAL_URN = new ResourceUrn("CoreRendering:lightShafts");
 
-    private BackdropProvider backdropProvider;
+    private CameraEnvironmentSnapshot cameraEnvironment;
     private Camera activeCamera;
-    private WorldProvider worldProvider;
     private Material lightShaftsMaterial;
     private float exposure;
     private Mesh renderQuad;
@@ -71,7 +75,16 @@ public class LightShaftsNode extends ConditionDependentNode {
     private float decay = 0.95f;
 
     @SuppressWarnings("FieldCanBeLocal")
-    private Vector3f sunDirection;
+    @Range(min = 0.0f, max = 1.0f)
+    private float minSampleFraction = 0.25f;
+    // How far outside of the screen, in screen widths, the sample count drops to minSampleFraction. The shafts
+    // are still rendered beyond it, with that reduced sample count.
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.0f, max = 2.0f)
+    private float offScreenFalloff = 1.0f;
+
+    @SuppressWarnings("FieldCanBeLocal")
+    private Vector3fc sunDirection;
     @SuppressWarnings("FieldCanBeLocal")
     private Vector4f sunPositionWorldSpace4 = new Vector4f();
     @SuppressWarnings("FieldCanBeLocal")
@@ -80,8 +93,7 @@ public class LightShaftsNode extends ConditionDependentNode {
     public LightShaftsNode(String nodeUri, Name providingModule, Context context) {
         super(nodeUri, providingModule, context);
 
-        worldProvider = context.get(WorldProvider.class);
-        backdropProvider = context.get(BackdropProvider.class);
+        cameraEnvironment = context.get(CameraEnvironmentSnapshot.class);
         activeCamera = context.get(WorldRenderer.class).getActiveCamera();
 
         RenderingConfig renderingConfig = context.get(Config.class).getRendering();
@@ -98,7 +110,8 @@ public class LightShaftsNode extends ConditionDependentNode {
     @Override
     public void setDependencies(Context context) {
         DisplayResolutionDependentFbo displayResolutionDependentFBOs = context.get(DisplayResolutionDependentFbo.class);
-        FBO lightShaftsFbo = requiresFbo(new FboConfig(LIGHT_SHAFTS_FBO_URI, HALF_SCALE, FBO.Type.DEFAULT), displayResolutionDependentFBOs);
+        FBO lightShaftsFbo = requiresFbo(context.get(TransientFboPool.class).getFboConfig(LIGHT_SHAFTS_FBO_URI),
+                displayResolutionDependentFBOs);
         addOutputFboConnection(1, lightShaftsFbo);
 
         addDesiredStateChange(new BindFbo(lightShaftsFbo));
@@ -128,20 +141,31 @@ public class LightShaftsNode extends ConditionDependentNode {
 
         // Get time of day from midnight to midnight <0, 1>, 0.5 being noon.
 
-        float days = worldProvider.getTime().getDays();
+        float days = cameraEnvironment.getDays();
         days = days - (int) days;
 
         // If sun is down and moon is up, do lightshafts from moon.
         // This is a temporary solution to sun causing light shafts even at night.
 
         if (days < 0.25f || days > 0.75f) {
-            sunDirection = backdropProvider.getSunDirection(true);
+            sunDirection = cameraEnvironment.getSunDirection(true);
             exposure = exposureNight;
         } else {
-            sunDirection = backdropProvider.getSunDirection(false);
+            sunDirection = cameraEnvironment.getSunDirection(false);
             exposure = exposureDay;
         }
 
+        float lightDirDotViewDir = activeCamera.getViewingDirection().dot(sunDirection);
+        if (lightDirDotViewDir <= 0.0f) {
+            // The light is behind the camera: the shader would output black everywhere.
+            glClearColor(0.0f, 0.0f, 0.0f, 1.0f);
+            glClear(GL_COLOR_BUFFER_BIT);
+            glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
+
+            PerformanceMonitor.endActivity();
+            return;
+        }
+
         // Shader Parameters
 
         lightShaftsMaterial.setFloat("density", density, true);
@@ -149,7 +173,7 @@ public class LightShaftsNode extends ConditionDependentNode {
         lightShaftsMaterial.setFloat("weight", weight, true);
         lightShaftsMaterial.setFloat("decay", decay, true);
 
-        sunPositionWorldSpace4.set(-sunDirection.x * 10000.0f, -sunDirection.y * 10000.0f, -sunDirection.z * 10000.0f, 1.0f);
+        sunPositionWorldSpace4.set(-sunDirection.x() * 10000.0f, -sunDirection.y() * 10000.0f, -sunDirection.z() * 10000.0f, 1.0f);
         sunPositionScreenSpace.set(sunPositionWorldSpace4);
         activeCamera.getViewProjectionMatrix().transform(sunPositionScreenSpace);
 
@@ -158,8 +182,11 @@ public class LightShaftsNode extends ConditionDependentNode {
         sunPositionScreenSpace.z /= sunPositionScreenSpace.w;
         sunPositionScreenSpace.w = 1.0f;
 
-        lightShaftsMaterial.setFloat("lightDirDotViewDir", activeCamera.getViewingDirection().dot(sunDirection), true);
-        lightShaftsMaterial.setFloat2("lightScreenPos", (sunPositionScreenSpace.x + 1.0f) / 2.0f, (sunPositionScreenSpace.y + 1.0f) / 2.0f, true);
+        float lightScreenPosX = (sunPositionScreenSpace.x + 1.0f) / 2.0f;
+        float lightScreenPosY = (sunPositionScreenSpace.y + 1.0f) / 2.0f;
+        lightShaftsMaterial.setFloat("lightDirDotViewDir", lightDirDotViewDir, true);
+        lightShaftsMaterial.setFloat2("lightScreenPos", lightScreenPosX, lightScreenPosY, true);
+        lightShaftsMaterial.setFloat("sampleFraction", computeSampleFraction(lightScreenPosX, lightScreenPosY), true);
 
         // Actual Node Processing
 
@@ -170,5 +197,16 @@ public class LightShaftsNode extends ConditionDependentNode {
         PerformanceMonitor.endActivity();
     }
 
+    /**
+     * Returns the fraction of the shader's LIGHT_SHAFT_SAMPLES to use this frame, lower as the light moves away
+     * from the screen and at night, when the shafts are fainter.
+     */
+    private float computeSampleFraction(float lightScreenPosX, float lightScreenPosY) {
+        float distanceFromScreen = Math.max(Math.max(-lightScreenPosX, lightScreenPosX - 1.0f),
+                Math.max(-lightScreenPosY, lightScreenPosY - 1.0f));
+        float onScreenFactor = 1.0f - Math.max(distanceFromScreen, 0.0f) / Math.max(offScreenFalloff, 0.001f);
+        float daylightFactor = 0.5f + 0.5f * cameraEnvironment.getDaylight();
 
+        return Math.max(minSampleFraction, Math.min(onScreenFactor * daylightFactor, 1.0f));
+    }
 }
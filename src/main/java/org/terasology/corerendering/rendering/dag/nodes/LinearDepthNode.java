@@ -0,0 +1,103 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.joml.Matrix4f;
+import org.terasology.corerendering.rendering.CoreRenderingConfig;
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.assets.material.Material;
+import org.terasology.engine.rendering.assets.mesh.Mesh;
+import org.terasology.engine.rendering.cameras.Camera;
+import org.terasology.engine.rendering.dag.ConditionDependentNode;
+import org.terasology.engine.rendering.dag.dependencyConnections.BufferPairConnection;
+import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
+import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.FboConfig;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
+import org.terasology.engine.utilities.Assets;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.naming.Name;
+
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.DepthStencilTexture;
+import static org.terasology.engine.rendering.opengl.ScalingFactors.FULL_SCALE;
+
+/**
+ * An instance of this class converts the depth buffer of the last updated gBuffer into linear view depth, i.e. the
+ * distance from the camera plane in world units, and stores it into LINEAR_DEPTH_FBO_URI.
+ *
+ * The red and green channels both hold the linear depth, so that the output can be used as the first level of the
+ * min/max depth pyramid built by the DepthPyramidNode instances downstream. Screen-space effects can read either,
+ * instead of decoding the raw depth buffer on their own. The sky is stored at the distance of the far plane.
+ *
+ * The ambient occlusion nodes and the TemporalAntiAliasingNode consume it, so this node runs when SSAO is enabled or
+ * when temporal anti-aliasing is part of the graph. As it reads the gBuffer before the refractive/reflective pass, the
+ * depth of water and of the other blended surfaces is never part of it.
+ */
+public class LinearDepthNode extends ConditionDependentNode {
+    public static final SimpleUri LINEAR_DEPTH_FBO_URI = new SimpleUri("engine:fbo.linearDepth");
+    private static final ResourceUrn LINEAR_DEPTH_MATERIAL_URN = new ResourceUrn("CoreRendering:linearDepth");
+
+    private Material linearDepthMaterial;
+    private Camera activeCamera;
+    private Mesh renderQuad;
+
+    public LinearDepthNode(String nodeUri, Name providingModule, Context context) {
+        super(nodeUri, providingModule, context);
+
+        activeCamera = worldRenderer.getActiveCamera();
+
+        RenderingConfig renderingConfig = context.get(Config.class).getRendering();
+        renderingConfig.subscribe(RenderingConfig.SSAO, this);
+        // Temporal anti-aliasing is only read when the graph is built, it doesn't need a subscription
+        boolean temporalAntiAliasing = context.get(CoreRenderingConfig.class).isTemporalAntiAliasing();
+        requiresCondition(() -> renderingConfig.isSsao() || temporalAntiAliasing);
+        addOutputFboConnection(1);
+        addOutputBufferPairConnection(1);
+
+        this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
+                .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+        DisplayResolutionDependentFbo displayResolutionDependentFBOs = context.get(DisplayResolutionDependentFbo.class);
+        FBO linearDepthFbo = requiresFbo(new FboConfig(LINEAR_DEPTH_FBO_URI, FULL_SCALE, FBO.Type.HDR),
+                displayResolutionDependentFBOs);
+        addOutputFboConnection(1, linearDepthFbo);
+        addDesiredStateChange(new BindFbo(linearDepthFbo));
+        addDesiredStateChange(new SetViewportToSizeOf(linearDepthFbo));
+
+        addDesiredStateChange(new EnableMaterial(LINEAR_DEPTH_MATERIAL_URN));
+        linearDepthMaterial = getMaterial(LINEAR_DEPTH_MATERIAL_URN);
+
+        BufferPairConnection bufferPairConnection = getInputBufferPairConnection(1);
+        FBO lastUpdatedGBuffer = bufferPairConnection.getBufferPair().getPrimaryFbo();
+        addOutputBufferPairConnection(1, bufferPairConnection);
+
+        addDesiredStateChange(new SetInputTextureFromFbo(0, lastUpdatedGBuffer, DepthStencilTexture,
+                displayResolutionDependentFBOs, LINEAR_DEPTH_MATERIAL_URN, "texDepth"));
+    }
+
+    /**
+     * Renders a full-screen quad, linearizing the depth of each pixel with the two terms of the projection matrix
+     * it depends on. This is cheaper than reconstructing the whole view-space position with the inverse matrix.
+     */
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        Matrix4f projectionMatrix = activeCamera.getProjectionMatrix();
+        linearDepthMaterial.setFloat2("depthParameters", projectionMatrix.m22(), projectionMatrix.m32(), true);
+
+        renderQuad.render();
+
+        PerformanceMonitor.endActivity();
+    }
+}
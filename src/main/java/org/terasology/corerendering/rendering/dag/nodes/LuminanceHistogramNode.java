@@ -0,0 +1,136 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.assets.material.Material;
+import org.terasology.engine.rendering.dag.ConditionDependentNode;
+import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
+import org.terasology.engine.rendering.dag.stateChanges.DisableDepthTest;
+import org.terasology.engine.rendering.dag.stateChanges.EnableBlending;
+import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
+import org.terasology.engine.rendering.dag.stateChanges.SetBlendFunction;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.FboConfig;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
+import org.terasology.engine.rendering.opengl.fbms.ImmutableFbo;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.naming.Name;
+import org.terasology.nui.properties.Range;
+
+import static org.lwjgl.opengl.GL11.GL_COLOR_BUFFER_BIT;
+import static org.lwjgl.opengl.GL11.GL_ONE;
+import static org.lwjgl.opengl.GL11.GL_POINTS;
+import static org.lwjgl.opengl.GL11.glClear;
+import static org.lwjgl.opengl.GL11.glClearColor;
+import static org.lwjgl.opengl.GL11.glDrawArrays;
+import static org.lwjgl.opengl.GL30.glBindVertexArray;
+import static org.lwjgl.opengl.GL30.glDeleteVertexArrays;
+import static org.lwjgl.opengl.GL30.glGenVertexArrays;
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
+
+/**
+ * An instance of this node builds a histogram of the log2 luminance of the HDR scene, provided as input FBO 1.
+ *
+ * The scene is sampled on a regular grid of SAMPLES_X by SAMPLES_Y points. Each sample is drawn as a single point,
+ * positioned by the vertex shader over the bin its luminance falls in, and counted through additive blending into
+ * the red channel of a HISTOGRAM_BINS x 1 FBO: the whole histogram is built in a single draw call. Samples darker
+ * than the lowest bin are all counted in the first bin, samples brighter than the highest one in the last.
+ *
+ * The output is read by the HistogramMeteringNode. It is also available to debugging tools under
+ * LUMINANCE_HISTOGRAM_FBO_CONFIG, from the ImmutableFbo manager.
+ */
+public class LuminanceHistogramNode extends ConditionDependentNode {
+    public static final int HISTOGRAM_BINS = 64;
+    // Counts are accumulated in 16 bit floats, which represent integers exactly up to 2048.
+    public static final int SAMPLES_X = 64;
+    public static final int SAMPLES_Y = 32;
+    public static final FboConfig LUMINANCE_HISTOGRAM_FBO_CONFIG =
+            new FboConfig(new SimpleUri("engine:fbo.luminanceHistogram"), HISTOGRAM_BINS, 1, FBO.Type.HDR);
+    private static final ResourceUrn LUMINANCE_HISTOGRAM_MATERIAL_URN = new ResourceUrn("CoreRendering:luminanceHistogram");
+
+    @Range(min = -16.0f, max = 0.0f)
+    private float minLogLuminance = -8.0f;
+    @Range(min = 1.0f, max = 32.0f)
+    private float logLuminanceRange = 12.0f;
+
+    private Material luminanceHistogramMaterial;
+    private int emptyVertexArray;
+
+    public LuminanceHistogramNode(String nodeUri, Name providingModule, Context context) {
+        super(nodeUri, providingModule, context);
+
+        RenderingConfig renderingConfig = context.get(Config.class).getRendering();
+        renderingConfig.subscribe(RenderingConfig.EYE_ADAPTATION, this);
+        requiresCondition(renderingConfig::isEyeAdaptation);
+        addOutputFboConnection(1);
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+        addDesiredStateChange(new EnableMaterial(LUMINANCE_HISTOGRAM_MATERIAL_URN));
+        luminanceHistogramMaterial = getMaterial(LUMINANCE_HISTOGRAM_MATERIAL_URN);
+
+        FBO histogramFbo = requiresFbo(LUMINANCE_HISTOGRAM_FBO_CONFIG, context.get(ImmutableFbo.class));
+        addOutputFboConnection(1, histogramFbo);
+
+        addDesiredStateChange(new BindFbo(histogramFbo));
+        addDesiredStateChange(new SetViewportToSizeOf(histogramFbo));
+        addDesiredStateChange(new DisableDepthTest());
+        addDesiredStateChange(new EnableBlending());
+        addDesiredStateChange(new SetBlendFunction(GL_ONE, GL_ONE));
+
+        addDesiredStateChange(new SetInputTextureFromFbo(0, getInputFboData(1), ColorTexture,
+                context.get(DisplayResolutionDependentFbo.class), LUMINANCE_HISTOGRAM_MATERIAL_URN, "texScene"));
+    }
+
+    /**
+     * Clears the histogram and draws one point per sample of the scene, each adding one to the bin it lands on.
+     */
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        if (emptyVertexArray == 0) {
+            // The points are positioned from gl_VertexID alone, but a core profile context needs a bound array.
+            emptyVertexArray = glGenVertexArrays();
+        }
+
+        glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
+        glClear(GL_COLOR_BUFFER_BIT);
+
+        luminanceHistogramMaterial.setInt("samplesX", SAMPLES_X, true);
+        luminanceHistogramMaterial.setInt("samplesY", SAMPLES_Y, true);
+        luminanceHistogramMaterial.setFloat("minLogLuminance", minLogLuminance, true);
+        luminanceHistogramMaterial.setFloat("logLuminanceRange", logLuminanceRange, true);
+
+        glBindVertexArray(emptyVertexArray);
+        glDrawArrays(GL_POINTS, 0, SAMPLES_X * SAMPLES_Y);
+        glBindVertexArray(0);
+
+        PerformanceMonitor.endActivity();
+    }
+
+    @Override
+    public void dispose() {
+        if (emptyVertexArray != 0) {
+            glDeleteVertexArrays(emptyVertexArray);
+            emptyVertexArray = 0;
+        }
+        super.dispose();
+    }
+
+    public float getMinLogLuminance() {
+        return minLogLuminance;
+    }
+
+    public float getLogLuminanceRange() {
+        return logLuminanceRange;
+    }
+}
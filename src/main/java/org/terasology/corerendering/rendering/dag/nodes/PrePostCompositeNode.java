@@ -2,6 +2,7 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.corerendering.rendering.dag.nodes;
 
+import org.terasology.corerendering.rendering.CoreRenderingConfig;
 import org.terasology.engine.config.Config;
 import org.terasology.engine.config.RenderingConfig;
 import org.terasology.engine.context.Context;
@@ -36,6 +37,17 @@ import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFr
  * An instance of this class takes advantage of the content of a number of previously filled buffers
  * to add screen-space ambient occlusion (SSAO), outlines, reflections [1], atmospheric haze and volumetric fog
  *
+ * Screen-space reflections are traced either when local reflections are enabled or when reflective water is
+ * enabled in CoreRenderingConfig.WaterReflectionMode.SCREEN_SPACE mode. In the latter case the planar reflection
+ * of the landscape is not rendered and rays leaving the screen fall back to the reflected sky.
+ *
+ * When the refractive/reflective blocks are rendered below full scale, their depth is kept out of the gBuffer and
+ * this node upsamples it along with their color and normals. The upsampled depth of the water surface is merged into
+ * the depth this node writes, so that the nodes downstream, e.g. the SimpleBlendMaterialsNode depth test and the depth
+ * of field and motion blur of the post-processing, see the same depth as at full scale. The screen-space reflections
+ * traced by this node still march against the depth of the opaque scene alone, so below full scale reflected rays
+ * pass through water surfaces instead of stopping on them.
+ *
  * As this node does not quite use 3D geometry and only relies on 2D sources and a 2D output buffer, it
  * could be argued that, despite its name, it represents the first step of the PostProcessing portion
  * of the rendering engine. This line of thinking draws a parallel from the film industry where
@@ -48,6 +60,7 @@ public class PrePostCompositeNode extends AbstractNode implements PropertyChange
     private static final ResourceUrn PRE_POST_MATERIAL_URN = new ResourceUrn("CoreRendering:prePostComposite");
 
     private RenderingConfig renderingConfig;
+    private CoreRenderingConfig coreRenderingConfig;
     private WorldRenderer worldRenderer;
     private Camera activeCamera;
     private DisplayResolutionDependentFbo displayResolutionDependentFbo;
@@ -56,7 +69,10 @@ public class PrePostCompositeNode extends AbstractNode implements PropertyChange
 
     private int textureSlot = 0;
 
+    private boolean refractiveReflectiveUpsampleIsEnabled;
+
     private boolean localReflectionsAreEnabled;
+    private boolean screenSpaceWaterReflectionsAreEnabled;
 
     private boolean ssaoIsEnabled;
     private int texSsaoSlot = -1;
@@ -128,6 +144,10 @@ public class PrePostCompositeNode extends AbstractNode implements PropertyChange
         renderingConfig = context.get(Config.class).getRendering();
         localReflectionsAreEnabled = renderingConfig.isLocalReflections();
         renderingConfig.subscribe(RenderingConfig.LOCAL_REFLECTIONS, this);
+        coreRenderingConfig = context.get(CoreRenderingConfig.class);
+        screenSpaceWaterReflectionsAreEnabled = isScreenSpaceWaterReflections();
+        renderingConfig.subscribe(RenderingConfig.REFLECTIVE_WATER, this);
+        coreRenderingConfig.subscribe(CoreRenderingConfig.WATER_REFLECTION_MODE, this);
         ssaoIsEnabled = renderingConfig.isSsao();
         renderingConfig.subscribe(RenderingConfig.SSAO, this);
         outlineIsEnabled = renderingConfig.isOutline();
@@ -161,8 +181,18 @@ public class PrePostCompositeNode extends AbstractNode implements PropertyChange
         setEdgesInputTexture = new SetInputTextureFromFbo(textureSlot++, getInputFboData(2),
                 ColorTexture, displayResolutionDependentFbo, PRE_POST_MATERIAL_URN, "texEdges");
 
+        // Refractive/reflective blocks rendered below full scale are upsampled with the help of their own depth and
+        // normals, so that their edges against the opaque scene do not bleed.
+        FBO refractiveReflectiveFbo = getInputFboData(4);
+        refractiveReflectiveUpsampleIsEnabled = refractiveReflectiveFbo.width() != lastUpdatedGBuffer.width()
+                || refractiveReflectiveFbo.height() != lastUpdatedGBuffer.height();
+        if (refractiveReflectiveUpsampleIsEnabled) {
+            addDesiredStateChange(new SetInputTextureFromFbo(textureSlot++, refractiveReflectiveFbo,
+                    DepthStencilTexture, displayResolutionDependentFbo, PRE_POST_MATERIAL_URN,
+                    "texSceneReflectiveRefractiveDepth"));
+        }
 
-        if (localReflectionsAreEnabled) {
+        if (refractiveReflectiveUpsampleIsEnabled || localReflectionsAreEnabled || screenSpaceWaterReflectionsAreEnabled) {
             // setReflectiveRefractiveNormalsInputTexture = new SetInputTextureFromFbo(textureSlot++, getInputFboData(4),
             // NormalsTexture, displayResolutionDependentFbo, PRE_POST_MATERIAL_URN, "texSceneReflectiveRefractiveNormals");
             addDesiredStateChange(setReflectiveRefractiveNormalsInputTexture);
@@ -201,10 +231,12 @@ public class PrePostCompositeNode extends AbstractNode implements PropertyChange
         prePostMaterial.setFloat("viewingDistance", renderingConfig.getViewDistance().getChunkDistance().x() * 8.0f, true);
         prePostMaterial.setFloat3("cameraParameters", activeCamera.getzNear(), activeCamera.getzFar(), 0.0f, true);
 
-        if (localReflectionsAreEnabled) {
+        if (localReflectionsAreEnabled || screenSpaceWaterReflectionsAreEnabled) {
             prePostMaterial.setMatrix4("invProjMatrix", activeCamera.getInverseProjectionMatrix(), true);
             prePostMaterial.setMatrix4("projMatrix", activeCamera.getProjectionMatrix(), true);
         }
+        prePostMaterial.setFloat("screenSpaceWaterReflections", screenSpaceWaterReflectionsAreEnabled ? 1.0f : 0.0f, true);
+        prePostMaterial.setFloat("refractiveReflectiveUpsample", refractiveReflectiveUpsampleIsEnabled ? 1.0f : 0.0f, true);
 
         if (outlineIsEnabled) {
             prePostMaterial.setFloat("outlineDepthThreshold", outlineDepthThreshold, true);
@@ -236,8 +268,12 @@ public class PrePostCompositeNode extends AbstractNode implements PropertyChange
 
         switch (propertyName) {
             case RenderingConfig.LOCAL_REFLECTIONS:
+            case RenderingConfig.REFLECTIVE_WATER:
+            case CoreRenderingConfig.WATER_REFLECTION_MODE:
                 localReflectionsAreEnabled = renderingConfig.isLocalReflections();
-                if (localReflectionsAreEnabled) {
+                screenSpaceWaterReflectionsAreEnabled = isScreenSpaceWaterReflections();
+                if (refractiveReflectiveUpsampleIsEnabled || localReflectionsAreEnabled
+                        || screenSpaceWaterReflectionsAreEnabled) {
                     addDesiredStateChange(setReflectiveRefractiveNormalsInputTexture);
                 } else {
                     removeDesiredStateChange(setReflectiveRefractiveNormalsInputTexture);
@@ -291,4 +327,9 @@ public class PrePostCompositeNode extends AbstractNode implements PropertyChange
 
         worldRenderer.requestTaskListRefresh();
     }
+
+    private boolean isScreenSpaceWaterReflections() {
+        return renderingConfig.isReflectiveWater()
+                && coreRenderingConfig.getWaterReflectionMode() == CoreRenderingConfig.WaterReflectionMode.SCREEN_SPACE;
+    }
 }
@@ -5,7 +5,8 @@ package org.terasology.corerendering.rendering.dag.nodes;
 import org.joml.Matrix3f;
 import org.joml.Matrix4f;
 import org.joml.Vector3f;
-import org.terasology.corerendering.rendering.utils.UnderwaterHelper;
+import org.joml.Vector3fc;
+import org.terasology.corerendering.rendering.utils.CameraEnvironmentSnapshot;
 import org.terasology.engine.config.Config;
 import org.terasology.engine.config.RenderingConfig;
 import org.terasology.engine.context.Context;
@@ -13,7 +14,6 @@ import org.terasology.engine.core.SimpleUri;
 import org.terasology.engine.monitoring.PerformanceMonitor;
 import org.terasology.engine.rendering.assets.material.Material;
 import org.terasology.engine.rendering.assets.shader.ShaderProgramFeature;
-import org.terasology.engine.rendering.backdrop.BackdropProvider;
 import org.terasology.engine.rendering.cameras.Camera;
 import org.terasology.engine.rendering.dag.AbstractNode;
 import org.terasology.engine.rendering.dag.StateChange;
@@ -23,12 +23,12 @@ import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
 import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
 import org.terasology.engine.rendering.dag.stateChanges.SetInputTexture2D;
 import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
 import org.terasology.engine.rendering.opengl.FBO;
 import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
 import org.terasology.engine.rendering.primitives.ChunkMesh;
 import org.terasology.engine.rendering.world.RenderQueuesHelper;
 import org.terasology.engine.rendering.world.WorldRenderer;
-import org.terasology.engine.world.WorldProvider;
 import org.terasology.engine.world.chunks.RenderableChunk;
 import org.terasology.gestalt.assets.ResourceUrn;
 import org.terasology.gestalt.naming.Name;
@@ -87,9 +87,8 @@ public class RefractiveReflectiveBlocksNode extends AbstractNode implements Prop
 
     private RenderQueuesHelper renderQueues;
     private WorldRenderer worldRenderer;
-    private BackdropProvider backdropProvider;
+    private CameraEnvironmentSnapshot cameraEnvironment;
     private RenderingConfig renderingConfig;
-    private WorldProvider worldProvider;
 
     private DisplayResolutionDependentFbo displayResolutionDependentFbo;
 
@@ -97,6 +96,7 @@ public class RefractiveReflectiveBlocksNode extends AbstractNode implements Prop
 
     private FBO lastUpdatedGBuffer;
     private FBO refractiveReflectiveFbo;
+    private boolean sharesGBufferDepth;
 
     private Camera activeCamera;
 
@@ -137,7 +137,7 @@ public class RefractiveReflectiveBlocksNode extends AbstractNode implements Prop
     private float parallaxScale = 0.5f;
 
     @SuppressWarnings("FieldCanBeLocal")
-    private Vector3f sunDirection;
+    private Vector3fc sunDirection;
 
     public RefractiveReflectiveBlocksNode(String nodeUri, Name providingModule, Context context) {
         super(nodeUri, providingModule, context);
@@ -147,8 +147,7 @@ public class RefractiveReflectiveBlocksNode extends AbstractNode implements Prop
                                                                   waveSizeFalloff, waveSpeed, waveSpeedFalloff, waterOffsetY);
 
         renderQueues = context.get(RenderQueuesHelper.class);
-        backdropProvider = context.get(BackdropProvider.class);
-        worldProvider = context.get(WorldProvider.class);
+        cameraEnvironment = context.get(CameraEnvironmentSnapshot.class);
 
         worldRenderer = context.get(WorldRenderer.class);
         activeCamera = worldRenderer.getActiveCamera();
@@ -179,13 +178,20 @@ public class RefractiveReflectiveBlocksNode extends AbstractNode implements Prop
         displayResolutionDependentFbo = context.get(DisplayResolutionDependentFbo.class);
         addOutputFboConnection(1, refractiveReflectiveFbo);
 
-        lastUpdatedGBuffer.attachDepthBufferTo(refractiveReflectiveFbo);
-
-        displayResolutionDependentFbo.subscribe(PRE_FBO_REGENERATION, this);
-        displayResolutionDependentFbo.subscribe(POST_FBO_REGENERATION, this);
+        // At full scale the gBuffer depth buffer is shared, so that the water is depth-tested against the opaque
+        // scene and its own depth ends up in the gBuffer. At lower scales the FBO comes with a depth buffer of its own,
+        // filled beforehand by a DepthDownSamplerNode.
+        sharesGBufferDepth = refractiveReflectiveFbo.width() == lastUpdatedGBuffer.width()
+                && refractiveReflectiveFbo.height() == lastUpdatedGBuffer.height();
+        if (sharesGBufferDepth) {
+            lastUpdatedGBuffer.attachDepthBufferTo(refractiveReflectiveFbo);
 
+            displayResolutionDependentFbo.subscribe(PRE_FBO_REGENERATION, this);
+            displayResolutionDependentFbo.subscribe(POST_FBO_REGENERATION, this);
+        }
 
         addDesiredStateChange(new BindFbo(refractiveReflectiveFbo));
+        addDesiredStateChange(new SetViewportToSizeOf(refractiveReflectiveFbo));
         addDesiredStateChange(new EnableMaterial(CHUNK_MATERIAL_URN));
         int textureSlot = 0;
         addDesiredStateChange(new SetInputTexture2D(textureSlot++, "engine:terrain", CHUNK_MATERIAL_URN, "textureAtlas"));
@@ -228,12 +234,11 @@ public class RefractiveReflectiveBlocksNode extends AbstractNode implements Prop
 
         // Common Shader Parameters
 
-        sunDirection = backdropProvider.getSunDirection(false);
+        sunDirection = cameraEnvironment.getSunDirection(false);
 
-        chunkMaterial.setFloat("daylight", backdropProvider.getDaylight(), true);
-        chunkMaterial.setFloat("swimming", UnderwaterHelper.isUnderwater(
-                activeCamera.getPosition(), worldProvider, renderingConfig) ? 1.0f : 0.0f, true);
-        chunkMaterial.setFloat("time", worldProvider.getTime().getDays(), true);
+        chunkMaterial.setFloat("daylight", cameraEnvironment.getDaylight(), true);
+        chunkMaterial.setFloat("swimming", cameraEnvironment.isUnderwater() ? 1.0f : 0.0f, true);
+        chunkMaterial.setFloat("time", cameraEnvironment.getDays(), true);
         chunkMaterial.setFloat3("sunVec", sunDirection, true);
 
         // Specific Shader Parameters
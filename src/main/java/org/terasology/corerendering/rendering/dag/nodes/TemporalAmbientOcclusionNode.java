@@ -0,0 +1,170 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.joml.Matrix4f;
+import org.terasology.corerendering.rendering.CoreRenderingConfig;
+import org.terasology.corerendering.rendering.utils.FboBlitHelper;
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.assets.material.Material;
+import org.terasology.engine.rendering.assets.mesh.Mesh;
+import org.terasology.engine.rendering.cameras.Camera;
+import org.terasology.engine.rendering.dag.ConditionDependentNode;
+import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
+import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.FboConfig;
+import org.terasology.engine.rendering.opengl.ScalingFactors;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
+import org.terasology.engine.utilities.Assets;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.naming.Name;
+import org.terasology.nui.properties.Range;
+
+import java.beans.PropertyChangeEvent;
+
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
+import static org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo.POST_FBO_REGENERATION;
+
+/**
+ * Instances of this node accumulate the ambient occlusion computed by the AmbientOcclusionNode over several frames,
+ * when CoreRenderingConfig.isTemporalSsao() is set. In that mode the AmbientOcclusionNode evaluates only a rotating
+ * subset of its sample kernel each frame, and this node converges to the result of the full kernel.
+ *
+ * The accumulated occlusion of the previous frame is reprojected onto the current one with the previous
+ * view-projection matrix. When temporal anti-aliasing jitters the camera, the matrices without the sub-pixel offset
+ * kept by the CameraJitterNode are used instead, as the TemporalAntiAliasingNode does: reprojecting with the jittered
+ * ones would shift the history by the difference between two successive offsets. It is discarded wherever the linear depth stored alongside it doesn't match the expected
+ * depth of the reprojected point, i.e. where the surface was not visible in the previous frame.
+ *
+ * The output FBO holds the occlusion in its red channel and the linear depth it refers to in its green channel.
+ * At the end of each frame it is copied into the history FBO, to be read during the next one.
+ */
+public class TemporalAmbientOcclusionNode extends ConditionDependentNode {
+    public static final SimpleUri SSAO_ACCUMULATED_FBO_URI = new SimpleUri("engine:fbo.ssaoAccumulated");
+    public static final SimpleUri SSAO_HISTORY_FBO_URI = new SimpleUri("engine:fbo.ssaoHistory");
+    private static final ResourceUrn SSAO_TEMPORAL_MATERIAL_URN = new ResourceUrn("CoreRendering:ssaoTemporal");
+
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.05f, max = 1.0f)
+    private float blendFactor = 0.2f;
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.01f, max = 0.2f)
+    private float depthRejectionThreshold = 0.05f;
+
+    private Material temporalMaterial;
+    private Camera activeCamera;
+    private CameraJitterNode cameraJitterNode;
+    private Mesh renderQuad;
+
+    private FBO accumulatedFbo;
+    private FBO historyFbo;
+    private boolean historyIsValid;
+
+    private final Matrix4f reprojectionMatrix = new Matrix4f();
+
+    /**
+     * Constructs a TemporalAmbientOcclusionNode instance.
+     *
+     * @param cameraJitterNode the node jittering the camera, providing the matrices to reproject the history with,
+     *                         or null if the camera is not jittered.
+     */
+    public TemporalAmbientOcclusionNode(String nodeUri, Name providingModule, Context context,
+                                        CameraJitterNode cameraJitterNode) {
+        super(nodeUri, providingModule, context);
+
+        activeCamera = worldRenderer.getActiveCamera();
+        this.cameraJitterNode = cameraJitterNode;
+
+        RenderingConfig renderingConfig = context.get(Config.class).getRendering();
+        renderingConfig.subscribe(RenderingConfig.SSAO, this);
+        requiresCondition(renderingConfig::isSsao);
+        addOutputFboConnection(1);
+        addOutputBufferPairConnection(1);
+
+        this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
+                .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+        addDesiredStateChange(new EnableMaterial(SSAO_TEMPORAL_MATERIAL_URN));
+        temporalMaterial = getMaterial(SSAO_TEMPORAL_MATERIAL_URN);
+
+        DisplayResolutionDependentFbo displayResolutionDependentFBOs = context.get(DisplayResolutionDependentFbo.class);
+        ScalingFactors ssaoScale = context.get(CoreRenderingConfig.class).getSsaoScale();
+        accumulatedFbo = requiresFbo(new FboConfig(SSAO_ACCUMULATED_FBO_URI, ssaoScale, FBO.Type.HDR),
+                displayResolutionDependentFBOs);
+        historyFbo = requiresFbo(new FboConfig(SSAO_HISTORY_FBO_URI, ssaoScale, FBO.Type.HDR),
+                displayResolutionDependentFBOs);
+        displayResolutionDependentFBOs.subscribe(POST_FBO_REGENERATION, this);
+
+        addOutputFboConnection(1, accumulatedFbo);
+        addOutputBufferPairConnection(1, getInputBufferPairConnection(1));
+
+        addDesiredStateChange(new BindFbo(accumulatedFbo));
+        addDesiredStateChange(new SetViewportToSizeOf(accumulatedFbo));
+
+        int texId = 0;
+        addDesiredStateChange(new SetInputTextureFromFbo(texId++, getInputFboData(1), ColorTexture,
+                displayResolutionDependentFBOs, SSAO_TEMPORAL_MATERIAL_URN, "texSsao"));
+        addDesiredStateChange(new SetInputTextureFromFbo(texId++, getInputFboData(2), ColorTexture,
+                displayResolutionDependentFBOs, SSAO_TEMPORAL_MATERIAL_URN, "texLinearDepth"));
+        addDesiredStateChange(new SetInputTextureFromFbo(texId, historyFbo, ColorTexture,
+                displayResolutionDependentFBOs, SSAO_TEMPORAL_MATERIAL_URN, "texHistory"));
+
+        historyIsValid = false;
+    }
+
+    /**
+     * Blends the occlusion of the current frame with the reprojected history, then stores the result as history.
+     */
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        if (cameraJitterNode != null) {
+            reprojectionMatrix.set(cameraJitterNode.getPreviousViewProjectionMatrix())
+                    .mul(cameraJitterNode.getInverseViewProjectionMatrix());
+        } else {
+            reprojectionMatrix.set(activeCamera.getPrevViewProjectionMatrix())
+                    .mul(activeCamera.getInverseViewProjectionMatrix());
+        }
+
+        temporalMaterial.setMatrix4("projMatrix", activeCamera.getProjectionMatrix(), true);
+        temporalMaterial.setMatrix4("reprojectionMatrix", reprojectionMatrix, true);
+        temporalMaterial.setFloat("blendFactor", historyIsValid ? blendFactor : 1.0f, true);
+        temporalMaterial.setFloat("depthRejectionThreshold", depthRejectionThreshold, true);
+
+        renderQuad.render();
+
+        FboBlitHelper.blitColor(accumulatedFbo, historyFbo);
+        historyIsValid = true;
+
+        PerformanceMonitor.endActivity();
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        String propertyName = event.getPropertyName();
+
+        switch (propertyName) {
+            case RenderingConfig.SSAO:
+                historyIsValid = false;
+                super.propertyChange(event);
+                break;
+
+            case POST_FBO_REGENERATION:
+                historyIsValid = false;
+                break;
+
+            // default: no other cases are possible - see subscribe operations in initialize().
+        }
+    }
+}
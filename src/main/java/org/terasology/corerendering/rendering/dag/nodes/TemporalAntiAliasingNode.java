@@ -0,0 +1,149 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.joml.Matrix4f;
+import org.terasology.corerendering.rendering.utils.FboBlitHelper;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.assets.material.Material;
+import org.terasology.engine.rendering.assets.mesh.Mesh;
+import org.terasology.engine.rendering.cameras.Camera;
+import org.terasology.engine.rendering.dag.ConditionDependentNode;
+import org.terasology.engine.rendering.dag.stateChanges.BindFbo;
+import org.terasology.engine.rendering.dag.stateChanges.EnableMaterial;
+import org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo;
+import org.terasology.engine.rendering.dag.stateChanges.SetViewportToSizeOf;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.FboConfig;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
+import org.terasology.engine.utilities.Assets;
+import org.terasology.gestalt.assets.ResourceUrn;
+import org.terasology.gestalt.naming.Name;
+import org.terasology.nui.properties.Range;
+
+import java.beans.PropertyChangeEvent;
+
+import static org.terasology.engine.rendering.dag.stateChanges.SetInputTextureFromFbo.FboTexturesTypes.ColorTexture;
+import static org.terasology.engine.rendering.opengl.ScalingFactors.FULL_SCALE;
+import static org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo.POST_FBO_REGENERATION;
+
+/**
+ * Instances of this node smooth the edges of the HDR scene over time, when CoreRenderingConfig.isTemporalAntiAliasing()
+ * is set. The CameraJitterNode shifts the projection by a different sub-pixel offset each frame, so that successive
+ * frames sample each pixel at different locations, and this node accumulates them.
+ *
+ * The accumulated scene of the previous frame is reprojected onto the current one with the previous view-projection
+ * matrix, as done by the TemporalAmbientOcclusionNode, using the matrices without offset kept by the CameraJitterNode,
+ * and clamped to the range of colors found around each pixel
+ * in the current frame, so that disoccluded or moving areas don't leave trails behind.
+ *
+ * The linear depth only covers the opaque scene: water and the other blended surfaces are reprojected with the depth
+ * of whatever lies behind them. Their history is therefore slightly misplaced while the camera moves, which the
+ * neighbourhood clamp mostly hides, and exact while it is still.
+ *
+ * The scene is expected as input FBO 1 and the full scale linear depth as input FBO 2. At the end of each frame
+ * the output FBO is copied into the history FBO, to be read during the next one.
+ */
+public class TemporalAntiAliasingNode extends ConditionDependentNode {
+    public static final SimpleUri TAA_ACCUMULATED_FBO_URI = new SimpleUri("engine:fbo.taaAccumulated");
+    public static final SimpleUri TAA_HISTORY_FBO_URI = new SimpleUri("engine:fbo.taaHistory");
+    private static final ResourceUrn TAA_MATERIAL_URN = new ResourceUrn("CoreRendering:temporalAntiAliasing");
+
+    @SuppressWarnings("FieldCanBeLocal")
+    @Range(min = 0.02f, max = 1.0f)
+    private float blendFactor = 0.1f;
+
+    private Material taaMaterial;
+    private Camera activeCamera;
+    private CameraJitterNode cameraJitterNode;
+    private Mesh renderQuad;
+
+    private FBO accumulatedFbo;
+    private FBO historyFbo;
+    private boolean historyIsValid;
+
+    private final Matrix4f reprojectionMatrix = new Matrix4f();
+
+    /**
+     * @param cameraJitterNode the node jittering the camera, providing the matrices to reproject the history with.
+     */
+    public TemporalAntiAliasingNode(String nodeUri, Name providingModule, Context context,
+                                    CameraJitterNode cameraJitterNode) {
+        super(nodeUri, providingModule, context);
+
+        activeCamera = worldRenderer.getActiveCamera();
+        this.cameraJitterNode = cameraJitterNode;
+
+        addOutputFboConnection(1);
+
+        this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
+                .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+        addDesiredStateChange(new EnableMaterial(TAA_MATERIAL_URN));
+        taaMaterial = getMaterial(TAA_MATERIAL_URN);
+
+        DisplayResolutionDependentFbo displayResolutionDependentFBOs = context.get(DisplayResolutionDependentFbo.class);
+        accumulatedFbo = requiresFbo(new FboConfig(TAA_ACCUMULATED_FBO_URI, FULL_SCALE, FBO.Type.HDR),
+                displayResolutionDependentFBOs);
+        historyFbo = requiresFbo(new FboConfig(TAA_HISTORY_FBO_URI, FULL_SCALE, FBO.Type.HDR),
+                displayResolutionDependentFBOs);
+        displayResolutionDependentFBOs.subscribe(POST_FBO_REGENERATION, this);
+
+        addOutputFboConnection(1, accumulatedFbo);
+
+        addDesiredStateChange(new BindFbo(accumulatedFbo));
+        addDesiredStateChange(new SetViewportToSizeOf(accumulatedFbo));
+
+        int texId = 0;
+        addDesiredStateChange(new SetInputTextureFromFbo(texId++, getInputFboData(1), ColorTexture,
+                displayResolutionDependentFBOs, TAA_MATERIAL_URN, "texScene"));
+        addDesiredStateChange(new SetInputTextureFromFbo(texId++, getInputFboData(2), ColorTexture,
+                displayResolutionDependentFBOs, TAA_MATERIAL_URN, "texLinearDepth"));
+        addDesiredStateChange(new SetInputTextureFromFbo(texId, historyFbo, ColorTexture,
+                displayResolutionDependentFBOs, TAA_MATERIAL_URN, "texHistory"));
+
+        historyIsValid = false;
+    }
+
+    /**
+     * Blends the scene of the current frame with the reprojected and clamped history, then stores the result as history.
+     */
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        // Without the sub-pixel offsets, which would otherwise shift the history by their difference every frame
+        reprojectionMatrix.set(cameraJitterNode.getPreviousViewProjectionMatrix())
+                .mul(cameraJitterNode.getInverseViewProjectionMatrix());
+
+        taaMaterial.setMatrix4("projMatrix", activeCamera.getProjectionMatrix(), true);
+        taaMaterial.setMatrix4("reprojectionMatrix", reprojectionMatrix, true);
+        taaMaterial.setFloat2("texelSize", 1.0f / accumulatedFbo.width(), 1.0f / accumulatedFbo.height(), true);
+        taaMaterial.setFloat("blendFactor", historyIsValid ? blendFactor : 1.0f, true);
+
+        renderQuad.render();
+
+        FboBlitHelper.blitColor(accumulatedFbo, historyFbo);
+        historyIsValid = true;
+
+        PerformanceMonitor.endActivity();
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        String propertyName = event.getPropertyName();
+
+        switch (propertyName) {
+            case POST_FBO_REGENERATION:
+                historyIsValid = false;
+                break;
+
+            // default: no other cases are possible - see subscribe operations in initialize().
+        }
+    }
+}
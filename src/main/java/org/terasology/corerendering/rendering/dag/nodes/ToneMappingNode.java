@@ -2,6 +2,9 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.corerendering.rendering.dag.nodes;
 
+import org.terasology.corerendering.rendering.CoreRenderingConfig;
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
 import org.terasology.engine.context.Context;
 import org.terasology.engine.core.SimpleUri;
 import org.terasology.engine.monitoring.PerformanceMonitor;
@@ -16,6 +19,7 @@ import org.terasology.engine.rendering.opengl.FBO;
 import org.terasology.engine.rendering.opengl.FboConfig;
 import org.terasology.engine.rendering.opengl.ScreenGrabber;
 import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
+import org.terasology.engine.rendering.opengl.fbms.ImmutableFbo;
 import org.terasology.engine.utilities.Assets;
 import org.terasology.gestalt.assets.ResourceUrn;
 import org.terasology.gestalt.naming.Name;
@@ -31,6 +35,9 @@ import static org.terasology.engine.rendering.opengl.ScalingFactors.FULL_SCALE;
  *
  * For more details on the specific algorithm used see shader resource toneMapping_frag.glsl.
  *
+ * When CoreRenderingConfig.isGpuEyeAdaptation() is set, the exposure is instead sampled from the output of the
+ * AdaptExposureNode, provided as input FBO 2, whenever eye adaptation is enabled.
+ *
  * This node stores its output in TONE_MAPPED_FBO_URI.
  */
 public class ToneMappingNode extends AbstractNode {
@@ -38,6 +45,8 @@ public class ToneMappingNode extends AbstractNode {
     private static final ResourceUrn TONE_MAPPING_MATERIAL_URN = new ResourceUrn("CoreRendering:toneMapping");
 
     private ScreenGrabber screenGrabber;
+    private RenderingConfig renderingConfig;
+    private boolean gpuEyeAdaptation;
 
     private Material toneMappingMaterial;
 
@@ -54,6 +63,8 @@ public class ToneMappingNode extends AbstractNode {
         super(nodeUri, providingModule, context);
 
         screenGrabber = context.get(ScreenGrabber.class);
+        renderingConfig = context.get(Config.class).getRendering();
+        gpuEyeAdaptation = context.get(CoreRenderingConfig.class).isGpuEyeAdaptation();
         addOutputFboConnection(1);
         this.renderQuad = Assets.get(new ResourceUrn("engine:ScreenQuad"), Mesh.class)
                 .orElseThrow(() -> new RuntimeException("Failed to resolve render Quad"));
@@ -78,8 +89,13 @@ public class ToneMappingNode extends AbstractNode {
         FBO initialPostProcessingFbo = getInputFboData(1);
 
         int textureSlot = 0;
-        addDesiredStateChange(new SetInputTextureFromFbo(textureSlot, initialPostProcessingFbo, ColorTexture,
+        addDesiredStateChange(new SetInputTextureFromFbo(textureSlot++, initialPostProcessingFbo, ColorTexture,
                 displayResolutionDependentFboManager, TONE_MAPPING_MATERIAL_URN, "texScene"));
+
+        if (gpuEyeAdaptation) {
+            addDesiredStateChange(new SetInputTextureFromFbo(textureSlot, getInputFboData(2), ColorTexture,
+                    context.get(ImmutableFbo.class), TONE_MAPPING_MATERIAL_URN, "texExposure"));
+        }
     }
 
     /**
@@ -92,7 +108,13 @@ public class ToneMappingNode extends AbstractNode {
         PerformanceMonitor.startActivity("rendering/" + getUri());
 
         // Specific Shader Parameters
-        toneMappingMaterial.setFloat("exposure", screenGrabber.getExposure() * exposureBias, true);
+        if (gpuEyeAdaptation && renderingConfig.isEyeAdaptation()) {
+            toneMappingMaterial.setFloat("exposure", exposureBias, true);
+            toneMappingMaterial.setFloat("exposureFromTexture", 1.0f, true);
+        } else {
+            toneMappingMaterial.setFloat("exposure", screenGrabber.getExposure() * exposureBias, true);
+            toneMappingMaterial.setFloat("exposureFromTexture", 0.0f, true);
+        }
         toneMappingMaterial.setFloat("whitePoint", whitePoint, true);
 
         // Actual Node Processing
@@ -100,4 +122,12 @@ public class ToneMappingNode extends AbstractNode {
 
         PerformanceMonitor.endActivity();
     }
+
+    public float getExposureBias() {
+        return exposureBias;
+    }
+
+    public float getWhitePoint() {
+        return whitePoint;
+    }
 }
@@ -0,0 +1,52 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.corerendering.rendering.dag.nodes;
+
+import org.terasology.corerendering.rendering.utils.CameraEnvironmentSnapshot;
+import org.terasology.engine.config.Config;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.monitoring.PerformanceMonitor;
+import org.terasology.engine.rendering.backdrop.BackdropProvider;
+import org.terasology.engine.rendering.cameras.Camera;
+import org.terasology.engine.rendering.dag.AbstractNode;
+import org.terasology.engine.rendering.world.WorldRenderer;
+import org.terasology.engine.world.WorldProvider;
+import org.terasology.gestalt.naming.Name;
+
+/**
+ * Refreshes the CameraEnvironmentSnapshot found in the context, once per frame.
+ *
+ * This node doesn't render anything: it is meant to run before any other node of the render graph, so that
+ * the nodes reading the snapshot all see the same, up-to-date state of the world around the camera.
+ */
+public class UpdateCameraEnvironmentNode extends AbstractNode {
+    private CameraEnvironmentSnapshot cameraEnvironment;
+    private WorldProvider worldProvider;
+    private BackdropProvider backdropProvider;
+    private RenderingConfig renderingConfig;
+    private Camera activeCamera;
+
+    public UpdateCameraEnvironmentNode(String nodeUri, Name providingModule, Context context) {
+        super(nodeUri, providingModule, context);
+
+        cameraEnvironment = context.get(CameraEnvironmentSnapshot.class);
+        worldProvider = context.get(WorldProvider.class);
+        backdropProvider = context.get(BackdropProvider.class);
+        renderingConfig = context.get(Config.class).getRendering();
+        activeCamera = context.get(WorldRenderer.class).getActiveCamera();
+    }
+
+    @Override
+    public void setDependencies(Context context) {
+    }
+
+    @Override
+    public void process() {
+        PerformanceMonitor.startActivity("rendering/" + getUri());
+
+        cameraEnvironment.update(activeCamera, worldProvider, backdropProvider, renderingConfig);
+
+        PerformanceMonitor.endActivity();
+    }
+}
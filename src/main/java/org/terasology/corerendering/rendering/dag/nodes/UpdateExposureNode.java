@@ -2,26 +2,35 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.corerendering.rendering.dag.nodes;
 
-import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL12;
+import org.terasology.corerendering.rendering.CoreRenderingConfig;
+import org.terasology.corerendering.rendering.utils.GpuReadbackService;
 import org.terasology.engine.config.Config;
 import org.terasology.engine.config.RenderingConfig;
 import org.terasology.engine.context.Context;
 import org.terasology.engine.monitoring.PerformanceMonitor;
 import org.terasology.engine.rendering.dag.AbstractNode;
-import org.terasology.engine.rendering.opengl.PBO;
+import org.terasology.engine.rendering.opengl.FBO;
 import org.terasology.engine.rendering.opengl.ScreenGrabber;
 import org.terasology.gestalt.naming.Name;
 import org.terasology.math.TeraMath;
 import org.terasology.nui.properties.Range;
 
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_BYTE;
+import static org.lwjgl.opengl.GL12.GL_BGRA;
+import static org.lwjgl.opengl.GL30.GL_COLOR_ATTACHMENT0;
+
 /**
  * An instance of this node takes advantage of a downsampled version of the scene,
  * calculates its relative luminance (1) and updates the exposure parameter of the
  * ScreenGrabber accordingly.
  *
  * Notice that while this node takes advantage of the content of an FBO, it
- * doesn't actually render anything.
+ * doesn't actually render anything. The downsampled scene is read back through
+ * the GpuReadbackService, so the exposure follows the luminance of a frame
+ * rendered a few frames earlier, without stalling the rendering.
+ *
+ * When CoreRenderingConfig.isGpuEyeAdaptation() is set the AdaptExposureNode takes care of eye adaptation
+ * instead, and this node skips the readback entirely.
  *
  * (1) See https://en.wikipedia.org/wiki/Luma_(video)#Use_of_relative_luminance
  */
@@ -45,9 +54,11 @@ public class UpdateExposureNode extends AbstractNode {
     private ScreenGrabber screenGrabber;
 
     private RenderingConfig renderingConfig;
-    private int downSampledSceneId;
-    private PBO writeOnlyPbo;   // PBOs are 1x1 pixels buffers used to read GPU data back into the CPU.
-                                // This data is then used in the context of eye adaptation.
+    private boolean gpuEyeAdaptation;
+    private GpuReadbackService readbackService;
+    private FBO downSampledScene;
+    private boolean readbackPending;
+    private float sceneLuminance = -1.0f; // Negative until the first readback completes.
 
     public UpdateExposureNode(String nodeUri, Name providingModule, Context context) {
         super(nodeUri, providingModule, context);
@@ -55,13 +66,16 @@ public class UpdateExposureNode extends AbstractNode {
         screenGrabber = context.get(ScreenGrabber.class);
 
         renderingConfig = context.get(Config.class).getRendering();
-        // downSampledScene = requiresFbo(DownSamplerForExposureNode.FBO_1X1_CONFIG, context.get(ImmutableFbo.class));
-        writeOnlyPbo = new PBO(1, 1);
+        gpuEyeAdaptation = context.get(CoreRenderingConfig.class).isGpuEyeAdaptation();
+        readbackService = context.get(GpuReadbackService.class);
     }
 
     @Override
     public void setDependencies(Context context) {
-        downSampledSceneId = getInputFboData(1).getId();
+        // Histogram metering forces isGpuEyeAdaptation(), in which case there is no downsampled scene to read from.
+        if (!gpuEyeAdaptation) {
+            downSampledScene = getInputFboData(1);
+        }
     }
 
     /**
@@ -74,18 +88,29 @@ public class UpdateExposureNode extends AbstractNode {
     @Override
     public void process() {
         if (renderingConfig.isEyeAdaptation()) {
+            if (gpuEyeAdaptation) {
+                return;
+            }
+
             PerformanceMonitor.startActivity("rendering/" + getUri());
 
-            float[] pixels = new float[3];
-            writeOnlyPbo.readBackPixels(buffer -> {
-                pixels[0] = (buffer.get(2) & 0xFF) / 255.f;
-                pixels[1] = (buffer.get(1) & 0xFF) / 255.f;
-                pixels[2] = (buffer.get(0) & 0xFF) / 255.f;
-            });
-            writeOnlyPbo.copyFromFBO(downSampledSceneId, 1, 1, GL12.GL_BGRA, GL11.GL_UNSIGNED_BYTE);
+            if (!readbackPending) {
+                readbackPending = readbackService.request(downSampledScene, GL_COLOR_ATTACHMENT0, 0, 0, 1, 1,
+                        GL_BGRA, GL_UNSIGNED_BYTE, buffer -> {
+                            float red = (buffer.get(2) & 0xFF) / 255.f;
+                            float green = (buffer.get(1) & 0xFF) / 255.f;
+                            float blue = (buffer.get(0) & 0xFF) / 255.f;
+                            // See: https://en.wikipedia.org/wiki/Luma_(video)#Use_of_relative_luminance for the constants below.
+                            sceneLuminance = 0.2126f * red + 0.7152f * green + 0.0722f * blue;
+                            readbackPending = false;
+                        });
+            }
 
-            // See: https://en.wikipedia.org/wiki/Luma_(video)#Use_of_relative_luminance for the constants below.
-            float currentSceneLuminance = 0.2126f * pixels[0] + 0.7152f * pixels[1] + 0.0722f * pixels[2];
+            if (sceneLuminance < 0) {
+                PerformanceMonitor.endActivity();
+                return;
+            }
+            float currentSceneLuminance = sceneLuminance;
 
             float targetExposure = hdrMaxExposure;
 
@@ -5,6 +5,7 @@ package org.terasology.corerendering.rendering.dag.nodes;
 import org.joml.Matrix3f;
 import org.joml.Matrix4f;
 import org.joml.Vector3f;
+import org.terasology.corerendering.rendering.CoreRenderingConfig;
 import org.terasology.engine.config.Config;
 import org.terasology.engine.config.RenderingConfig;
 import org.terasology.engine.context.Context;
@@ -45,6 +46,8 @@ import static org.terasology.engine.rendering.primitives.ChunkMesh.RenderPhase.O
  * for horizontal surfaces.
  *
  * An instance of this class is enabled or disabled depending on the reflections setting in the rendering config.
+ * It is also disabled when CoreRenderingConfig's water reflection mode is SCREEN_SPACE, in which case the
+ * PrePostCompositeNode traces the reflections on the water instead.
  *
  * Diagram of this node can be viewed from:
  * TODO: move diagram to the wiki when this part of the code is stable
@@ -59,6 +62,7 @@ public class WorldReflectionNode extends ConditionDependentNode {
 
     private Material chunkMaterial;
     private RenderingConfig renderingConfig;
+    private CoreRenderingConfig coreRenderingConfig;
 
     private Camera activeCamera;
 
@@ -112,8 +116,11 @@ public class WorldReflectionNode extends ConditionDependentNode {
         chunkMaterial = getMaterial(CHUNK_MATERIAL_URN);
 
         renderingConfig = context.get(Config.class).getRendering();
-        requiresCondition(() -> renderingConfig.isReflectiveWater());
+        coreRenderingConfig = context.get(CoreRenderingConfig.class);
+        requiresCondition(() -> renderingConfig.isReflectiveWater()
+                && coreRenderingConfig.getWaterReflectionMode() == CoreRenderingConfig.WaterReflectionMode.PLANAR);
         renderingConfig.subscribe(RenderingConfig.REFLECTIVE_WATER, this);
+        coreRenderingConfig.subscribe(CoreRenderingConfig.WATER_REFLECTION_MODE, this);
         isNormalMapping = renderingConfig.isNormalMapping();
         renderingConfig.subscribe(RenderingConfig.NORMAL_MAPPING, this);
         isParallaxMapping = renderingConfig.isParallaxMapping();
@@ -219,6 +226,7 @@ public class WorldReflectionNode extends ConditionDependentNode {
 
         switch (propertyName) {
             case RenderingConfig.REFLECTIVE_WATER:
+            case CoreRenderingConfig.WATER_REFLECTION_MODE:
                 break;
 
             case RenderingConfig.NORMAL_MAPPING:
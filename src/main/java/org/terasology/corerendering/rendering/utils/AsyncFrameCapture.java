@@ -0,0 +1,187 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.corerendering.rendering.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.rendering.opengl.FBO;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.lwjgl.opengl.GL11.GL_RGBA;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_BYTE;
+import static org.lwjgl.opengl.GL30.GL_COLOR_ATTACHMENT0;
+
+/**
+ * Captures the content of an FBO to PNG files without stalling the rendering, either once or continuously, and
+ * takes screenshots in the format and with the file names used by the engine's ScreenGrabber.
+ *
+ * Each capture is read back through the GpuReadbackService, a few frames later, and the pixels are then handed to
+ * a pool of background threads encoding and writing the files. If too many captures are still being read back,
+ * or too many files are waiting to be written, a capture is skipped rather than making the rendering wait.
+ * Screenshots are never skipped: one that can't be started is retried on the next frame.
+ *
+ * All the methods of this class must be called from the rendering thread, within Node.process().
+ */
+public class AsyncFrameCapture {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncFrameCapture.class);
+    private static final int MAX_PENDING_READBACKS = 3;
+    private static final int ENCODER_THREADS = 2;
+    private static final int MAX_PENDING_ENCODES = 8;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final Path outputDirectory;
+    private final GpuReadbackService readbackService;
+    private final ExecutorService encoders;
+    private final AtomicInteger pendingEncodes = new AtomicInteger();
+    private int pendingReadbacks;
+
+    private boolean singleCaptureRequested;
+    private String screenshotFormat;
+    private float continuousFramesPerSecond;
+    private long nextContinuousCaptureNanos;
+    private int captureCount;
+    private int skippedCount;
+    private final String sessionName = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+    private final SimpleDateFormat screenshotDateFormat = new SimpleDateFormat("yyMMddHHmmssSSS");
+
+    public AsyncFrameCapture(Path outputDirectory, GpuReadbackService readbackService) {
+        this.outputDirectory = outputDirectory;
+        this.readbackService = readbackService;
+        encoders = Executors.newFixedThreadPool(ENCODER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "Frame capture encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Captures the next frame passed to update().
+     */
+    public void requestCapture() {
+        singleCaptureRequested = true;
+    }
+
+    /**
+     * Captures the next frame passed to update() as a screenshot, written in the given ImageIO format.
+     */
+    public void requestScreenshot(String format) {
+        screenshotFormat = format;
+    }
+
+    /**
+     * Captures the frames passed to update() at the given rate, until stopContinuousCapture() is called.
+     * Frames are captured at most once per call to update(), so the actual rate can't exceed the frame rate.
+     */
+    public void startContinuousCapture(float framesPerSecond) {
+        continuousFramesPerSecond = framesPerSecond;
+        nextContinuousCaptureNanos = System.nanoTime();
+    }
+
+    public void stopContinuousCapture() {
+        continuousFramesPerSecond = 0;
+        logger.info("Frame capture stopped: {} frames captured, {} skipped.", captureCount, skippedCount);
+    }
+
+    public boolean isCapturingContinuously() {
+        return continuousFramesPerSecond > 0;
+    }
+
+    /**
+     * Starts a new capture of the first color attachment of the given FBO, if one is due.
+     * Leaves the default framebuffer bound.
+     */
+    public void update(FBO source) {
+        boolean continuousCaptureDue = false;
+        if (isCapturingContinuously() && System.nanoTime() >= nextContinuousCaptureNanos) {
+            continuousCaptureDue = true;
+            nextContinuousCaptureNanos += (long) (1e9 / continuousFramesPerSecond);
+            // After a long frame, don't try to catch up with a burst of captures
+            nextContinuousCaptureNanos = Math.max(nextContinuousCaptureNanos, System.nanoTime());
+        }
+
+        if (screenshotFormat != null && pendingReadbacks < MAX_PENDING_READBACKS
+                && startCapture(source, screenshotFormat, true)) {
+            screenshotFormat = null;
+        }
+
+        if (singleCaptureRequested || continuousCaptureDue) {
+            singleCaptureRequested = false;
+            if (pendingReadbacks >= MAX_PENDING_READBACKS || pendingEncodes.get() >= MAX_PENDING_ENCODES
+                    || !startCapture(source, "png", false)) {
+                skippedCount++;
+            }
+        }
+    }
+
+    private boolean startCapture(FBO source, String format, boolean isScreenshot) {
+        int width = source.width();
+        int height = source.height();
+        // Named when requested rather than when written, as the engine names its screenshots
+        Path file = isScreenshot
+                ? outputDirectory.resolve("Terasology-" + screenshotDateFormat.format(new Date())
+                        + "-" + width + "x" + height + "." + format)
+                : outputDirectory.resolve(String.format("capture-%s-%05d.%s", sessionName, captureCount, format));
+        boolean started = readbackService.request(source, GL_COLOR_ATTACHMENT0, 0, 0, width, height,
+                GL_RGBA, GL_UNSIGNED_BYTE, mappedPixels -> {
+                    pendingReadbacks--;
+                    // The mapping is only valid during the callback: the encoders get a copy
+                    ByteBuffer pixels = ByteBuffer.allocate(mappedPixels.remaining());
+                    pixels.put(mappedPixels).flip();
+                    submitEncode(pixels, width, height, file, format);
+                });
+        if (started) {
+            pendingReadbacks++;
+            if (!isScreenshot) {
+                captureCount++;
+            }
+        }
+        return started;
+    }
+
+    private void submitEncode(ByteBuffer pixels, int width, int height, Path file, String format) {
+        pendingEncodes.incrementAndGet();
+        encoders.submit(() -> {
+            try {
+                if (!ImageIO.write(toImage(pixels, width, height), format, file.toFile())) {
+                    logger.error("No image writer found for the format '{}' of frame capture {}", format, file);
+                }
+            } catch (IOException e) {
+                logger.error("Failed to write frame capture {}", file, e);
+            } finally {
+                pendingEncodes.decrementAndGet();
+            }
+        });
+    }
+
+    private static BufferedImage toImage(ByteBuffer pixels, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            // OpenGL rows go from the bottom to the top of the image
+            int rowOffset = (height - 1 - y) * width * BYTES_PER_PIXEL;
+            for (int x = 0; x < width; x++) {
+                int i = rowOffset + x * BYTES_PER_PIXEL;
+                int r = pixels.get(i) & 0xFF;
+                int g = pixels.get(i + 1) & 0xFF;
+                int b = pixels.get(i + 2) & 0xFF;
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    public void dispose() {
+        // Lets the files already read back be written
+        encoders.shutdown();
+    }
+}
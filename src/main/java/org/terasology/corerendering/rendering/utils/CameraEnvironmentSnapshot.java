@@ -0,0 +1,86 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.corerendering.rendering.utils;
+
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+import org.terasology.engine.config.RenderingConfig;
+import org.terasology.engine.rendering.backdrop.BackdropProvider;
+import org.terasology.engine.rendering.cameras.Camera;
+import org.terasology.engine.world.WorldProvider;
+
+/**
+ * Holds the state of the world around the active camera, as needed by the rendering nodes during a frame.
+ *
+ * The snapshot is refreshed once per frame by the UpdateCameraEnvironmentNode, at the very beginning of the render
+ * graph, so that the nodes reading it do not repeat the same block lookups and backdrop queries independently.
+ * An instance of this class is put in the context by the CoreRenderingModule.
+ */
+public class CameraEnvironmentSnapshot {
+    private final Vector3f scratchPosition = new Vector3f();
+
+    private boolean underwater;
+    private final Vector3f liquidTint = new Vector3f();
+    private final Vector3f sunDirection = new Vector3f();
+    private final Vector3f moonlightFlippedSunDirection = new Vector3f();
+    private float daylight;
+    private float turbidity;
+    private float days;
+
+    /**
+     * Captures the current state of the world around the given camera.
+     */
+    public void update(Camera camera, WorldProvider worldProvider, BackdropProvider backdropProvider,
+                       RenderingConfig renderingConfig) {
+        Vector3fc cameraPosition = camera.getPosition();
+
+        underwater = UnderwaterHelper.isUnderwater(cameraPosition, worldProvider, renderingConfig, scratchPosition);
+        liquidTint.set(worldProvider.getBlock(cameraPosition).getTint());
+
+        sunDirection.set(backdropProvider.getSunDirection(false));
+        moonlightFlippedSunDirection.set(backdropProvider.getSunDirection(true));
+        daylight = backdropProvider.getDaylight();
+        turbidity = backdropProvider.getTurbidity();
+        days = worldProvider.getTime().getDays();
+    }
+
+    /**
+     * Returns true if the camera is below the (possibly animated) surface of a liquid.
+     */
+    public boolean isUnderwater() {
+        return underwater;
+    }
+
+    /**
+     * Returns the tint of the block the camera is in.
+     */
+    public Vector3fc getLiquidTint() {
+        return liquidTint;
+    }
+
+    /**
+     * Returns the direction of the sun, as per BackdropProvider.getSunDirection(boolean).
+     *
+     * @param moonlightFlip if true, the direction is flipped when the sun is below the horizon, giving the direction
+     *                      of the moon instead
+     */
+    public Vector3fc getSunDirection(boolean moonlightFlip) {
+        return moonlightFlip ? moonlightFlippedSunDirection : sunDirection;
+    }
+
+    public float getDaylight() {
+        return daylight;
+    }
+
+    public float getTurbidity() {
+        return turbidity;
+    }
+
+    /**
+     * Returns the world time, in days.
+     */
+    public float getDays() {
+        return days;
+    }
+}
@@ -0,0 +1,38 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.corerendering.rendering.utils;
+
+import org.terasology.engine.rendering.opengl.FBO;
+
+import static org.lwjgl.opengl.GL11.GL_COLOR_BUFFER_BIT;
+import static org.lwjgl.opengl.GL11.GL_NEAREST;
+import static org.lwjgl.opengl.GL30.GL_DRAW_FRAMEBUFFER;
+import static org.lwjgl.opengl.GL30.GL_FRAMEBUFFER;
+import static org.lwjgl.opengl.GL30.GL_READ_FRAMEBUFFER;
+import static org.lwjgl.opengl.GL30.glBindFramebuffer;
+import static org.lwjgl.opengl.GL30.glBlitFramebuffer;
+
+/**
+ * Copies the color content of FBOs on the GPU, i.e. to keep the output of a node around as history for the next frame.
+ *
+ * These methods are meant to be called from within Node.process(), after the node rendered into the source FBO.
+ * They leave the source FBO bound, as the BindFbo state change of the calling node expects.
+ */
+public final class FboBlitHelper {
+
+    private FboBlitHelper() {
+    }
+
+    /**
+     * Copies the first color attachment of the source FBO into the first color attachment of the destination FBO,
+     * scaling it with nearest filtering if the two differ in size.
+     */
+    public static void blitColor(FBO source, FBO destination) {
+        glBindFramebuffer(GL_READ_FRAMEBUFFER, source.getId());
+        glBindFramebuffer(GL_DRAW_FRAMEBUFFER, destination.getId());
+        glBlitFramebuffer(0, 0, source.width(), source.height(), 0, 0, destination.width(), destination.height(),
+                GL_COLOR_BUFFER_BIT, GL_NEAREST);
+        glBindFramebuffer(GL_FRAMEBUFFER, source.getId());
+    }
+}
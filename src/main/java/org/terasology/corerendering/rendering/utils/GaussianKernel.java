@@ -0,0 +1,67 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.corerendering.rendering.utils;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Computes the taps of one-dimensional Gaussian kernels, for separable blurs.
+ *
+ * Adjacent texels of the discrete kernel are merged into a single tap placed between them, so that a linearly
+ * filtered texture fetch returns their weighted sum: a kernel spanning n texels on each side of the center only
+ * needs 1 + ceil(n / 2) fetches per side instead of n + 1.
+ */
+public final class GaussianKernel {
+    /**
+     * The largest radius supported, in texels.
+     */
+    public static final int MAX_RADIUS = 16;
+    /**
+     * The largest number of taps returned, the center one included: also the size of the tap arrays on shader side.
+     */
+    public static final int MAX_TAPS = 1 + (MAX_RADIUS + 1) / 2;
+
+    private GaussianKernel() {
+    }
+
+    /**
+     * Writes into the given buffer the taps of a normalized Gaussian kernel covering the given radius, as
+     * (offset in texels, weight) pairs. The first tap is the center one, with offset zero. The other taps are to
+     * be applied on both sides of the center.
+     *
+     * @param radius the radius of the kernel in texels, clamped to [1, MAX_RADIUS]. The standard deviation of the
+     *               Gaussian is half of it.
+     * @param taps a buffer with room for at least 2 * MAX_TAPS floats. It is cleared and flipped by this method.
+     * @return the number of taps written
+     */
+    public static int computeLinearTaps(float radius, FloatBuffer taps) {
+        int texels = (int) Math.ceil(Math.min(Math.max(radius, 1.0f), MAX_RADIUS));
+        float sigma = Math.max(radius * 0.5f, 0.5f);
+
+        float[] weights = new float[texels + 1];
+        float total = 0.0f;
+        for (int i = 0; i <= texels; i++) {
+            weights[i] = (float) Math.exp(-(i * i) / (2.0f * sigma * sigma));
+            total += i == 0 ? weights[i] : 2.0f * weights[i];
+        }
+
+        taps.clear();
+        taps.put(0.0f);
+        taps.put(weights[0] / total);
+        int tapCount = 1;
+
+        for (int i = 1; i <= texels; i += 2) {
+            float first = weights[i];
+            float second = i + 1 <= texels ? weights[i + 1] : 0.0f;
+            float weight = first + second;
+
+            taps.put((i * first + (i + 1) * second) / weight);
+            taps.put(weight / total);
+            tapCount++;
+        }
+
+        taps.flip();
+        return tapCount;
+    }
+}
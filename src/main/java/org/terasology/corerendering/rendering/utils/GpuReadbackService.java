@@ -0,0 +1,204 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.corerendering.rendering.utils;
+
+import org.terasology.engine.rendering.opengl.FBO;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import static org.lwjgl.opengl.GL11.GL_DEPTH_COMPONENT;
+import static org.lwjgl.opengl.GL11.GL_FLOAT;
+import static org.lwjgl.opengl.GL11.GL_PACK_ALIGNMENT;
+import static org.lwjgl.opengl.GL11.GL_RED;
+import static org.lwjgl.opengl.GL11.GL_RGB;
+import static org.lwjgl.opengl.GL11.glPixelStorei;
+import static org.lwjgl.opengl.GL11.glReadBuffer;
+import static org.lwjgl.opengl.GL11.glReadPixels;
+import static org.lwjgl.opengl.GL15.GL_STREAM_READ;
+import static org.lwjgl.opengl.GL15.glBindBuffer;
+import static org.lwjgl.opengl.GL15.glBufferData;
+import static org.lwjgl.opengl.GL15.glDeleteBuffers;
+import static org.lwjgl.opengl.GL15.glGenBuffers;
+import static org.lwjgl.opengl.GL15.glUnmapBuffer;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_PACK_BUFFER;
+import static org.lwjgl.opengl.GL30.GL_COLOR_ATTACHMENT0;
+import static org.lwjgl.opengl.GL30.GL_FRAMEBUFFER;
+import static org.lwjgl.opengl.GL30.GL_HALF_FLOAT;
+import static org.lwjgl.opengl.GL30.GL_MAP_READ_BIT;
+import static org.lwjgl.opengl.GL30.GL_READ_FRAMEBUFFER;
+import static org.lwjgl.opengl.GL30.GL_RG;
+import static org.lwjgl.opengl.GL30.glBindFramebuffer;
+import static org.lwjgl.opengl.GL30.glMapBufferRange;
+import static org.lwjgl.opengl.GL32.GL_ALREADY_SIGNALED;
+import static org.lwjgl.opengl.GL32.GL_CONDITION_SATISFIED;
+import static org.lwjgl.opengl.GL32.GL_SYNC_GPU_COMMANDS_COMPLETE;
+import static org.lwjgl.opengl.GL32.glClientWaitSync;
+import static org.lwjgl.opengl.GL32.glDeleteSync;
+import static org.lwjgl.opengl.GL32.glFenceSync;
+
+/**
+ * Reads regions of FBO attachments back to the CPU without stalling the rendering.
+ *
+ * Each request is read into one of a ring of pixel buffer objects, along with a fence. The fences are polled once per
+ * frame by the GpuReadbackNode, and the callback of a request is invoked once its fence is signaled, usually a few
+ * frames later, with the mapped content of its pixel buffer. The buffer is only valid during the callback: callers
+ * keeping the data around must copy it.
+ *
+ * An instance of this class is put in the context by the CoreRenderingModule. All its methods must be called from
+ * the rendering thread.
+ */
+public class GpuReadbackService {
+    private static final int RING_SIZE = 8;
+
+    private final int[] pixelBuffers = new int[RING_SIZE];
+    private final long[] capacities = new long[RING_SIZE];
+    private final long[] sizes = new long[RING_SIZE];
+    private final long[] fences = new long[RING_SIZE];
+    @SuppressWarnings("unchecked")
+    private final Consumer<ByteBuffer>[] callbacks = new Consumer[RING_SIZE];
+
+    /**
+     * Starts reading the given region of an attachment of the source FBO, as done by glReadPixels.
+     *
+     * @param attachment the color attachment to read from, i.e. GL_COLOR_ATTACHMENT0. Ignored for GL_DEPTH_COMPONENT.
+     * @param format one of GL_RED, GL_RG, GL_RGB, GL_RGBA, GL_BGRA or GL_DEPTH_COMPONENT.
+     * @param type one of GL_UNSIGNED_BYTE, GL_HALF_FLOAT or GL_FLOAT.
+     * @param callback invoked with the data, tightly packed, once the GPU has completed the readback.
+     * @return false if every pixel buffer is in use, in which case nothing is read and the callback is never invoked.
+     */
+    public boolean request(FBO source, int attachment, int x, int y, int width, int height, int format, int type,
+                           Consumer<ByteBuffer> callback) {
+        long size = (long) width * height * getBytesPerPixel(format, type);
+        int slot = findFreeSlot(size);
+        if (slot < 0) {
+            return false;
+        }
+
+        if (pixelBuffers[slot] == 0) {
+            pixelBuffers[slot] = glGenBuffers();
+        }
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffers[slot]);
+        if (capacities[slot] < size) {
+            glBufferData(GL_PIXEL_PACK_BUFFER, size, GL_STREAM_READ);
+            capacities[slot] = size;
+        }
+
+        glBindFramebuffer(GL_READ_FRAMEBUFFER, source.getId());
+        if (format != GL_DEPTH_COMPONENT) {
+            glReadBuffer(attachment);
+        }
+        glPixelStorei(GL_PACK_ALIGNMENT, 1);
+        glReadPixels(x, y, width, height, format, type, 0L);
+        glPixelStorei(GL_PACK_ALIGNMENT, 4);
+        if (format != GL_DEPTH_COMPONENT && attachment != GL_COLOR_ATTACHMENT0) {
+            // The read buffer is part of the state of the FBO
+            glReadBuffer(GL_COLOR_ATTACHMENT0);
+        }
+
+        fences[slot] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        sizes[slot] = size;
+        callbacks[slot] = callback;
+
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        return true;
+    }
+
+    /**
+     * Returns the free slot with the smallest pixel buffer able to hold the given size or, if there is none,
+     * the free slot with the largest pixel buffer, to be grown. Large buffers are therefore kept for large requests.
+     */
+    private int findFreeSlot(long size) {
+        int bestFit = -1;
+        int largest = -1;
+        for (int slot = 0; slot < RING_SIZE; slot++) {
+            if (callbacks[slot] != null) {
+                continue;
+            }
+            if (capacities[slot] >= size && (bestFit < 0 || capacities[slot] < capacities[bestFit])) {
+                bestFit = slot;
+            }
+            if (largest < 0 || capacities[slot] > capacities[largest]) {
+                largest = slot;
+            }
+        }
+        return bestFit >= 0 ? bestFit : largest;
+    }
+
+    /**
+     * Invokes the callbacks of the requests the GPU has completed. Never waits for the GPU.
+     */
+    public void update() {
+        for (int slot = 0; slot < RING_SIZE; slot++) {
+            if (callbacks[slot] == null) {
+                continue;
+            }
+
+            int status = glClientWaitSync(fences[slot], 0, 0);
+            if (status != GL_ALREADY_SIGNALED && status != GL_CONDITION_SATISFIED) {
+                continue;
+            }
+            glDeleteSync(fences[slot]);
+            fences[slot] = 0;
+
+            Consumer<ByteBuffer> callback = callbacks[slot];
+            callbacks[slot] = null;
+
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffers[slot]);
+            ByteBuffer data = glMapBufferRange(GL_PIXEL_PACK_BUFFER, 0, sizes[slot], GL_MAP_READ_BIT);
+            if (data != null) {
+                try {
+                    callback.accept(data);
+                } finally {
+                    glUnmapBuffer(GL_PIXEL_PACK_BUFFER);
+                }
+            }
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        }
+    }
+
+    private static int getBytesPerPixel(int format, int type) {
+        int components;
+        switch (format) {
+            case GL_RED:
+            case GL_DEPTH_COMPONENT:
+                components = 1;
+                break;
+            case GL_RG:
+                components = 2;
+                break;
+            case GL_RGB:
+                components = 3;
+                break;
+            default:
+                components = 4;
+                break;
+        }
+
+        switch (type) {
+            case GL_FLOAT:
+                return components * 4;
+            case GL_HALF_FLOAT:
+                return components * 2;
+            default:
+                return components;
+        }
+    }
+
+    public void dispose() {
+        for (int slot = 0; slot < RING_SIZE; slot++) {
+            if (fences[slot] != 0) {
+                glDeleteSync(fences[slot]);
+                fences[slot] = 0;
+            }
+            callbacks[slot] = null;
+            if (pixelBuffers[slot] != 0) {
+                glDeleteBuffers(pixelBuffers[slot]);
+                pixelBuffers[slot] = 0;
+                capacities[slot] = 0;
+            }
+        }
+    }
+}
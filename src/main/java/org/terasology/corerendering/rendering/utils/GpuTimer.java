@@ -0,0 +1,90 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.corerendering.rendering.utils;
+
+import static org.lwjgl.opengl.GL15.GL_QUERY_RESULT;
+import static org.lwjgl.opengl.GL15.GL_QUERY_RESULT_AVAILABLE;
+import static org.lwjgl.opengl.GL15.glDeleteQueries;
+import static org.lwjgl.opengl.GL15.glGenQueries;
+import static org.lwjgl.opengl.GL15.glGetQueryObjecti;
+import static org.lwjgl.opengl.GL33.GL_TIMESTAMP;
+import static org.lwjgl.opengl.GL33.glGetQueryObjecti64;
+import static org.lwjgl.opengl.GL33.glQueryCounter;
+
+/**
+ * Measures the GPU time spent between two points of a frame, i.e. around the rendering done by a node.
+ *
+ * Timestamp queries are issued into a small ring, one slot per frame, and their results are only collected once
+ * the GPU reports them as available, a few frames later. The CPU therefore never waits for the GPU, at the cost
+ * of the measurement lagging a few frames behind.
+ */
+public class GpuTimer {
+    private static final int FRAMES_IN_FLIGHT = 3;
+    private static final float NANOSECONDS_PER_MILLISECOND = 1000000.0f;
+
+    private final int[] startQueries = new int[FRAMES_IN_FLIGHT];
+    private final int[] endQueries = new int[FRAMES_IN_FLIGHT];
+    private final boolean[] pending = new boolean[FRAMES_IN_FLIGHT];
+    private int currentSlot;
+    private float lastMilliseconds = -1.0f;
+
+    public GpuTimer() {
+        glGenQueries(startQueries);
+        glGenQueries(endQueries);
+    }
+
+    /**
+     * Marks the beginning of the measured section. Must be followed by a call to end() in the same frame.
+     */
+    public void begin() {
+        collectResults();
+        glQueryCounter(startQueries[currentSlot], GL_TIMESTAMP);
+    }
+
+    /**
+     * Marks the end of the measured section.
+     */
+    public void end() {
+        glQueryCounter(endQueries[currentSlot], GL_TIMESTAMP);
+        pending[currentSlot] = true;
+        currentSlot = (currentSlot + 1) % FRAMES_IN_FLIGHT;
+    }
+
+    /**
+     * Returns the most recent measurement available, in milliseconds, or a negative value if there is none yet.
+     */
+    public float getLastMilliseconds() {
+        return lastMilliseconds;
+    }
+
+    /**
+     * Forgets the last measurement and the ones still in flight, i.e. after changing what is being measured.
+     */
+    public void discardResults() {
+        lastMilliseconds = -1.0f;
+        for (int slot = 0; slot < FRAMES_IN_FLIGHT; slot++) {
+            pending[slot] = false;
+        }
+    }
+
+    public void dispose() {
+        glDeleteQueries(startQueries);
+        glDeleteQueries(endQueries);
+    }
+
+    private void collectResults() {
+        // From the oldest to the newest slot, so that the last measurement collected is also the most recent one
+        for (int i = 0; i < FRAMES_IN_FLIGHT; i++) {
+            int slot = (currentSlot + i) % FRAMES_IN_FLIGHT;
+            if (pending[slot] && glGetQueryObjecti(endQueries[slot], GL_QUERY_RESULT_AVAILABLE) != 0) {
+                long start = glGetQueryObjecti64(startQueries[slot], GL_QUERY_RESULT);
+                long end = glGetQueryObjecti64(endQueries[slot], GL_QUERY_RESULT);
+                lastMilliseconds = (end - start) / NANOSECONDS_PER_MILLISECOND;
+                pending[slot] = false;
+            }
+        }
+        // A result that is still not available is dropped, as its slot is about to be reused
+        pending[currentSlot] = false;
+    }
+}
@@ -0,0 +1,183 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.corerendering.rendering.utils;
+
+import org.terasology.engine.rendering.dag.nodes.RefractiveReflectiveBlocksNodeProxy;
+
+import java.util.Arrays;
+
+/**
+ * CPU-side evaluation of the ocean wave model also used by the chunk shaders.
+ *
+ * The per-octave wave parameters are derived once from the values in RefractiveReflectiveBlocksNodeProxy and only
+ * rebuilt when those change. Single positions are memoized, so that the several nodes asking for the ocean height
+ * at the camera position in the same frame only pay for it once. Many positions can be evaluated at once through
+ * {@link #evaluate(float[], float[], int, float, float[])}, which iterates over the octaves in the outer loop and
+ * over plain float arrays in the inner one. The inner loop has no calls nor branches, the floor of the triangle wave
+ * being replaced by a truncation, so that the JIT can vectorize it on the platforms supporting the conversion.
+ *
+ * The products and sums are done in the same order and precision as the previous single-position implementation.
+ * Only the triangle wave may differ from UnderwaterHelper.triangleWave() in its last bit, for negative arguments.
+ *
+ * Instances of this class are thread-safe.
+ */
+public final class OceanHeightEvaluator {
+
+    // Parameters which are also defined on shader side
+    private static final int OCEAN_OCTAVES = 16;
+    private static final float[] OCEAN_WAVE_DIRECTIONS_X = {
+            -0.613392f, 0.170019f, -0.299417f, 0.645680f, -0.651784f, 0.421003f, -0.817194f, -0.705374f,
+            0.977050f, 0.063326f, 0.203528f, -0.667531f, -0.098422f, -0.885922f, 0.566637f, 0.039766f
+    };
+    private static final float[] OCEAN_WAVE_DIRECTIONS_Z = {
+            0.617481f, -0.040254f, 0.791925f, 0.493210f, 0.717887f, 0.027070f, -0.271096f, -0.668203f,
+            -0.108615f, 0.142369f, 0.214331f, 0.326090f, -0.295755f, 0.215369f, 0.605213f, -0.396100f
+    };
+
+    private volatile Octaves octaves;
+    private volatile Sample lastSample;
+
+    /**
+     * Returns the height of the ocean surface at the given horizontal position and time.
+     *
+     * Repeated calls with the same arguments, i.e. for the camera position during a frame, return a cached result.
+     */
+    public float evaluate(float x, float z, float days) {
+        Octaves currentOctaves = getOctaves();
+        Sample sample = lastSample;
+        if (sample != null && sample.octaves == currentOctaves
+                && sample.x == x && sample.z == z && sample.days == days) {
+            return sample.height;
+        }
+
+        float height = 0.0f;
+        for (int i = 0; i < OCEAN_OCTAVES; ++i) {
+            float tick = UnderwaterHelper.timeToTick(days, currentOctaves.speeds[i]);
+            float size = currentOctaves.sizes[i];
+            height += (smoothTriangleWave(tick + x * OCEAN_WAVE_DIRECTIONS_X[i] * size
+                    + z * OCEAN_WAVE_DIRECTIONS_Z[i] * size) * 2.0f - 1.0f) * currentOctaves.intensities[i];
+        }
+        height = height / OCEAN_OCTAVES + currentOctaves.offsetY;
+
+        lastSample = new Sample(currentOctaves, x, z, days, height);
+        return height;
+    }
+
+    /**
+     * Writes into {@code heights} the height of the ocean surface at each of the first {@code count} positions
+     * described by {@code xs} and {@code zs}.
+     *
+     * @param xs the x coordinates of the positions to evaluate
+     * @param zs the z coordinates of the positions to evaluate
+     * @param count the number of positions to evaluate
+     * @param days the time, in days, at which to evaluate the waves
+     * @param heights the array receiving the results, it can be reused across calls
+     */
+    public void evaluate(float[] xs, float[] zs, int count, float days, float[] heights) {
+        if (xs.length < count || zs.length < count || heights.length < count) {
+            throw new IllegalArgumentException("Arrays are shorter than the requested count: " + count);
+        }
+
+        Octaves currentOctaves = getOctaves();
+        Arrays.fill(heights, 0, count, 0.0f);
+
+        for (int i = 0; i < OCEAN_OCTAVES; ++i) {
+            float tick = UnderwaterHelper.timeToTick(days, currentOctaves.speeds[i]);
+            float directionX = OCEAN_WAVE_DIRECTIONS_X[i];
+            float directionZ = OCEAN_WAVE_DIRECTIONS_Z[i];
+            float size = currentOctaves.sizes[i];
+            float intensity = currentOctaves.intensities[i];
+
+            for (int j = 0; j < count; ++j) {
+                heights[j] += (smoothTriangleWave(tick + xs[j] * directionX * size + zs[j] * directionZ * size)
+                        * 2.0f - 1.0f) * intensity;
+            }
+        }
+
+        for (int j = 0; j < count; ++j) {
+            heights[j] = heights[j] / OCEAN_OCTAVES + currentOctaves.offsetY;
+        }
+    }
+
+    /**
+     * Same as UnderwaterHelper.smoothTriangleWave(), without the call to Math.floor().
+     *
+     * With f the part of x + 0.5 after the truncation, in ]-1, 1[, the fractional part is f or f + 1, and the
+     * triangle wave |2 * fract - 1| equals ||2 * f| - 1| in both cases. This holds while x fits in an int, which
+     * the ticks and the scaled positions do by far.
+     */
+    private static float smoothTriangleWave(float x) {
+        float normX = x + 0.5f;
+        float triangle = Math.abs(Math.abs(normX - (int) normX) * 2.0f - 1.0f);
+        return UnderwaterHelper.smoothCurve(triangle) * 2.0f - 1.0f;
+    }
+
+    private Octaves getOctaves() {
+        Octaves currentOctaves = octaves;
+        if (currentOctaves == null || !currentOctaves.matchesProxy()) {
+            currentOctaves = new Octaves();
+            octaves = currentOctaves;
+        }
+        return currentOctaves;
+    }
+
+    /**
+     * The wave parameters of each octave, derived from the values in RefractiveReflectiveBlocksNodeProxy.
+     */
+    private static final class Octaves {
+        private final float waveSize = RefractiveReflectiveBlocksNodeProxy.waveSize;
+        private final float waveSizeFalloff = RefractiveReflectiveBlocksNodeProxy.waveSizeFalloff;
+        private final float waveIntensity = RefractiveReflectiveBlocksNodeProxy.waveIntensity;
+        private final float waveIntensityFalloff = RefractiveReflectiveBlocksNodeProxy.waveIntensityFalloff;
+        private final float waveSpeed = RefractiveReflectiveBlocksNodeProxy.waveSpeed;
+        private final float waveSpeedFalloff = RefractiveReflectiveBlocksNodeProxy.waveSpeedFalloff;
+        private final float offsetY = RefractiveReflectiveBlocksNodeProxy.waterOffsetY;
+
+        private final float[] sizes = new float[OCEAN_OCTAVES];
+        private final float[] intensities = new float[OCEAN_OCTAVES];
+        private final float[] speeds = new float[OCEAN_OCTAVES];
+
+        Octaves() {
+            float size = waveSize;
+            float intensity = waveIntensity;
+            float speed = waveSpeed;
+
+            for (int i = 0; i < OCEAN_OCTAVES; ++i) {
+                sizes[i] = size;
+                intensities[i] = intensity;
+                speeds[i] = speed;
+
+                size *= waveSizeFalloff;
+                intensity *= waveIntensityFalloff;
+                speed *= waveSpeedFalloff;
+            }
+        }
+
+        boolean matchesProxy() {
+            return waveSize == RefractiveReflectiveBlocksNodeProxy.waveSize
+                    && waveSizeFalloff == RefractiveReflectiveBlocksNodeProxy.waveSizeFalloff
+                    && waveIntensity == RefractiveReflectiveBlocksNodeProxy.waveIntensity
+                    && waveIntensityFalloff == RefractiveReflectiveBlocksNodeProxy.waveIntensityFalloff
+                    && waveSpeed == RefractiveReflectiveBlocksNodeProxy.waveSpeed
+                    && waveSpeedFalloff == RefractiveReflectiveBlocksNodeProxy.waveSpeedFalloff
+                    && offsetY == RefractiveReflectiveBlocksNodeProxy.waterOffsetY;
+        }
+    }
+
+    private static final class Sample {
+        private final Octaves octaves;
+        private final float x;
+        private final float z;
+        private final float days;
+        private final float height;
+
+        Sample(Octaves octaves, float x, float z, float days, float height) {
+            this.octaves = octaves;
+            this.x = x;
+            this.z = z;
+            this.days = days;
+            this.height = height;
+        }
+    }
+}
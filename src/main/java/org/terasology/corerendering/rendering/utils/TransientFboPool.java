@@ -0,0 +1,285 @@
+// Copyright 2021 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+
+package org.terasology.corerendering.rendering.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.core.SimpleUri;
+import org.terasology.engine.rendering.dag.Node;
+import org.terasology.engine.rendering.dag.RenderGraph;
+import org.terasology.engine.rendering.opengl.BaseFboManager;
+import org.terasology.engine.rendering.opengl.FBO;
+import org.terasology.engine.rendering.opengl.FboConfig;
+import org.terasology.engine.rendering.opengl.ScalingFactors;
+import org.terasology.engine.rendering.opengl.fbms.DisplayResolutionDependentFbo;
+import org.terasology.engine.rendering.opengl.fbms.ImmutableFbo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_2D;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_ALPHA_SIZE;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_BLUE_SIZE;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_GREEN_SIZE;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_RED_SIZE;
+import static org.lwjgl.opengl.GL11.glBindTexture;
+import static org.lwjgl.opengl.GL11.glGetTexLevelParameteri;
+
+/**
+ * Hands out FBOs whose content is only needed during a part of the frame, letting FBOs of the same size and type
+ * share the same storage when the parts of the frame they are used in don't overlap.
+ *
+ * Each request lists the nodes using the FBO, i.e. the node writing it and the nodes reading it. Its lifetime runs
+ * from the first to the last of them in the run order of the render graph, which is only known once every module
+ * has added its nodes: the FBOs are assigned the first time a node asks for its config with getFboConfig(), from its
+ * setDependencies() method. Nodes then acquire the FBO with requiresFbo(), so that it is released when they are
+ * disposed, and FBOs shared by several requests are only released with the last of their nodes.
+ *
+ * FBOs whose content must survive until the next frame, i.e. histories or cached results, are requested with
+ * requestPersistent(): they always get an FBO of their own, under the requested URI.
+ *
+ * Display resolution dependent FBOs are taken from the DisplayResolutionDependentFbo, fixed size ones from the
+ * ImmutableFbo given at construction, which the nodes must acquire them from too. Only color FBOs without depth
+ * buffer are supported. An instance of this class is put in the context by the CoreRenderingModule, and shared by
+ * all the modules contributing nodes to the render graph.
+ */
+public class TransientFboPool {
+    private static final Logger logger = LoggerFactory.getLogger(TransientFboPool.class);
+
+    private final RenderGraph renderGraph;
+    private final DisplayResolutionDependentFbo displayResolutionDependentFbo;
+    private final ImmutableFbo immutableFbo;
+    private final boolean aliasing;
+
+    private final List<Request> requests = new ArrayList<>();
+    private final Map<SimpleUri, Request> requestsByUri = new HashMap<>();
+    private final List<Slot> slots = new ArrayList<>();
+    private boolean assigned;
+
+    /**
+     * @param immutableFbo the FBO manager fixed size FBOs are taken from.
+     * @param aliasing if false, every request gets an FBO of its own, under the requested URI.
+     */
+    public TransientFboPool(RenderGraph renderGraph, DisplayResolutionDependentFbo displayResolutionDependentFbo,
+                            ImmutableFbo immutableFbo, boolean aliasing) {
+        this.renderGraph = renderGraph;
+        this.displayResolutionDependentFbo = displayResolutionDependentFbo;
+        this.immutableFbo = immutableFbo;
+        this.aliasing = aliasing;
+    }
+
+    /**
+     * Requests a display resolution dependent FBO of the given scale and type, used by the given nodes only.
+     *
+     * @param users the node writing the FBO and all the nodes reading it, in any order.
+     */
+    public void request(SimpleUri fboUri, ScalingFactors scale, FBO.Type type, Node... users) {
+        addRequest(new Request(fboUri, scale, 0, 0, type, users));
+    }
+
+    /**
+     * Requests an FBO of the given size and type, used by the given nodes only.
+     *
+     * @param users the node writing the FBO and all the nodes reading it, in any order.
+     */
+    public void request(SimpleUri fboUri, int width, int height, FBO.Type type, Node... users) {
+        addRequest(new Request(fboUri, null, width, height, type, users));
+    }
+
+    /**
+     * Requests a display resolution dependent FBO whose content must survive until the next frame.
+     * It is never shared, but is acquired and released through this pool like the other ones.
+     */
+    public void requestPersistent(SimpleUri fboUri, ScalingFactors scale, FBO.Type type) {
+        addRequest(new Request(fboUri, scale, 0, 0, type, null));
+    }
+
+    private void addRequest(Request request) {
+        if (assigned) {
+            throw new IllegalStateException("Cannot request " + request.fboUri
+                    + ": the FBOs have already been assigned.");
+        }
+        if (requestsByUri.put(request.fboUri, request) != null) {
+            throw new IllegalArgumentException(request.fboUri + " has already been requested.");
+        }
+        requests.add(request);
+    }
+
+    /**
+     * Returns the config of the FBO assigned to the given request, to be acquired with requiresFbo() from the
+     * DisplayResolutionDependentFbo or the ImmutableFbo. If aliasing is enabled, its name is not the given URI.
+     *
+     * Must only be called from setDependencies(), once every module has added its nodes to the render graph.
+     */
+    public FboConfig getFboConfig(SimpleUri fboUri) {
+        Request request = requestsByUri.get(fboUri);
+        if (request == null) {
+            throw new IllegalArgumentException(fboUri + " has not been requested from the TransientFboPool.");
+        }
+
+        if (!assigned) {
+            assignSlots();
+            assigned = true;
+            logUsage();
+        }
+        return request.slot.fboConfig;
+    }
+
+    private void assignSlots() {
+        List<Node> runOrder = renderGraph.getNodesInTopologicalOrder();
+        for (Request request : requests) {
+            request.computeLifetime(runOrder);
+        }
+
+        // Assigning the requests by first use means a slot is only reused once all its previous uses are over.
+        List<Request> requestsByFirstUse = new ArrayList<>(requests);
+        requestsByFirstUse.sort(Comparator.comparingInt(request -> request.firstUse));
+
+        for (Request request : requestsByFirstUse) {
+            Slot slot = null;
+            if (aliasing && request.users != null) {
+                slot = findFreeSlot(request);
+            }
+            if (slot == null) {
+                SimpleUri slotUri = request.fboUri;
+                if (aliasing && request.users != null) {
+                    slotUri = new SimpleUri("engine:fbo.transient." + request.getSizeName() + "."
+                            + request.type.name().toLowerCase() + "." + slots.size());
+                }
+                slot = new Slot(request.createFboConfig(slotUri), request.scale != null
+                        ? displayResolutionDependentFbo : immutableFbo, request.users != null);
+                slots.add(slot);
+            }
+            slot.requests.add(request);
+            request.slot = slot;
+        }
+    }
+
+    private Slot findFreeSlot(Request request) {
+        for (Slot slot : slots) {
+            if (slot.shared && slot.requests.get(0).hasSameFormatAs(request) && !slot.overlaps(request)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Logs the video memory taken by the FBOs of this pool at the current display resolution, along with the memory
+     * they would take if none of them was aliased.
+     *
+     * The size of each FBO is read back from its color texture, as the internal format of a type is up to the engine.
+     * The FBOs are created for this purpose and released right away: the nodes acquire them again right after.
+     */
+    private void logUsage() {
+        long requestedBytes = 0;
+        long allocatedBytes = 0;
+        for (Slot slot : slots) {
+            FBO fbo = slot.fboManager.request(slot.fboConfig);
+            long sizeInBytes = getSizeInBytes(fbo);
+            slot.fboManager.release(slot.fboConfig.getName());
+
+            allocatedBytes += sizeInBytes;
+            requestedBytes += sizeInBytes * slot.requests.size();
+        }
+        glBindTexture(GL_TEXTURE_2D, 0);
+
+        logger.info("Transient FBOs: {} requested, {} allocated, {} KB instead of {} KB.",
+                requests.size(), slots.size(), allocatedBytes / 1024, requestedBytes / 1024);
+    }
+
+    private static long getSizeInBytes(FBO fbo) {
+        glBindTexture(GL_TEXTURE_2D, fbo.getColorBufferTextureId());
+        int bitsPerPixel = glGetTexLevelParameteri(GL_TEXTURE_2D, 0, GL_TEXTURE_RED_SIZE)
+                + glGetTexLevelParameteri(GL_TEXTURE_2D, 0, GL_TEXTURE_GREEN_SIZE)
+                + glGetTexLevelParameteri(GL_TEXTURE_2D, 0, GL_TEXTURE_BLUE_SIZE)
+                + glGetTexLevelParameteri(GL_TEXTURE_2D, 0, GL_TEXTURE_ALPHA_SIZE);
+        return (long) fbo.width() * fbo.height() * bitsPerPixel / 8;
+    }
+
+    private static final class Request {
+        private final SimpleUri fboUri;
+        private final ScalingFactors scale; // null for fixed size FBOs
+        private final int width;
+        private final int height;
+        private final FBO.Type type;
+        private final Node[] users; // null for persistent FBOs
+
+        private int firstUse;
+        private int lastUse;
+        private Slot slot;
+
+        private Request(SimpleUri fboUri, ScalingFactors scale, int width, int height, FBO.Type type, Node[] users) {
+            if (type == FBO.Type.NO_COLOR) {
+                throw new IllegalArgumentException("Cannot request " + fboUri + ": only color FBOs are supported.");
+            }
+            if (users != null && users.length == 0) {
+                throw new IllegalArgumentException("Cannot request " + fboUri + " without any node using it.");
+            }
+            this.fboUri = fboUri;
+            this.scale = scale;
+            this.width = width;
+            this.height = height;
+            this.type = type;
+            this.users = users;
+        }
+
+        private void computeLifetime(List<Node> runOrder) {
+            if (users == null) {
+                firstUse = 0;
+                lastUse = runOrder.size();
+                return;
+            }
+
+            firstUse = Integer.MAX_VALUE;
+            lastUse = -1;
+            for (Node user : users) {
+                int index = runOrder.indexOf(user);
+                if (index < 0) {
+                    throw new IllegalStateException(user.getUri() + ", using " + fboUri
+                            + ", is not in the render graph.");
+                }
+                firstUse = Math.min(firstUse, index);
+                lastUse = Math.max(lastUse, index);
+            }
+        }
+
+        private boolean hasSameFormatAs(Request other) {
+            return scale == other.scale && width == other.width && height == other.height && type == other.type;
+        }
+
+        private String getSizeName() {
+            return scale != null ? scale.name().toLowerCase() : width + "x" + height;
+        }
+
+        private FboConfig createFboConfig(SimpleUri slotUri) {
+            return scale != null ? new FboConfig(slotUri, scale, type) : new FboConfig(slotUri, width, height, type);
+        }
+    }
+
+    private static final class Slot {
+        private final FboConfig fboConfig;
+        private final BaseFboManager fboManager;
+        private final boolean shared;
+        private final List<Request> requests = new ArrayList<>();
+
+        private Slot(FboConfig fboConfig, BaseFboManager fboManager, boolean shared) {
+            this.fboConfig = fboConfig;
+            this.fboManager = fboManager;
+            this.shared = shared;
+        }
+
+        private boolean overlaps(Request request) {
+            for (Request other : requests) {
+                if (request.firstUse <= other.lastUse && request.lastUse >= other.firstUse) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
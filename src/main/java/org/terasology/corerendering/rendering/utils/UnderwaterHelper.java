@@ -3,35 +3,14 @@
 
 package org.terasology.corerendering.rendering.utils;
 
-import org.joml.Vector2f;
 import org.joml.Vector3f;
 import org.joml.Vector3fc;
 import org.terasology.engine.config.RenderingConfig;
-import org.terasology.engine.rendering.dag.nodes.RefractiveReflectiveBlocksNodeProxy;
 import org.terasology.engine.world.WorldProvider;
 
 public final class UnderwaterHelper {
 
-    // Parameters which are also defined on shader side
-    private static final int OCEAN_OCTAVES = 16;
-    private static final Vector2f[] OCEAN_WAVE_DIRECTIONS = {
-            new Vector2f(-0.613392f, 0.617481f),
-            new Vector2f(0.170019f, -0.040254f),
-            new Vector2f(-0.299417f, 0.791925f),
-            new Vector2f(0.645680f, 0.493210f),
-            new Vector2f(-0.651784f, 0.717887f),
-            new Vector2f(0.421003f, 0.027070f),
-            new Vector2f(-0.817194f, -0.271096f),
-            new Vector2f(-0.705374f, -0.668203f),
-            new Vector2f(0.977050f, -0.108615f),
-            new Vector2f(0.063326f, 0.142369f),
-            new Vector2f(0.203528f, 0.214331f),
-            new Vector2f(-0.667531f, 0.326090f),
-            new Vector2f(-0.098422f, -0.295755f),
-            new Vector2f(-0.885922f, 0.215369f),
-            new Vector2f(0.566637f, 0.605213f),
-            new Vector2f(0.039766f, -0.396100f)
-    };
+    private static final OceanHeightEvaluator OCEAN_HEIGHT_EVALUATOR = new OceanHeightEvaluator();
 
     private UnderwaterHelper() {
     }
@@ -56,30 +35,28 @@ public final class UnderwaterHelper {
         return time * 4000.0f * speed;
     }
 
-    public static float evaluateOceanHeightAtPosition(Vector3fc position, float days) {
-        float height = 0.0f;
-
-        float waveSize = RefractiveReflectiveBlocksNodeProxy.waveSize;
-        float waveIntensity = RefractiveReflectiveBlocksNodeProxy.waveIntensity;
-        float timeFactor = RefractiveReflectiveBlocksNodeProxy.waveSpeed;
-
-        for (int i = 0; i < OCEAN_OCTAVES; ++i) {
-            height += (float) (smoothTriangleWave(timeToTick(days, timeFactor)
-                    + position.x() * OCEAN_WAVE_DIRECTIONS[i].x * waveSize
-                    + position.z() * OCEAN_WAVE_DIRECTIONS[i].y * waveSize) * 2.0 - 1.0) * waveIntensity;
-
-            waveSize *= RefractiveReflectiveBlocksNodeProxy.waveSizeFalloff;
-            waveIntensity *= RefractiveReflectiveBlocksNodeProxy.waveIntensityFalloff;
-            timeFactor *= RefractiveReflectiveBlocksNodeProxy.waveSpeedFalloff;
-        }
-
-        height /= OCEAN_OCTAVES;
+    /**
+     * Returns the evaluator shared by the rendering nodes, which gameplay systems can use as well to benefit
+     * from its cached and batched evaluations.
+     */
+    public static OceanHeightEvaluator getOceanHeightEvaluator() {
+        return OCEAN_HEIGHT_EVALUATOR;
+    }
 
-        return height + RefractiveReflectiveBlocksNodeProxy.waterOffsetY;
+    public static float evaluateOceanHeightAtPosition(Vector3fc position, float days) {
+        return OCEAN_HEIGHT_EVALUATOR.evaluate(position.x(), position.z(), days);
     }
 
     public static boolean isUnderwater(Vector3fc pos, WorldProvider worldProvider, RenderingConfig config) {
-        Vector3f position = new Vector3f(pos);
+        return isUnderwater(pos, worldProvider, config, new Vector3f());
+    }
+
+    /**
+     * As isUnderwater(Vector3fc, WorldProvider, RenderingConfig), but using the given vector as scratch space
+     * instead of allocating a new one.
+     */
+    public static boolean isUnderwater(Vector3fc pos, WorldProvider worldProvider, RenderingConfig config, Vector3f scratch) {
+        Vector3f position = scratch.set(pos);
 
         if (config.isAnimateWater()) {
             position.y -= UnderwaterHelper.evaluateOceanHeightAtPosition(position, worldProvider.getTime().getDays());